@@ -6,18 +6,27 @@ import com.airtribe.meditrack.constants.Specialization;
 import com.airtribe.meditrack.controller.AppointmentController;
 import com.airtribe.meditrack.controller.DoctorController;
 import com.airtribe.meditrack.controller.PatientController;
+import com.airtribe.meditrack.controller.SearchController;
 import com.airtribe.meditrack.entity.Appointment;
 import com.airtribe.meditrack.entity.BillSummary;
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.entity.SearchResult;
 import com.airtribe.meditrack.exception.AppointmentNotFoundException;
 import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.util.DateUtil;
+import com.airtribe.meditrack.util.BookingTrends;
 import com.airtribe.meditrack.util.DatabaseUtil;
+import com.airtribe.meditrack.util.DoctorStatsReconciler;
+import com.airtribe.meditrack.util.SnapshotReadModel;
+import com.airtribe.meditrack.util.UniquePatientCounter;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -28,6 +37,7 @@ public class Main {
     private static final PatientController patientController = new PatientController();
     private static final DoctorController doctorController = new DoctorController();
     private static final AppointmentController appointmentController = new AppointmentController();
+    private static final SearchController searchController = new SearchController();
     
     /**
      * Main method
@@ -39,11 +49,28 @@ public class Main {
             DatabaseUtil.initializeDatabase();
             System.out.println("Database initialized successfully.");
             
+            // Check the per-doctor appointment counters now and periodically
+            DoctorStatsReconciler.getInstance().start(Constants.DOCTOR_STATS_RECONCILE_MINUTES);
+            
+            // Count bookings from now on for the last-hour/last-day rankings
+            BookingTrends.getInstance();
+            
+            // Distinct-patient sketches per doctor and month (built once, then kept up to date)
+            UniquePatientCounter.getInstance().initialize();
+            
             // Check for --loadData argument
             if (args.length > 0 && args[0].equals("--loadData")) {
                 System.out.println("Loading data from files...");
             }
             
+            // Check for --snapshot argument (fast startup from read-model snapshot)
+            boolean snapshotMode = Arrays.asList(args).contains("--snapshot");
+            Path snapshotFile = Paths.get(Constants.SNAPSHOT_FILE);
+            Path databaseFile = Paths.get(Constants.DB_FILE);
+            if (snapshotMode && SnapshotReadModel.getInstance().load(snapshotFile, databaseFile)) {
+                System.out.println("Read model loaded from snapshot.");
+            }
+            
             // Display welcome message
             System.out.println("\n" + Constants.WELCOME_MSG);
             System.out.println("=".repeat(50));
@@ -78,8 +105,14 @@ public class Main {
                 }
             }
             
-            System.out.println("\n" + Constants.EXIT_MSG);
+            if (snapshotMode) {
+                SnapshotReadModel.getInstance().clear();
+                SnapshotReadModel.write(snapshotFile, databaseFile);
+                System.out.println("Read model snapshot saved.");
+            }
             
+            System.out.println("\n" + Constants.EXIT_MSG);
+        
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
@@ -290,7 +323,8 @@ public class Main {
             System.out.println("4. Search Doctor by ID");
             System.out.println("5. Search Doctor by Name");
             System.out.println("6. Search Doctor by Specialization");
-            System.out.println("7. Back to Main Menu");
+            System.out.println("7. Quick Search (all records)");
+            System.out.println("8. Back to Main Menu");
             
             int choice = getIntInput("Enter your choice: ");
             
@@ -337,7 +371,17 @@ public class Main {
                     case 6:
                         searchDoctorBySpecialization();
                         break;
-                    case 7:
+                    case 7: {
+                        String query = getStringInput("Enter ID, name or keywords: ");
+                        List<SearchResult> results = searchController.search(query, Constants.SEARCH_RESULT_LIMIT);
+                        if (results.isEmpty()) {
+                            System.out.println("No matching records found.");
+                        } else {
+                            results.forEach(System.out::println);
+                        }
+                        break;
+                    }
+                    case 8:
                         back = true;
                         break;
                     default:
@@ -1,14 +1,17 @@
 package com.airtribe.meditrack.constants;
 
+import java.time.LocalTime;
+
 
 public class Constants {
     
     // Database
-    public static final String DB_URL = "jdbc:sqlite:meditrack.db";
+    public static final String DB_FILE = "meditrack.db";
+    public static final String DB_URL = "jdbc:sqlite:" + DB_FILE;
     public static final String DB_DRIVER = "org.sqlite.JDBC";
     
     // Tax rate
-    public static final double TAX_RATE = 0.10; // 10%
+    public static final long TAX_RATE_BASIS_POINTS = 1_000; // 10%
     
     // Date formats
     public static final String DATE_FORMAT = "yyyy-MM-dd";
@@ -20,11 +23,31 @@ public class Constants {
     public static final int MIN_NAME_LENGTH = 2;
     public static final int MAX_NAME_LENGTH = 100;
     
+    // Search
+    public static final int SEARCH_RESULT_LIMIT = 50;
+    public static final int MAX_FUZZY_DISTANCE = 2;
+    
+    // Reporting
+    public static final int AGE_BUCKET_SIZE = 10;
+    public static final long DOCTOR_STATS_RECONCILE_MINUTES = 60;
+    public static final int FORECAST_HORIZON_DAYS = 14;
+    
+    // Scheduling (slot length must divide a day; appointments occupy APPOINTMENT_MINUTES)
+    public static final int SLOT_MINUTES = 15;
+    public static final int APPOINTMENT_MINUTES = 30;
+    public static final LocalTime WORKING_HOURS_START = LocalTime.of(9, 0);
+    public static final LocalTime WORKING_HOURS_END = LocalTime.of(17, 0);
+    public static final int SLOT_SEARCH_DAYS = 30;
+    public static final int LOAD_WINDOW_DAYS = 7;
+    public static final long LOAD_CACHE_SECONDS = 30;
+    
     // File paths
     public static final String CSV_PATIENTS = "data/patients.csv";
     public static final String CSV_DOCTORS = "data/doctors.csv";
     public static final String CSV_APPOINTMENTS = "data/appointments.csv";
     public static final String SERIALIZATION_DIR = "data/serialized/";
+    public static final String SNAPSHOT_FILE = "data/meditrack.snapshot";
+    public static final String SYMPTOM_DICTIONARY = "data/symptom_keywords.csv";
     
     // Application messages
     public static final String WELCOME_MSG = "Welcome to MediTrack - Clinic Management System";
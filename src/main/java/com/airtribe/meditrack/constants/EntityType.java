@@ -0,0 +1,24 @@
+package com.airtribe.meditrack.constants;
+
+
+public enum EntityType {
+    PATIENT("Patient"),
+    DOCTOR("Doctor"),
+    APPOINTMENT("Appointment");
+    
+    private final String displayName;
+    
+    EntityType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
+
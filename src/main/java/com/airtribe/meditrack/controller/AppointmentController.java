@@ -7,6 +7,7 @@ import com.airtribe.meditrack.entity.BillSummary;
 import com.airtribe.meditrack.exception.AppointmentNotFoundException;
 import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.service.AppointmentService;
+import com.airtribe.meditrack.util.BatchScheduler;
 
 import java.sql.SQLException;
 import java.time.LocalDateTime;
@@ -40,6 +41,18 @@ public class AppointmentController {
                 appointmentDateTime, reason, notes);
     }
     
+    /**
+     * Schedule a batch of appointment requests at once
+     * @param requests Appointment requests
+     * @return Assignments made and requests that could not be served
+     * @throws InvalidDataException if a request is invalid
+     * @throws SQLException if database operation fails
+     */
+    public BatchScheduler.Result scheduleBatch(List<BatchScheduler.Request> requests)
+            throws InvalidDataException, SQLException {
+        return appointmentService.scheduleBatch(requests);
+    }
+    
     /**
      * Get appointment by ID
      * @param id Appointment ID
@@ -160,5 +173,18 @@ public class AppointmentController {
     public boolean deleteAppointment(int id) throws InvalidDataException, SQLException {
         return appointmentService.deleteAppointment(id);
     }
+    
+    /**
+     * Search appointment reasons and notes
+     * @param query Search query (words, "phrases", prefix*)
+     * @param limit Maximum number of results
+     * @return List of matching appointments, best match first
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<Appointment> searchAppointmentNotes(String query, int limit)
+            throws InvalidDataException, SQLException {
+        return appointmentService.searchAppointmentNotes(query, limit);
+    }
 }
 
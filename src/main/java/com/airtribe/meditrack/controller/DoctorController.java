@@ -4,6 +4,7 @@ import com.airtribe.meditrack.constants.Specialization;
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.service.DoctorService;
+import com.airtribe.meditrack.util.NameTrie;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -114,5 +115,41 @@ public class DoctorController {
     public Doctor searchDoctorById(int id) throws InvalidDataException, SQLException {
         return doctorService.searchDoctorById(id);
     }
+    
+    /**
+     * Full-text search over doctors
+     * @param query Free-text query
+     * @return List of matching doctors, best match first
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<Doctor> searchDoctors(String query) throws InvalidDataException, SQLException {
+        return doctorService.searchDoctors(query);
+    }
+    
+    /**
+     * Search doctors by name, specialization, license number or ID
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return List of matching doctors
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<Doctor> matchDoctors(String query, int limit) throws InvalidDataException, SQLException {
+        return doctorService.matchDoctors(query, limit);
+    }
+    
+    /**
+     * Autocomplete doctor names
+     * @param prefix Typed prefix
+     * @param limit Maximum number of completions
+     * @return Name completions in alphabetical order
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<NameTrie.Completion> autocompleteDoctorNames(String prefix, int limit)
+            throws InvalidDataException, SQLException {
+        return doctorService.autocompleteDoctorNames(prefix, limit);
+    }
 }
 
@@ -3,6 +3,7 @@ package com.airtribe.meditrack.controller;
 import com.airtribe.meditrack.entity.Patient;
 import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.service.PatientService;
+import com.airtribe.meditrack.util.NameTrie;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -13,7 +14,7 @@ public class PatientController {
     
     private final PatientService patientService;
     
-
+    
     public PatientController() {
         this.patientService = new PatientService();
     }
@@ -114,5 +115,80 @@ public class PatientController {
     public List<Patient> searchPatientByAge(int age) throws InvalidDataException, SQLException {
         return patientService.searchPatientsByAge(age);
     }
+    
+    /**
+     * Search patients within an age range
+     * @param minAge Minimum age, inclusive
+     * @param maxAge Maximum age, inclusive
+     * @return List of matching patients
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> searchPatientByAgeRange(int minAge, int maxAge)
+            throws InvalidDataException, SQLException {
+        return patientService.searchPatientsByAgeRange(minAge, maxAge);
+    }
+    
+    /**
+     * Full-text search over patients
+     * @param query Free-text query
+     * @return List of matching patients, best match first
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> searchPatients(String query) throws InvalidDataException, SQLException {
+        return patientService.searchPatients(query);
+    }
+    
+    /**
+     * Search medical history, allergies and names
+     * @param query Search query (words, "phrases", prefix*)
+     * @param limit Maximum number of results
+     * @return List of matching patients, best match first
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> searchMedicalRecords(String query, int limit)
+            throws InvalidDataException, SQLException {
+        return patientService.searchMedicalRecords(query, limit);
+    }
+    
+    /**
+     * Typo-tolerant patient search by name
+     * @param name Possibly misspelled name
+     * @param maxDistance Maximum edits per name word (1 or 2)
+     * @return List of matching patients, closest first
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> fuzzySearchPatients(String name, int maxDistance)
+            throws InvalidDataException, SQLException {
+        return patientService.fuzzySearchPatients(name, maxDistance);
+    }
+    
+    /**
+     * Search patients by name, email, ID or age
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return List of matching patients
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> matchPatients(String query, int limit) throws InvalidDataException, SQLException {
+        return patientService.matchPatients(query, limit);
+    }
+    
+    /**
+     * Autocomplete patient names
+     * @param prefix Typed prefix
+     * @param limit Maximum number of completions
+     * @return Name completions in alphabetical order
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<NameTrie.Completion> autocompletePatientNames(String prefix, int limit)
+            throws InvalidDataException, SQLException {
+        return patientService.autocompletePatientNames(prefix, limit);
+    }
 }
 
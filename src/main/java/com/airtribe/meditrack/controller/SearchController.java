@@ -0,0 +1,31 @@
+package com.airtribe.meditrack.controller;
+
+import com.airtribe.meditrack.entity.SearchResult;
+import com.airtribe.meditrack.exception.InvalidDataException;
+import com.airtribe.meditrack.service.SearchService;
+
+import java.sql.SQLException;
+import java.util.List;
+
+
+public class SearchController {
+    
+    private final SearchService searchService;
+    
+    public SearchController() {
+        this.searchService = new SearchService();
+    }
+    
+    /**
+     * Search patients, doctors and appointments with one query
+     * @param query Search query (ID, name prefix or free text)
+     * @param limit Maximum number of results
+     * @return List of results, most relevant first
+     * @throws InvalidDataException if validation fails
+     * @throws SQLException if database operation fails
+     */
+    public List<SearchResult> search(String query, int limit) throws InvalidDataException, SQLException {
+        return searchService.search(query, limit);
+    }
+}
+
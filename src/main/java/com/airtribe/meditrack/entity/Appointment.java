@@ -14,6 +14,8 @@ public class Appointment implements Cloneable {
     private AppointmentStatus status;
     private String reason;
     private String notes;
+    private LocalDateTime createdAt;
+    private LocalDateTime confirmedAt;
     
     public Appointment() {
         this.status = AppointmentStatus.PENDING;
@@ -86,12 +88,31 @@ public class Appointment implements Cloneable {
     public void setNotes(String notes) {
         this.notes = notes;
     }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getConfirmedAt() {
+        return confirmedAt;
+    }
+    
+    public void setConfirmedAt(LocalDateTime confirmedAt) {
+        this.confirmedAt = confirmedAt;
+    }
 
     public void cancel() {
         this.status = AppointmentStatus.CANCELLED;
     }
 
     public void confirm() {
+        if (this.status != AppointmentStatus.CONFIRMED) {
+            this.confirmedAt = LocalDateTime.now();
+        }
         this.status = AppointmentStatus.CONFIRMED;
     }
     
@@ -2,6 +2,7 @@ package com.airtribe.meditrack.entity;
 
 import com.airtribe.meditrack.constants.Constants;
 import com.airtribe.meditrack.interfaces.Payable;
+import com.airtribe.meditrack.util.Money;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
@@ -9,9 +10,9 @@ public class Bill implements Payable {
     
     private int id;
     private int appointmentId;
-    private double baseAmount;
-    private double taxAmount;
-    private double totalAmount;
+    private long baseCents;
+    private long taxCents;
+    private long totalCents;
     private LocalDateTime billDate;
     private String paymentStatus;
 
@@ -20,12 +21,10 @@ public class Bill implements Payable {
         this.paymentStatus = "PENDING";
     }
 
-    public Bill(int id, int appointmentId, double baseAmount) {
+    public Bill(int id, int appointmentId, long baseCents) {
         this.id = id;
         this.appointmentId = appointmentId;
-        this.baseAmount = baseAmount;
-        this.taxAmount = baseAmount * Constants.TAX_RATE;
-        this.totalAmount = baseAmount + this.taxAmount;
+        setBaseCents(baseCents);
         this.billDate = LocalDateTime.now();
         this.paymentStatus = "PENDING";
     }
@@ -46,22 +45,26 @@ public class Bill implements Payable {
         this.appointmentId = appointmentId;
     }
     
-    public double getBaseAmount() {
-        return baseAmount;
+    public long getBaseCents() {
+        return baseCents;
     }
     
-    public void setBaseAmount(double baseAmount) {
-        this.baseAmount = baseAmount;
-        this.taxAmount = baseAmount * Constants.TAX_RATE;
-        this.totalAmount = baseAmount + this.taxAmount;
+    /**
+     * Set the base amount; tax and total are recomputed in cents
+     * @param baseCents Base amount in cents
+     */
+    public void setBaseCents(long baseCents) {
+        this.baseCents = baseCents;
+        this.taxCents = Money.percentOf(baseCents, Constants.TAX_RATE_BASIS_POINTS);
+        this.totalCents = baseCents + this.taxCents;
     }
     
-    public double getTaxAmount() {
-        return taxAmount;
+    public long getTaxCents() {
+        return taxCents;
     }
     
-    public double getTotalAmount() {
-        return totalAmount;
+    public long getTotalCents() {
+        return totalCents;
     }
     
     public LocalDateTime getBillDate() {
@@ -81,15 +84,16 @@ public class Bill implements Payable {
     }
     
     @Override
-    public double calculateAmount() {
-        return totalAmount;
+    public long calculateAmountCents() {
+        return totalCents;
     }
     
     @Override
     public String generateBillSummary() {
         return String.format(
-            "Bill ID: %d\nAppointment ID: %d\nBase Amount: $%.2f\nTax (%.0f%%): $%.2f\nTotal: $%.2f\nDate: %s\nStatus: %s",
-            id, appointmentId, baseAmount, Constants.TAX_RATE * 100, taxAmount, totalAmount, billDate, paymentStatus
+            "Bill ID: %d\nAppointment ID: %d\nBase Amount: $%s\nTax (%.0f%%): $%s\nTotal: $%s\nDate: %s\nStatus: %s",
+            id, appointmentId, Money.format(baseCents), Constants.TAX_RATE_BASIS_POINTS / 100.0,
+            Money.format(taxCents), Money.format(totalCents), billDate, paymentStatus
         );
     }
     
@@ -119,9 +123,9 @@ public class Bill implements Payable {
         return "Bill{" +
                 "id=" + id +
                 ", appointmentId=" + appointmentId +
-                ", baseAmount=" + baseAmount +
-                ", taxAmount=" + taxAmount +
-                ", totalAmount=" + totalAmount +
+                ", baseAmount=" + Money.format(baseCents) +
+                ", taxAmount=" + Money.format(taxCents) +
+                ", totalAmount=" + Money.format(totalCents) +
                 ", billDate=" + billDate +
                 ", paymentStatus='" + paymentStatus + '\'' +
                 '}';
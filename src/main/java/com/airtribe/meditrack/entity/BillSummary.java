@@ -1,13 +1,15 @@
 package com.airtribe.meditrack.entity;
 
+import com.airtribe.meditrack.util.Money;
+
 import java.time.LocalDateTime;
 
 public final class BillSummary {
     private final int billId;
     private final int appointmentId;
-    private final double baseAmount;
-    private final double taxAmount;
-    private final double totalAmount;
+    private final long baseCents;
+    private final long taxCents;
+    private final long totalCents;
     private final LocalDateTime billDate;
     private final String paymentStatus;
     
@@ -15,20 +17,20 @@ public final class BillSummary {
      * Constructor - only way to create BillSummary
      * @param billId Bill ID
      * @param appointmentId Appointment ID
-     * @param baseAmount Base amount
-     * @param taxAmount Tax amount
-     * @param totalAmount Total amount
+     * @param baseCents Base amount in cents
+     * @param taxCents Tax amount in cents
+     * @param totalCents Total amount in cents
      * @param billDate Bill date
      * @param paymentStatus Payment status
      */
-    public BillSummary(int billId, int appointmentId, double baseAmount,
-                      double taxAmount, double totalAmount, LocalDateTime billDate,
+    public BillSummary(int billId, int appointmentId, long baseCents,
+                      long taxCents, long totalCents, LocalDateTime billDate,
                       String paymentStatus) {
         this.billId = billId;
         this.appointmentId = appointmentId;
-        this.baseAmount = baseAmount;
-        this.taxAmount = taxAmount;
-        this.totalAmount = totalAmount;
+        this.baseCents = baseCents;
+        this.taxCents = taxCents;
+        this.totalCents = totalCents;
         this.billDate = billDate;
         this.paymentStatus = paymentStatus;
     }
@@ -41,16 +43,16 @@ public final class BillSummary {
         return appointmentId;
     }
     
-    public double getBaseAmount() {
-        return baseAmount;
+    public long getBaseCents() {
+        return baseCents;
     }
     
-    public double getTaxAmount() {
-        return taxAmount;
+    public long getTaxCents() {
+        return taxCents;
     }
     
-    public double getTotalAmount() {
-        return totalAmount;
+    public long getTotalCents() {
+        return totalCents;
     }
     
     public LocalDateTime getBillDate() {
@@ -66,9 +68,9 @@ public final class BillSummary {
         return "BillSummary{" +
                 "billId=" + billId +
                 ", appointmentId=" + appointmentId +
-                ", baseAmount=" + baseAmount +
-                ", taxAmount=" + taxAmount +
-                ", totalAmount=" + totalAmount +
+                ", baseAmount=" + Money.format(baseCents) +
+                ", taxAmount=" + Money.format(taxCents) +
+                ", totalAmount=" + Money.format(totalCents) +
                 ", billDate=" + billDate +
                 ", paymentStatus='" + paymentStatus + '\'' +
                 '}';
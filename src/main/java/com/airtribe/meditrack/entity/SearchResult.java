@@ -0,0 +1,46 @@
+package com.airtribe.meditrack.entity;
+
+import com.airtribe.meditrack.constants.EntityType;
+
+public final class SearchResult {
+    private final EntityType type;
+    private final int id;
+    private final double score;
+    private final Object entity;
+    
+    /**
+     * Constructor - only way to create SearchResult
+     * @param type Kind of record
+     * @param id Record ID
+     * @param score Relevance between 0 and 1 (1 = exact ID match)
+     * @param entity Matched Patient, Doctor or Appointment
+     */
+    public SearchResult(EntityType type, int id, double score, Object entity) {
+        this.type = type;
+        this.id = id;
+        this.score = score;
+        this.entity = entity;
+    }
+    
+    public EntityType getType() {
+        return type;
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public Object getEntity() {
+        return entity;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("[%s #%d, score %.2f] %s", type, id, score, entity);
+    }
+}
+
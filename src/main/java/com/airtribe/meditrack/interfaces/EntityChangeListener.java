@@ -0,0 +1,27 @@
+package com.airtribe.meditrack.interfaces;
+
+public interface EntityChangeListener<T> {
+    
+    /**
+     * Called after an entity has been created
+     * @param entity Created entity
+     */
+    default void onCreated(T entity) {
+    }
+    
+    /**
+     * Called after an entity has been updated
+     * @param previous Entity state before the update
+     * @param current Entity state after the update
+     */
+    default void onUpdated(T previous, T current) {
+    }
+    
+    /**
+     * Called after an entity has been deleted
+     * @param entity Deleted entity
+     */
+    default void onDeleted(T entity) {
+    }
+}
+
@@ -4,9 +4,9 @@ public interface Payable {
     
     /**
      * Calculate the total amount to be paid
-     * @return Total amount
+     * @return Total amount in cents
      */
-    double calculateAmount();
+    long calculateAmountCents();
     
     /**
      * Generate a bill summary
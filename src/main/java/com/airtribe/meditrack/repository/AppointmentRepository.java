@@ -1,17 +1,64 @@
 package com.airtribe.meditrack.repository;
 
 import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Specialization;
 import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.util.AppointmentColumns;
 import com.airtribe.meditrack.util.DatabaseUtil;
 import com.airtribe.meditrack.util.DateUtil;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AppointmentRepository {
     
+    private static final String INSERT_SQL = "INSERT INTO appointments (id, patient_id, doctor_id, " +
+            "appointment_datetime, status, reason, notes, created_at, confirmed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 500;
+    
+    /**
+     * Epoch minute passed to a BookingTimesConsumer for a time that is not set
+     */
+    public static final int MISSING_MINUTE = Integer.MIN_VALUE;
+    
+    /**
+     * Receives one visit of a patient as primitives
+     */
+    @FunctionalInterface
+    public interface VisitConsumer {
+        void accept(int patientId, int epochMinute);
+    }
+    
+    /**
+     * Receives the booking, appointment and confirmation times of an appointment
+     * as epoch minutes (MISSING_MINUTE where not set)
+     */
+    @FunctionalInterface
+    public interface BookingTimesConsumer {
+        void accept(int doctorId, int bookedMinute, int appointmentMinute, int confirmedMinute);
+    }
+    
+    /**
+     * Receives the doctor and time of an appointment as primitives
+     */
+    @FunctionalInterface
+    public interface BookingConsumer {
+        void accept(int appointmentId, int doctorId, int epochMinute);
+    }
+    
+    /**
+     * Receives the number of appointments of a key (doctor or specialization) on a day
+     */
+    @FunctionalInterface
+    public interface DailyCountConsumer<K> {
+        void accept(K key, LocalDate day, int count);
+    }
+    
     /**
      * Create a new appointment
      * @param appointment Appointment to create
@@ -19,25 +66,43 @@ public class AppointmentRepository {
      * @throws SQLException if database operation fails
      */
     public Appointment create(Appointment appointment) throws SQLException {
-        String sql = "INSERT INTO appointments (id, patient_id, doctor_id, appointment_datetime, " +
-                     "status, reason, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
         try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, appointment.getId());
-            stmt.setInt(2, appointment.getPatientId());
-            stmt.setInt(3, appointment.getDoctorId());
-            stmt.setString(4, DateUtil.formatDateTime(appointment.getAppointmentDateTime()));
-            stmt.setString(5, appointment.getStatus().name());
-            stmt.setString(6, appointment.getReason());
-            stmt.setString(7, appointment.getNotes());
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
             
+            bindInsert(stmt, appointment);
             stmt.executeUpdate();
             return appointment;
         }
     }
     
+    /**
+     * Create many appointments in one transaction with batched inserts
+     * @param appointments Appointments to create (with IDs)
+     * @throws SQLException if database operation fails (nothing is created)
+     */
+    public void createAll(List<Appointment> appointments) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                int pending = 0;
+                for (Appointment appointment : appointments) {
+                    bindInsert(stmt, appointment);
+                    stmt.addBatch();
+                    if (++pending == INSERT_BATCH_SIZE) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
     /**
      * Find appointment by ID
      * @param id Appointment ID
@@ -81,6 +146,101 @@ public class AppointmentRepository {
         return appointments;
     }
     
+    /**
+     * Stream the booking, appointment and confirmation times of appointments with
+     * a known booking time (created_at set), as epoch minutes. Only the four
+     * columns are read and no Appointment is created.
+     * @param action Callback invoked for each appointment
+     * @throws SQLException if database operation fails
+     */
+    public void forEachBookingTimes(BookingTimesConsumer action) throws SQLException {
+        String sql = "SELECT doctor_id, created_at, appointment_datetime, confirmed_at FROM appointments " +
+                     "WHERE created_at IS NOT NULL";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            stmt.setFetchSize(10_000);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    action.accept(rs.getInt(1), epochMinuteOrMissing(rs.getString(2)),
+                            epochMinuteOrMissing(rs.getString(3)), epochMinuteOrMissing(rs.getString(4)));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Stream the non-cancelled appointments up to a time as (patient ID, time)
+     * pairs, ordered by patient and then time. The order comes from the
+     * patient/time index, so SQLite walks the index instead of sorting, and no
+     * Appointment is created.
+     * @param until Latest appointment time (e.g. now, so booked future visits do not count)
+     * @param action Callback invoked for each visit
+     * @throws SQLException if database operation fails
+     */
+    public void forEachVisitByPatient(LocalDateTime until, VisitConsumer action) throws SQLException {
+        String sql = "SELECT patient_id, appointment_datetime FROM appointments " +
+                     "WHERE status <> 'CANCELLED' AND appointment_datetime IS NOT NULL " +
+                     "AND appointment_datetime <= ? ORDER BY patient_id, appointment_datetime";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, DateUtil.formatDateTime(until));
+            stmt.setFetchSize(10_000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(rs.getInt(1), DateUtil.toEpochMinute(rs.getString(2)));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Stream non-cancelled appointment counts per doctor and day, ordered by
+     * doctor and day (aggregated in the database)
+     * @param action Callback invoked for each (doctor, day) with appointments
+     * @throws SQLException if database operation fails
+     */
+    public void forEachDailyCountByDoctor(DailyCountConsumer<Integer> action) throws SQLException {
+        String sql = "SELECT doctor_id, substr(appointment_datetime, 1, 10) AS day, COUNT(*) " +
+                     "FROM appointments WHERE status <> 'CANCELLED' AND appointment_datetime IS NOT NULL " +
+                     "GROUP BY doctor_id, day ORDER BY doctor_id, day";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(rs.getInt(1), DateUtil.parseDate(rs.getString(2)), rs.getInt(3));
+            }
+        }
+    }
+    
+    /**
+     * Stream non-cancelled appointment counts per doctor specialization and day,
+     * ordered by specialization and day (appointments of deleted doctors are left out)
+     * @param action Callback invoked for each (specialization, day) with appointments
+     * @throws SQLException if database operation fails
+     */
+    public void forEachDailyCountBySpecialization(DailyCountConsumer<Specialization> action) throws SQLException {
+        String sql = "SELECT d.specialization, substr(a.appointment_datetime, 1, 10) AS day, COUNT(*) " +
+                     "FROM appointments a JOIN doctors d ON d.id = a.doctor_id " +
+                     "WHERE a.status <> 'CANCELLED' AND a.appointment_datetime IS NOT NULL " +
+                     "GROUP BY d.specialization, day ORDER BY d.specialization, day";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(Specialization.valueOf(rs.getString(1)), DateUtil.parseDate(rs.getString(2)),
+                        rs.getInt(3));
+            }
+        }
+    }
+    
     /**
      * Find appointments by patient ID
      * @param patientId Patient ID
@@ -129,6 +289,84 @@ public class AppointmentRepository {
         return appointments;
     }
     
+    /**
+     * Find upcoming (not cancelled) appointments
+     * @param from Lower bound for the appointment date/time (inclusive)
+     * @return List of appointments ordered by date/time
+     * @throws SQLException if database operation fails
+     */
+    public List<Appointment> findUpcoming(LocalDateTime from) throws SQLException {
+        List<Appointment> appointments = new ArrayList<>();
+        String sql = "SELECT * FROM appointments WHERE appointment_datetime >= ? " +
+                     "AND status <> ? ORDER BY appointment_datetime";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, DateUtil.formatDateTime(from));
+            stmt.setString(2, AppointmentStatus.CANCELLED.name());
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapResultSetToAppointment(rs));
+                }
+            }
+        }
+        return appointments;
+    }
+    
+    /**
+     * Stream the non-cancelled appointments from a time on as (appointment ID,
+     * doctor ID, time) triples, ordered by time, without creating an Appointment
+     * @param from Earliest appointment time
+     * @param action Callback invoked for each appointment
+     * @throws SQLException if database operation fails
+     */
+    public void forEachUpcomingBooking(LocalDateTime from, BookingConsumer action) throws SQLException {
+        String sql = "SELECT id, doctor_id, appointment_datetime FROM appointments " +
+                     "WHERE appointment_datetime >= ? AND status <> ? ORDER BY appointment_datetime";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, DateUtil.formatDateTime(from));
+            stmt.setString(2, AppointmentStatus.CANCELLED.name());
+            stmt.setFetchSize(10_000);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(rs.getInt(1), rs.getInt(2), DateUtil.toEpochMinute(rs.getString(3)));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Count non-cancelled appointments from a time on, per doctor, in one grouped query
+     * @param from Earliest appointment time
+     * @return Map of doctor ID to upcoming appointments (doctors without any are left out)
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, Integer> countUpcomingByDoctor(LocalDateTime from) throws SQLException {
+        Map<Integer, Integer> counts = new HashMap<>();
+        String sql = "SELECT doctor_id, COUNT(*) AS upcoming FROM appointments " +
+                     "WHERE appointment_datetime >= ? AND status <> ? GROUP BY doctor_id";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, DateUtil.formatDateTime(from));
+            stmt.setString(2, AppointmentStatus.CANCELLED.name());
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getInt("doctor_id"), rs.getInt("upcoming"));
+                }
+            }
+        }
+        return counts;
+    }
+    
     /**
      * Update appointment
      * @param appointment Appointment to update
@@ -136,8 +374,9 @@ public class AppointmentRepository {
      * @throws SQLException if database operation fails
      */
     public Appointment update(Appointment appointment) throws SQLException {
+        // created_at is fixed at booking; confirmed_at is only ever set, never cleared
         String sql = "UPDATE appointments SET patient_id = ?, doctor_id = ?, appointment_datetime = ?, " +
-                     "status = ?, reason = ?, notes = ? WHERE id = ?";
+                     "status = ?, reason = ?, notes = ?, confirmed_at = COALESCE(?, confirmed_at) WHERE id = ?";
         
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -148,7 +387,8 @@ public class AppointmentRepository {
             stmt.setString(4, appointment.getStatus().name());
             stmt.setString(5, appointment.getReason());
             stmt.setString(6, appointment.getNotes());
-            stmt.setInt(7, appointment.getId());
+            stmt.setString(7, formatTimestamp(appointment.getConfirmedAt()));
+            stmt.setInt(8, appointment.getId());
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0 ? appointment : null;
@@ -172,6 +412,72 @@ public class AppointmentRepository {
         }
     }
     
+    /**
+     * Full-text search over reason and notes (FTS5, BM25-ranked)
+     * @param matchExpression FTS5 MATCH expression
+     * @param limit Maximum number of results
+     * @return Matching appointments, best match first
+     * @throws SQLException if database operation fails
+     */
+    public List<Appointment> searchFullText(String matchExpression, int limit) throws SQLException {
+        DatabaseUtil.ensureFullTextSearch();
+        List<Appointment> appointments = new ArrayList<>();
+        String sql = "SELECT a.* FROM appointments_fts JOIN appointments a ON a.id = appointments_fts.rowid " +
+                     "WHERE appointments_fts MATCH ? ORDER BY bm25(appointments_fts) LIMIT ?";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, matchExpression);
+            stmt.setInt(2, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapResultSetToAppointment(rs));
+                }
+            }
+        }
+        return appointments;
+    }
+    
+    /**
+     * Load all appointments with their bills into a columnar table, streaming
+     * rows straight into primitive arrays (no Appointment or Bill objects)
+     * @return Columnar appointments
+     * @throws SQLException if database operation fails
+     */
+    public AppointmentColumns loadColumns() throws SQLException {
+        String sql = "SELECT a.doctor_id, a.patient_id, a.appointment_datetime, a.status, " +
+                     "b.cents, b.paid FROM appointments a LEFT JOIN (" +
+                     "SELECT appointment_id, SUM(total_cents) AS cents, " +
+                     "MAX(UPPER(payment_status) = 'PAID') AS paid FROM bills GROUP BY appointment_id" +
+                     ") b ON b.appointment_id = a.id";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            int expected;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM appointments")) {
+                expected = rs.next() ? rs.getInt(1) : 0;
+            }
+            
+            AppointmentColumns.Appender appender = new AppointmentColumns.Appender(expected);
+            stmt.setFetchSize(10_000);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    byte billState = AppointmentColumns.NOT_BILLED;
+                    long cents = rs.getLong(5);
+                    if (!rs.wasNull()) {
+                        billState = rs.getInt(6) == 1 ? AppointmentColumns.PAID : AppointmentColumns.UNPAID;
+                    }
+                    appender.add(rs.getInt(1), rs.getInt(2), DateUtil.toEpochMinute(rs.getString(3)),
+                            AppointmentStatus.valueOf(rs.getString(4)), cents, billState);
+                }
+            }
+            return appender.build();
+        }
+    }
+    
     /**
      * Map ResultSet to Appointment object
      * @param rs ResultSet
@@ -196,8 +502,34 @@ public class AppointmentRepository {
         
         appointment.setReason(rs.getString("reason"));
         appointment.setNotes(rs.getString("notes"));
+        appointment.setCreatedAt(parseTimestamp(rs.getString("created_at")));
+        appointment.setConfirmedAt(parseTimestamp(rs.getString("confirmed_at")));
         
         return appointment;
     }
+    
+    private void bindInsert(PreparedStatement stmt, Appointment appointment) throws SQLException {
+        stmt.setInt(1, appointment.getId());
+        stmt.setInt(2, appointment.getPatientId());
+        stmt.setInt(3, appointment.getDoctorId());
+        stmt.setString(4, DateUtil.formatDateTime(appointment.getAppointmentDateTime()));
+        stmt.setString(5, appointment.getStatus().name());
+        stmt.setString(6, appointment.getReason());
+        stmt.setString(7, appointment.getNotes());
+        stmt.setString(8, formatTimestamp(appointment.getCreatedAt()));
+        stmt.setString(9, formatTimestamp(appointment.getConfirmedAt()));
+    }
+    
+    private static String formatTimestamp(LocalDateTime timestamp) {
+        return timestamp == null ? null : DateUtil.formatDateTime(timestamp);
+    }
+    
+    private static LocalDateTime parseTimestamp(String value) {
+        return value == null ? null : DateUtil.parseDateTime(value);
+    }
+    
+    private static int epochMinuteOrMissing(String value) {
+        return value == null ? MISSING_MINUTE : DateUtil.toEpochMinute(value);
+    }
 }
 
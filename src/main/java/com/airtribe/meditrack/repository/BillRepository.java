@@ -18,17 +18,17 @@ public class BillRepository {
      * @throws SQLException if database operation fails
      */
     public Bill create(Bill bill) throws SQLException {
-        String sql = "INSERT INTO bills (id, appointment_id, base_amount, tax_amount, " +
-                     "total_amount, bill_date, payment_status) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO bills (id, appointment_id, base_cents, tax_cents, " +
+                     "total_cents, bill_date, payment_status) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, bill.getId());
             stmt.setInt(2, bill.getAppointmentId());
-            stmt.setDouble(3, bill.getBaseAmount());
-            stmt.setDouble(4, bill.getTaxAmount());
-            stmt.setDouble(5, bill.getTotalAmount());
+            stmt.setLong(3, bill.getBaseCents());
+            stmt.setLong(4, bill.getTaxCents());
+            stmt.setLong(5, bill.getTotalCents());
             stmt.setString(6, DateUtil.formatDateTime(bill.getBillDate()));
             stmt.setString(7, bill.getPaymentStatus());
             
@@ -110,16 +110,16 @@ public class BillRepository {
      * @throws SQLException if database operation fails
      */
     public Bill update(Bill bill) throws SQLException {
-        String sql = "UPDATE bills SET appointment_id = ?, base_amount = ?, tax_amount = ?, " +
-                     "total_amount = ?, bill_date = ?, payment_status = ? WHERE id = ?";
+        String sql = "UPDATE bills SET appointment_id = ?, base_cents = ?, tax_cents = ?, " +
+                     "total_cents = ?, bill_date = ?, payment_status = ? WHERE id = ?";
         
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, bill.getAppointmentId());
-            stmt.setDouble(2, bill.getBaseAmount());
-            stmt.setDouble(3, bill.getTaxAmount());
-            stmt.setDouble(4, bill.getTotalAmount());
+            stmt.setLong(2, bill.getBaseCents());
+            stmt.setLong(3, bill.getTaxCents());
+            stmt.setLong(4, bill.getTotalCents());
             stmt.setString(5, DateUtil.formatDateTime(bill.getBillDate()));
             stmt.setString(6, bill.getPaymentStatus());
             stmt.setInt(7, bill.getId());
@@ -139,7 +139,7 @@ public class BillRepository {
         Bill bill = new Bill();
         bill.setId(rs.getInt("id"));
         bill.setAppointmentId(rs.getInt("appointment_id"));
-        bill.setBaseAmount(rs.getDouble("base_amount"));
+        bill.setBaseCents(rs.getLong("base_cents"));
         bill.setPaymentStatus(rs.getString("payment_status"));
         
         String dateTimeStr = rs.getString("bill_date");
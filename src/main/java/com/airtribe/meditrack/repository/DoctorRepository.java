@@ -8,10 +8,16 @@ import com.airtribe.meditrack.util.DateUtil;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class DoctorRepository {
     
+    private static final int MAX_IN_LIST = 500;
+    
     /**
      * Create a new doctor
      * @param doctor Doctor to create
@@ -84,6 +90,119 @@ public class DoctorRepository {
         return doctors;
     }
     
+    /**
+     * Find doctors by a list of IDs (one query per 500 IDs)
+     * @param ids Doctor IDs
+     * @return Matching doctors in the order of the given IDs
+     * @throws SQLException if database operation fails
+     */
+    public List<Doctor> findByIds(List<Integer> ids) throws SQLException {
+        List<Doctor> doctors = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return doctors;
+        }
+        Map<Integer, Doctor> byId = new HashMap<>();
+        
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                String sql = "SELECT * FROM doctors WHERE id IN (" + placeholders + ")";
+                
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Doctor doctor = mapResultSetToDoctor(rs);
+                            byId.put(doctor.getId(), doctor);
+                        }
+                    }
+                }
+            }
+        }
+        for (Integer id : ids) {
+            Doctor doctor = byId.get(id);
+            if (doctor != null) {
+                doctors.add(doctor);
+            }
+        }
+        return doctors;
+    }
+    
+    /**
+     * Stream all doctors without materializing the full list
+     * @param action Callback invoked for each doctor
+     * @throws SQLException if database operation fails
+     */
+    public void forEach(Consumer<Doctor> action) throws SQLException {
+        String sql = "SELECT * FROM doctors";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(mapResultSetToDoctor(rs));
+            }
+        }
+    }
+    
+    /**
+     * Count doctors
+     * @return Number of doctors
+     * @throws SQLException if database operation fails
+     */
+    public int count() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM doctors")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    /**
+     * Stream the license number of every doctor (no full row mapping)
+     * @param action Callback receiving the license number
+     * @throws SQLException if database operation fails
+     */
+    public void forEachLicenseNumber(Consumer<String> action) throws SQLException {
+        String sql = "SELECT license_number FROM doctors";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(rs.getString("license_number"));
+            }
+        }
+    }
+    
+    /**
+     * Check whether another doctor already uses a license number
+     * @param value License number to look up
+     * @param excludeId ID of the doctor being updated, or 0 when creating
+     * @return true if a different doctor has it
+     * @throws SQLException if database operation fails
+     */
+    public boolean existsByLicenseNumber(String value, int excludeId) throws SQLException {
+        String sql = "SELECT 1 FROM doctors WHERE license_number = ? AND id <> ? LIMIT 1";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, value);
+            stmt.setInt(2, excludeId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
     /**
      * Update doctor
      * @param doctor Doctor to update
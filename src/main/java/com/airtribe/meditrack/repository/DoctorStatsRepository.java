@@ -0,0 +1,174 @@
+package com.airtribe.meditrack.repository;
+
+import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.util.DatabaseUtil;
+
+import java.sql.*;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read access to doctor_stats, the per-doctor, per-status appointment counts that
+ * database triggers maintain on every appointment insert, update and delete.
+ */
+public class DoctorStatsRepository {
+    
+    // (doctor, status) pairs whose stored count differs from the appointments table
+    private static final String DRIFT_SQL = "SELECT COUNT(*) FROM (SELECT doctor_id, status FROM (" +
+            "SELECT * FROM (SELECT doctor_id, status, COUNT(*) FROM appointments GROUP BY doctor_id, status " +
+            "EXCEPT SELECT doctor_id, status, appointment_count FROM doctor_stats WHERE appointment_count <> 0) " +
+            "UNION ALL " +
+            "SELECT * FROM (SELECT doctor_id, status, appointment_count FROM doctor_stats WHERE appointment_count <> 0 " +
+            "EXCEPT SELECT doctor_id, status, COUNT(*) FROM appointments GROUP BY doctor_id, status)) " +
+            "GROUP BY doctor_id, status)";
+    
+    /**
+     * Get the appointment counts of one doctor
+     * @param doctorId Doctor ID
+     * @return Count per status (statuses without appointments are 0)
+     * @throws SQLException if database operation fails
+     */
+    public Map<AppointmentStatus, Long> findCountsByDoctorId(int doctorId) throws SQLException {
+        Map<AppointmentStatus, Long> counts = new EnumMap<>(AppointmentStatus.class);
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            counts.put(status, 0L);
+        }
+        String sql = "SELECT status, appointment_count FROM doctor_stats WHERE doctor_id = ?";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, doctorId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(AppointmentStatus.valueOf(rs.getString("status")), rs.getLong("appointment_count"));
+                }
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * Count appointments per doctor, excluding one status
+     * @param excluded Status not to count (e.g. CANCELLED)
+     * @return Map of doctor ID to appointment count (doctors with no appointments are left out)
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, Long> countPerDoctorExcluding(AppointmentStatus excluded) throws SQLException {
+        Map<Integer, Long> counts = new HashMap<>();
+        String sql = "SELECT doctor_id, SUM(appointment_count) AS total FROM doctor_stats " +
+                     "WHERE status <> ? GROUP BY doctor_id HAVING total > 0";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, excluded.name());
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getInt("doctor_id"), rs.getLong("total"));
+                }
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * Count appointments with a status across all doctors
+     * @param status Appointment status
+     * @return Number of appointments
+     * @throws SQLException if database operation fails
+     */
+    public long countByStatus(AppointmentStatus status) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(appointment_count), 0) FROM doctor_stats WHERE status = ?";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, status.name());
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Stream every stored (doctor, status) count
+     * @param action Callback invoked for each non-zero count
+     * @throws SQLException if database operation fails
+     */
+    public void forEach(Consumer<StatusCount> action) throws SQLException {
+        String sql = "SELECT doctor_id, status, appointment_count FROM doctor_stats WHERE appointment_count <> 0";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(new StatusCount(rs.getInt("doctor_id"),
+                        AppointmentStatus.valueOf(rs.getString("status")), rs.getLong("appointment_count")));
+            }
+        }
+    }
+    
+    /**
+     * Compare the stored counts with the appointments table and rebuild them if
+     * they have drifted (e.g. rows changed while the triggers were missing)
+     * @return Number of (doctor, status) counts that were wrong; 0 if nothing was repaired
+     * @throws SQLException if database operation fails
+     */
+    public int reconcile() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (Statement stmt = conn.createStatement()) {
+                int drifted;
+                try (ResultSet rs = stmt.executeQuery(DRIFT_SQL)) {
+                    drifted = rs.next() ? rs.getInt(1) : 0;
+                }
+                if (drifted > 0) {
+                    stmt.executeUpdate("DELETE FROM doctor_stats");
+                    stmt.executeUpdate("INSERT INTO doctor_stats (doctor_id, status, appointment_count) " +
+                            "SELECT doctor_id, status, COUNT(*) FROM appointments GROUP BY doctor_id, status");
+                }
+                conn.commit();
+                return drifted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * One doctor's appointment count for one status
+     */
+    public static final class StatusCount {
+        private final int doctorId;
+        private final AppointmentStatus status;
+        private final long count;
+        
+        StatusCount(int doctorId, AppointmentStatus status, long count) {
+            this.doctorId = doctorId;
+            this.status = status;
+            this.count = count;
+        }
+        
+        public int getDoctorId() {
+            return doctorId;
+        }
+        
+        public AppointmentStatus getStatus() {
+            return status;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+    }
+}
+
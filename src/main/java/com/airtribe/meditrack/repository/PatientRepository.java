@@ -3,14 +3,23 @@ package com.airtribe.meditrack.repository;
 import com.airtribe.meditrack.entity.Patient;
 import com.airtribe.meditrack.util.DatabaseUtil;
 import com.airtribe.meditrack.util.DateUtil;
+import com.airtribe.meditrack.util.Soundex;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class PatientRepository {
     
+    private static final int MAX_IN_LIST = 500;
+    
     /**
      * Create a new patient
      * @param patient Patient to create
@@ -19,8 +28,8 @@ public class PatientRepository {
      */
     public Patient create(Patient patient) throws SQLException {
         String sql = "INSERT INTO patients (id, name, date_of_birth, email, phone_number, " +
-                     "medical_history, allergies, insurance_provider, insurance_policy_number) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                     "medical_history, allergies, insurance_provider, insurance_policy_number, name_phonetic) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -34,6 +43,7 @@ public class PatientRepository {
             stmt.setString(7, patient.getAllergies());
             stmt.setString(8, patient.getInsuranceProvider());
             stmt.setString(9, patient.getInsurancePolicyNumber());
+            stmt.setString(10, Soundex.encodeName(patient.getName()));
             
             stmt.executeUpdate();
             return patient;
@@ -83,6 +93,141 @@ public class PatientRepository {
         return patients;
     }
     
+    /**
+     * Find patients by a list of IDs (one query per 500 IDs)
+     * @param ids Patient IDs
+     * @return Matching patients in the order of the given IDs
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> findByIds(List<Integer> ids) throws SQLException {
+        List<Patient> patients = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return patients;
+        }
+        Map<Integer, Patient> byId = new HashMap<>();
+        
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                String sql = "SELECT * FROM patients WHERE id IN (" + placeholders + ")";
+                
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Patient patient = mapResultSetToPatient(rs);
+                            byId.put(patient.getId(), patient);
+                        }
+                    }
+                }
+            }
+        }
+        for (Integer id : ids) {
+            Patient patient = byId.get(id);
+            if (patient != null) {
+                patients.add(patient);
+            }
+        }
+        return patients;
+    }
+    
+    /**
+     * Stream all patients without materializing the full list
+     * @param action Callback invoked for each patient
+     * @throws SQLException if database operation fails
+     */
+    public void forEach(Consumer<Patient> action) throws SQLException {
+        String sql = "SELECT * FROM patients";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(mapResultSetToPatient(rs));
+            }
+        }
+    }
+    
+    /**
+     * Count patients
+     * @return Number of patients
+     * @throws SQLException if database operation fails
+     */
+    public int count() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM patients")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    /**
+     * Stream the email and phone number of every patient (no full row mapping)
+     * @param action Callback receiving email and phone number
+     * @throws SQLException if database operation fails
+     */
+    public void forEachContact(BiConsumer<String, String> action) throws SQLException {
+        String sql = "SELECT email, phone_number FROM patients";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(rs.getString("email"), rs.getString("phone_number"));
+            }
+        }
+    }
+    
+    /**
+     * Check whether another patient already uses an email address
+     * @param value Email to look up (case-insensitive)
+     * @param excludeId ID of the patient being updated, or 0 when creating
+     * @return true if a different patient has it
+     * @throws SQLException if database operation fails
+     */
+    public boolean existsByEmail(String value, int excludeId) throws SQLException {
+        String sql = "SELECT 1 FROM patients WHERE email = ? COLLATE NOCASE AND id <> ? LIMIT 1";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, value);
+            stmt.setInt(2, excludeId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
+    /**
+     * Check whether another patient already uses a phone number
+     * @param value Phone number to look up
+     * @param excludeId ID of the patient being updated, or 0 when creating
+     * @return true if a different patient has it
+     * @throws SQLException if database operation fails
+     */
+    public boolean existsByPhoneNumber(String value, int excludeId) throws SQLException {
+        String sql = "SELECT 1 FROM patients WHERE phone_number = ? AND id <> ? LIMIT 1";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, value);
+            stmt.setInt(2, excludeId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
     /**
      * Update patient
      * @param patient Patient to update
@@ -92,7 +237,7 @@ public class PatientRepository {
     public Patient update(Patient patient) throws SQLException {
         String sql = "UPDATE patients SET name = ?, date_of_birth = ?, email = ?, phone_number = ?, " +
                      "medical_history = ?, allergies = ?, insurance_provider = ?, " +
-                     "insurance_policy_number = ? WHERE id = ?";
+                     "insurance_policy_number = ?, name_phonetic = ? WHERE id = ?";
         
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -105,7 +250,8 @@ public class PatientRepository {
             stmt.setString(6, patient.getAllergies());
             stmt.setString(7, patient.getInsuranceProvider());
             stmt.setString(8, patient.getInsurancePolicyNumber());
-            stmt.setInt(9, patient.getId());
+            stmt.setString(9, Soundex.encodeName(patient.getName()));
+            stmt.setInt(10, patient.getId());
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0 ? patient : null;
@@ -153,6 +299,111 @@ public class PatientRepository {
         return patients;
     }
     
+    /**
+     * Find patients born within a date range (uses the date_of_birth index)
+     * @param from First birth date, inclusive
+     * @param to Last birth date, inclusive
+     * @return Matching patients ordered by birth date
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> findByBirthDateRange(LocalDate from, LocalDate to) throws SQLException {
+        List<Patient> patients = new ArrayList<>();
+        String sql = "SELECT * FROM patients WHERE date_of_birth BETWEEN ? AND ? ORDER BY date_of_birth, id";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, DateUtil.formatDate(from));
+            stmt.setString(2, DateUtil.formatDate(to));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSetToPatient(rs));
+                }
+            }
+        }
+        return patients;
+    }
+    
+    /**
+     * Count patients per birth year (answered from the date_of_birth index alone)
+     * @return Map of birth year to patient count, in ascending year order
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, Integer> countByBirthYear() throws SQLException {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        String sql = "SELECT substr(date_of_birth, 1, 4) AS birth_year, COUNT(*) AS total " +
+                     "FROM patients GROUP BY birth_year";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                counts.put(Integer.parseInt(rs.getString("birth_year")), rs.getInt("total"));
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * Find patients whose name sounds like the given one (indexed Soundex key)
+     * @param name Name as heard or typed
+     * @param limit Maximum number of results
+     * @return Matching patients ordered by ID
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> findBySoundex(String name, int limit) throws SQLException {
+        List<Patient> patients = new ArrayList<>();
+        String key = Soundex.encodeName(name);
+        if (key.isEmpty()) {
+            return patients;
+        }
+        String sql = "SELECT * FROM patients WHERE name_phonetic = ? ORDER BY id LIMIT ?";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, key);
+            stmt.setInt(2, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSetToPatient(rs));
+                }
+            }
+        }
+        return patients;
+    }
+    
+    /**
+     * Full-text search over name, medical history and allergies (FTS5, BM25-ranked)
+     * @param matchExpression FTS5 MATCH expression
+     * @param limit Maximum number of results
+     * @return Matching patients, best match first
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> searchFullText(String matchExpression, int limit) throws SQLException {
+        DatabaseUtil.ensureFullTextSearch();
+        List<Patient> patients = new ArrayList<>();
+        String sql = "SELECT p.* FROM patients_fts JOIN patients p ON p.id = patients_fts.rowid " +
+                     "WHERE patients_fts MATCH ? ORDER BY bm25(patients_fts, 2.0, 1.0, 1.0) LIMIT ?";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, matchExpression);
+            stmt.setInt(2, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapResultSetToPatient(rs));
+                }
+            }
+        }
+        return patients;
+    }
+    
     /**
      * Map ResultSet to Patient object
      * @param rs ResultSet
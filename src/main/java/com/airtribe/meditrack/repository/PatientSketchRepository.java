@@ -0,0 +1,216 @@
+package com.airtribe.meditrack.repository;
+
+import com.airtribe.meditrack.util.DatabaseUtil;
+import com.airtribe.meditrack.util.HyperLogLog;
+
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Storage for patient_sketches: one HyperLogLog of patient IDs per doctor and
+ * month. Distinct-patient counts for any set of doctors and months are answered
+ * by merging the stored sketches, never by scanning appointments.
+ */
+public class PatientSketchRepository {
+    
+    private static final int REBUILD_BATCH_SIZE = 500;
+    
+    @FunctionalInterface
+    private interface KeyReader<K> {
+        K read(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * Add a patient to a doctor's sketch for a month
+     * @param doctorId Doctor ID
+     * @param month Month of the appointment
+     * @param patientId Patient ID
+     * @return true if the stored sketch changed
+     * @throws SQLException if database operation fails
+     */
+    public boolean add(int doctorId, YearMonth month, int patientId) throws SQLException {
+        String selectSql = "SELECT sketch FROM patient_sketches WHERE doctor_id = ? AND month = ?";
+        String upsertSql = "INSERT OR REPLACE INTO patient_sketches (doctor_id, month, sketch) VALUES (?, ?, ?)";
+        
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement select = conn.prepareStatement(selectSql);
+                 PreparedStatement upsert = conn.prepareStatement(upsertSql)) {
+                
+                select.setInt(1, doctorId);
+                select.setString(2, month.toString());
+                HyperLogLog sketch;
+                try (ResultSet rs = select.executeQuery()) {
+                    sketch = rs.next() ? HyperLogLog.fromBytes(rs.getBytes("sketch")) : new HyperLogLog();
+                }
+                
+                boolean changed = sketch.add(patientId);
+                if (changed) {
+                    upsert.setInt(1, doctorId);
+                    upsert.setString(2, month.toString());
+                    upsert.setBytes(3, sketch.toBytes());
+                    upsert.executeUpdate();
+                }
+                conn.commit();
+                return changed;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Merge the sketches of a month range into one
+     * @param from First month (inclusive)
+     * @param to Last month (inclusive)
+     * @return Sketch of all patients seen in the range
+     * @throws SQLException if database operation fails
+     */
+    public HyperLogLog mergeAll(YearMonth from, YearMonth to) throws SQLException {
+        String sql = "SELECT sketch FROM patient_sketches WHERE month BETWEEN ? AND ?";
+        HyperLogLog merged = merge(sql, from, to, rs -> 0).get(0);
+        return merged == null ? new HyperLogLog() : merged;
+    }
+    
+    /**
+     * Merge the sketches of a month range per doctor
+     * @param from First month (inclusive)
+     * @param to Last month (inclusive)
+     * @return Map of doctor ID to sketch (doctors without appointments are left out)
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, HyperLogLog> mergeByDoctor(YearMonth from, YearMonth to) throws SQLException {
+        String sql = "SELECT doctor_id, sketch FROM patient_sketches WHERE month BETWEEN ? AND ?";
+        return merge(sql, from, to, rs -> rs.getInt("doctor_id"));
+    }
+    
+    /**
+     * Merge the sketches of a month range per month
+     * @param from First month (inclusive)
+     * @param to Last month (inclusive)
+     * @return Map of month to sketch, in month order
+     * @throws SQLException if database operation fails
+     */
+    public Map<YearMonth, HyperLogLog> mergeByMonth(YearMonth from, YearMonth to) throws SQLException {
+        String sql = "SELECT month, sketch FROM patient_sketches WHERE month BETWEEN ? AND ?";
+        return new TreeMap<>(merge(sql, from, to, rs -> YearMonth.parse(rs.getString("month"))));
+    }
+    
+    /**
+     * Merge the sketches of a month range per doctor specialization
+     * @param from First month (inclusive)
+     * @param to Last month (inclusive)
+     * @return Map of specialization name to sketch ("UNKNOWN" for deleted doctors)
+     * @throws SQLException if database operation fails
+     */
+    public Map<String, HyperLogLog> mergeBySpecialization(YearMonth from, YearMonth to) throws SQLException {
+        String sql = "SELECT COALESCE(d.specialization, 'UNKNOWN') AS specialization, s.sketch " +
+                     "FROM patient_sketches s LEFT JOIN doctors d ON d.id = s.doctor_id " +
+                     "WHERE s.month BETWEEN ? AND ?";
+        return merge(sql, from, to, rs -> rs.getString("specialization"));
+    }
+    
+    /**
+     * Count stored sketches
+     * @return Number of (doctor, month) sketches
+     * @throws SQLException if database operation fails
+     */
+    public int count() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM patient_sketches")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    /**
+     * Rebuild all sketches from the appointments table. Rows are read in
+     * (doctor, month) order so only one sketch is held in memory at a time.
+     * @return Number of sketches written
+     * @throws SQLException if database operation fails
+     */
+    public int rebuild() throws SQLException {
+        String selectSql = "SELECT doctor_id, substr(appointment_datetime, 1, 7) AS month, patient_id " +
+                           "FROM appointments ORDER BY doctor_id, month";
+        String insertSql = "INSERT INTO patient_sketches (doctor_id, month, sketch) VALUES (?, ?, ?)";
+        
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (Statement stmt = conn.createStatement();
+                 PreparedStatement insert = conn.prepareStatement(insertSql)) {
+                
+                stmt.executeUpdate("DELETE FROM patient_sketches");
+                int written = 0;
+                int doctorId = 0;
+                String month = null;
+                HyperLogLog sketch = null;
+                try (ResultSet rs = stmt.executeQuery(selectSql)) {
+                    while (rs.next()) {
+                        int rowDoctorId = rs.getInt("doctor_id");
+                        String rowMonth = rs.getString("month");
+                        if (sketch == null || rowDoctorId != doctorId || !rowMonth.equals(month)) {
+                            if (sketch != null) {
+                                insertSketch(insert, doctorId, month, sketch);
+                                if (++written % REBUILD_BATCH_SIZE == 0) {
+                                    insert.executeBatch();
+                                }
+                            }
+                            doctorId = rowDoctorId;
+                            month = rowMonth;
+                            sketch = new HyperLogLog();
+                        }
+                        sketch.add(rs.getInt("patient_id"));
+                    }
+                }
+                if (sketch != null) {
+                    insertSketch(insert, doctorId, month, sketch);
+                    written++;
+                }
+                insert.executeBatch();
+                conn.commit();
+                return written;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    private void insertSketch(PreparedStatement insert, int doctorId, String month, HyperLogLog sketch)
+            throws SQLException {
+        insert.setInt(1, doctorId);
+        insert.setString(2, month);
+        insert.setBytes(3, sketch.toBytes());
+        insert.addBatch();
+    }
+    
+    private <K> Map<K, HyperLogLog> merge(String sql, YearMonth from, YearMonth to, KeyReader<K> keyReader)
+            throws SQLException {
+        Map<K, HyperLogLog> merged = new HashMap<>();
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, from.toString());
+            stmt.setString(2, to.toString());
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("sketch"));
+                    HyperLogLog existing = merged.putIfAbsent(keyReader.read(rs), sketch);
+                    if (existing != null) {
+                        existing.merge(sketch);
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+}
+
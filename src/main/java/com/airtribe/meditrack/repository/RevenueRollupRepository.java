@@ -0,0 +1,273 @@
+package com.airtribe.meditrack.repository;
+
+import com.airtribe.meditrack.util.DatabaseUtil;
+import com.airtribe.meditrack.util.DateUtil;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Revenue queries over the revenue_daily and revenue_monthly rollups (paid bill
+ * totals in cents, per doctor), which database triggers keep in step with bills.
+ * A date range is answered from monthly buckets for the whole months it covers
+ * and daily buckets for the partial months at either end, so a multi-year range
+ * reads a few hundred rows per doctor at most.
+ */
+public class RevenueRollupRepository {
+    
+    // Buckets covering a date range; parameters are bound by bindRange
+    private static final String RANGE_BUCKETS = "SELECT substr(day, 1, 7) AS month, doctor_id, paid_cents " +
+            "FROM revenue_daily WHERE day BETWEEN ? AND ? OR day BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT month, doctor_id, paid_cents FROM revenue_monthly WHERE month BETWEEN ? AND ?";
+    
+    /**
+     * Get total paid revenue over all time
+     * @return Revenue in cents
+     * @throws SQLException if database operation fails
+     */
+    public long totalPaidCents() throws SQLException {
+        String sql = "SELECT COALESCE(SUM(paid_cents), 0) FROM revenue_monthly";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+    
+    /**
+     * Stream every monthly bucket (one row per month and doctor)
+     * @param action Callback invoked for each bucket
+     * @throws SQLException if database operation fails
+     */
+    public void forEachMonth(Consumer<MonthlyRevenue> action) throws SQLException {
+        String sql = "SELECT month, doctor_id, paid_cents FROM revenue_monthly";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                action.accept(new MonthlyRevenue(YearMonth.parse(rs.getString("month")),
+                        rs.getInt("doctor_id"), rs.getLong("paid_cents")));
+            }
+        }
+    }
+    
+    /**
+     * Get paid revenue for a date range
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Revenue in cents
+     * @throws SQLException if database operation fails
+     */
+    public long sumPaidCents(LocalDate from, LocalDate to) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(paid_cents), 0) FROM (" + RANGE_BUCKETS + ")";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            bindRange(stmt, from, to);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Get paid revenue per day
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Map of day to revenue in cents, in date order (days without revenue are left out)
+     * @throws SQLException if database operation fails
+     */
+    public Map<LocalDate, Long> sumPaidCentsByDay(LocalDate from, LocalDate to) throws SQLException {
+        Map<LocalDate, Long> totals = new LinkedHashMap<>();
+        String sql = "SELECT day, SUM(paid_cents) AS cents FROM revenue_daily " +
+                     "WHERE day BETWEEN ? AND ? GROUP BY day ORDER BY day";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, DateUtil.formatDate(from));
+            stmt.setString(2, DateUtil.formatDate(to));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(DateUtil.parseDate(rs.getString("day")), rs.getLong("cents"));
+                }
+            }
+        }
+        return totals;
+    }
+    
+    /**
+     * Get paid revenue per month; the first and last month only count days inside the range
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Map of month to revenue in cents, in month order
+     * @throws SQLException if database operation fails
+     */
+    public Map<YearMonth, Long> sumPaidCentsByMonth(LocalDate from, LocalDate to) throws SQLException {
+        Map<YearMonth, Long> totals = new TreeMap<>();
+        String sql = "SELECT month, SUM(paid_cents) AS cents FROM (" + RANGE_BUCKETS + ") GROUP BY month";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            bindRange(stmt, from, to);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(YearMonth.parse(rs.getString("month")), rs.getLong("cents"));
+                }
+            }
+        }
+        return totals;
+    }
+    
+    /**
+     * Get paid revenue per doctor
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Map of doctor ID to revenue in cents (0 collects bills without an appointment)
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, Long> sumPaidCentsByDoctor(LocalDate from, LocalDate to) throws SQLException {
+        Map<Integer, Long> totals = new TreeMap<>();
+        String sql = "SELECT doctor_id, SUM(paid_cents) AS cents FROM (" + RANGE_BUCKETS + ") GROUP BY doctor_id";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            bindRange(stmt, from, to);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getInt("doctor_id"), rs.getLong("cents"));
+                }
+            }
+        }
+        return totals;
+    }
+    
+    /**
+     * Get paid revenue per specialization (of the doctor's current record)
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Map of specialization name to revenue in cents; UNKNOWN if the doctor no longer exists
+     * @throws SQLException if database operation fails
+     */
+    public Map<String, Long> sumPaidCentsBySpecialization(LocalDate from, LocalDate to) throws SQLException {
+        Map<String, Long> totals = new TreeMap<>();
+        String sql = "SELECT COALESCE(d.specialization, 'UNKNOWN') AS specialization, SUM(r.paid_cents) AS cents " +
+                     "FROM (" + RANGE_BUCKETS + ") r LEFT JOIN doctors d ON d.id = r.doctor_id " +
+                     "GROUP BY 1";
+        
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            bindRange(stmt, from, to);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getString("specialization"), rs.getLong("cents"));
+                }
+            }
+        }
+        return totals;
+    }
+    
+    /**
+     * Backfill: recompute the rollups from the bills table
+     * @return Number of daily buckets written
+     * @throws SQLException if database operation fails
+     */
+    public int rebuild() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (Statement stmt = conn.createStatement()) {
+                int rows = DatabaseUtil.rebuildRevenueRollups(stmt);
+                conn.commit();
+                return rows;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Bind the RANGE_BUCKETS parameters: daily buckets for the days before the
+     * first whole month and after the last one, monthly buckets in between
+     * @param stmt Statement whose first six parameters are RANGE_BUCKETS
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @throws SQLException if binding fails
+     */
+    private void bindRange(PreparedStatement stmt, LocalDate from, LocalDate to) throws SQLException {
+        YearMonth firstMonth = YearMonth.from(from);
+        if (from.getDayOfMonth() != 1) {
+            firstMonth = firstMonth.plusMonths(1);
+        }
+        YearMonth lastMonth = YearMonth.from(to);
+        if (!to.equals(lastMonth.atEndOfMonth())) {
+            lastMonth = lastMonth.minusMonths(1);
+        }
+        
+        LocalDate headEnd;
+        LocalDate tailStart;
+        if (firstMonth.isAfter(lastMonth)) {
+            // No whole month inside the range: all days come from the daily table
+            headEnd = to;
+            tailStart = to.plusDays(1);
+        } else {
+            headEnd = firstMonth.atDay(1).minusDays(1);
+            tailStart = lastMonth.plusMonths(1).atDay(1);
+        }
+        
+        stmt.setString(1, DateUtil.formatDate(from));
+        stmt.setString(2, DateUtil.formatDate(headEnd));
+        stmt.setString(3, DateUtil.formatDate(tailStart));
+        stmt.setString(4, DateUtil.formatDate(to));
+        stmt.setString(5, firstMonth.toString());
+        stmt.setString(6, lastMonth.toString());
+    }
+    
+    /**
+     * Paid revenue of one doctor in one month (doctor 0 when the bill has no appointment)
+     */
+    public static final class MonthlyRevenue {
+        private final YearMonth month;
+        private final int doctorId;
+        private final long paidCents;
+        
+        MonthlyRevenue(YearMonth month, int doctorId, long paidCents) {
+            this.month = month;
+            this.doctorId = doctorId;
+            this.paidCents = paidCents;
+        }
+        
+        public YearMonth getMonth() {
+            return month;
+        }
+        
+        public int getDoctorId() {
+            return doctorId;
+        }
+        
+        public long getPaidCents() {
+            return paidCents;
+        }
+    }
+}
+
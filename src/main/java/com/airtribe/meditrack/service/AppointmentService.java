@@ -1,6 +1,8 @@
 package com.airtribe.meditrack.service;
 
 import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Constants;
+import com.airtribe.meditrack.constants.Specialization;
 import com.airtribe.meditrack.entity.Appointment;
 import com.airtribe.meditrack.entity.Bill;
 import com.airtribe.meditrack.entity.BillSummary;
@@ -10,23 +12,37 @@ import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.repository.AppointmentRepository;
 import com.airtribe.meditrack.repository.BillRepository;
 import com.airtribe.meditrack.repository.DoctorRepository;
+import com.airtribe.meditrack.util.AvailabilityIndex;
+import com.airtribe.meditrack.util.BatchScheduler;
+import com.airtribe.meditrack.util.DoctorLoadCache;
+import com.airtribe.meditrack.util.EntityChangeNotifier;
+import com.airtribe.meditrack.util.FullTextQuery;
 import com.airtribe.meditrack.util.IdGenerator;
+import com.airtribe.meditrack.util.Money;
+import com.airtribe.meditrack.util.SnapshotReadModel;
 import com.airtribe.meditrack.util.Validator;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AppointmentService {
     
     private final AppointmentRepository appointmentRepository;
     private final DoctorRepository doctorRepository;
     private final BillRepository billRepository;
+    private final SnapshotReadModel readModel;
     
     public AppointmentService() {
         this.appointmentRepository = new AppointmentRepository();
         this.doctorRepository = new DoctorRepository();
         this.billRepository = new BillRepository();
+        this.readModel = SnapshotReadModel.getInstance();
     }
     
     /**
@@ -62,8 +78,96 @@ public class AppointmentService {
         appointment.setStatus(AppointmentStatus.PENDING);
         appointment.setReason(reason);
         appointment.setNotes(notes);
+        appointment.setCreatedAt(LocalDateTime.now());
         
-        return appointmentRepository.create(appointment);
+        Appointment created = appointmentRepository.create(appointment);
+        EntityChangeNotifier.appointments().fireCreated(created);
+        return created;
+    }
+    
+    /**
+     * Assign a batch of appointment requests (e.g. a vaccination drive) to
+     * doctors of the requested specializations within each request's window,
+     * maximizing the number of requests served and balancing doctor load, then
+     * create the appointments in one transaction
+     * @param requests Appointment requests (windows of the same patient must not overlap)
+     * @return Assignments made and requests that could not be served
+     * @throws InvalidDataException if a request is invalid or overlaps another of its patient
+     * @throws SQLException if database operation fails
+     */
+    public BatchScheduler.Result scheduleBatch(List<BatchScheduler.Request> requests)
+            throws InvalidDataException, SQLException {
+        Validator.validateNotNull(requests, "Appointment requests");
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.toLocalDate().plusDays(Constants.SLOT_SEARCH_DAYS).atStartOfDay();
+        for (BatchScheduler.Request request : requests) {
+            Validator.validateNotNull(request, "Appointment request");
+            Validator.validateId(request.getPatientId());
+            Validator.validateNotNull(request.getSpecialization(), "Specialization");
+            Validator.validateNotNull(request.getEarliest(), "Earliest date/time");
+            Validator.validateNotNull(request.getLatest(), "Latest date/time");
+            if (!request.getLatest().isAfter(request.getEarliest()) || !request.getLatest().isAfter(now)) {
+                throw new InvalidDataException("Appointment request window must end after it starts and in the future");
+            }
+            // The plan holds every doctor's calendar for each day up to the latest window end
+            if (request.getLatest().isAfter(horizon)) {
+                throw new InvalidDataException("Appointment request window must end within "
+                        + Constants.SLOT_SEARCH_DAYS + " days");
+            }
+        }
+        // Doctors are planned independently, so overlapping windows could double-book a patient
+        List<BatchScheduler.Request> byPatient = new ArrayList<>(requests);
+        byPatient.sort(Comparator.comparingInt(BatchScheduler.Request::getPatientId)
+                .thenComparing(BatchScheduler.Request::getEarliest));
+        for (int i = 1; i < byPatient.size(); i++) {
+            BatchScheduler.Request previous = byPatient.get(i - 1);
+            BatchScheduler.Request request = byPatient.get(i);
+            if (request.getPatientId() == previous.getPatientId()
+                    && request.getEarliest().isBefore(previous.getLatest())) {
+                throw new InvalidDataException("Appointment request windows overlap for patient ID: "
+                        + request.getPatientId());
+            }
+        }
+        
+        Map<Integer, Specialization> doctors = new HashMap<>();
+        for (Doctor doctor : readModel.isActive() ? readModel.findAllDoctors() : doctorRepository.findAll()) {
+            if (doctor.getSpecialization() != null) {
+                doctors.put(doctor.getId(), doctor.getSpecialization());
+            }
+        }
+        
+        AvailabilityIndex availability = AvailabilityIndex.getInstance();
+        DoctorLoadCache loadCache = DoctorLoadCache.getInstance();
+        BatchScheduler scheduler = new BatchScheduler(new BatchScheduler.DoctorCalendar() {
+            @Override
+            public long[] freeSlots(int doctorId, LocalDate day) throws SQLException {
+                return availability.getFreeSlots(doctorId, day);
+            }
+            
+            @Override
+            public int upcomingCount(int doctorId) throws SQLException {
+                return loadCache.upcomingCount(doctorId);
+            }
+        }, Constants.APPOINTMENT_MINUTES, now);
+        BatchScheduler.Result result = scheduler.schedule(requests, doctors);
+        
+        List<Appointment> appointments = new ArrayList<>();
+        for (BatchScheduler.Assignment assignment : result.getAssignments()) {
+            Appointment appointment = new Appointment();
+            appointment.setId(IdGenerator.getInstance().getNextAppointmentId());
+            appointment.setPatientId(assignment.getRequest().getPatientId());
+            appointment.setDoctorId(assignment.getDoctorId());
+            appointment.setAppointmentDateTime(assignment.getStart());
+            appointment.setStatus(AppointmentStatus.PENDING);
+            appointment.setReason(assignment.getRequest().getReason());
+            appointment.setCreatedAt(now);
+            appointments.add(appointment);
+        }
+        appointmentRepository.createAll(appointments);
+        for (Appointment appointment : appointments) {
+            EntityChangeNotifier.appointments().fireCreated(appointment);
+        }
+        return result;
     }
     
     /**
@@ -77,7 +181,10 @@ public class AppointmentService {
     public Appointment findAppointmentById(int id)
             throws AppointmentNotFoundException, InvalidDataException, SQLException {
         Validator.validateId(id);
-        Appointment appointment = appointmentRepository.findById(id);
+        Appointment appointment = readModel.isActive() ? readModel.findUpcomingAppointment(id) : null;
+        if (appointment == null) {
+            appointment = appointmentRepository.findById(id);
+        }
         if (appointment == null) {
             throw new AppointmentNotFoundException("Appointment with ID " + id + " not found");
         }
@@ -130,8 +237,9 @@ public class AppointmentService {
     public Appointment cancelAppointment(int appointmentId)
             throws AppointmentNotFoundException, InvalidDataException, SQLException {
         Appointment appointment = findAppointmentById(appointmentId);
+        Appointment previous = copyOf(appointment);
         appointment.cancel();
-        return appointmentRepository.update(appointment);
+        return saveAppointment(previous, appointment);
     }
     
     /**
@@ -145,8 +253,9 @@ public class AppointmentService {
     public Appointment confirmAppointment(int appointmentId)
             throws AppointmentNotFoundException, InvalidDataException, SQLException {
         Appointment appointment = findAppointmentById(appointmentId);
+        Appointment previous = copyOf(appointment);
         appointment.confirm();
-        return appointmentRepository.update(appointment);
+        return saveAppointment(previous, appointment);
     }
     
     /**
@@ -170,7 +279,7 @@ public class AppointmentService {
         Bill bill = new Bill();
         bill.setId(IdGenerator.getInstance().getNextBillId());
         bill.setAppointmentId(appointmentId);
-        bill.setBaseAmount(doctor.getConsultationFee());
+        bill.setBaseCents(Money.toCents(doctor.getConsultationFee()));
         
         return billRepository.create(bill);
     }
@@ -194,9 +303,9 @@ public class AppointmentService {
         return new BillSummary(
             bill.getId(),
             bill.getAppointmentId(),
-            bill.getBaseAmount(),
-            bill.getTaxAmount(),
-            bill.getTotalAmount(),
+            bill.getBaseCents(),
+            bill.getTaxCents(),
+            bill.getTotalCents(),
             bill.getBillDate(),
             bill.getPaymentStatus()
         );
@@ -215,7 +324,8 @@ public class AppointmentService {
         Validator.validateId(appointment.getPatientId());
         Validator.validateId(appointment.getDoctorId());
         
-        return appointmentRepository.update(appointment);
+        Appointment previous = appointmentRepository.findById(appointment.getId());
+        return saveAppointment(previous, appointment);
     }
     
     /**
@@ -227,7 +337,52 @@ public class AppointmentService {
      */
     public boolean deleteAppointment(int id) throws InvalidDataException, SQLException {
         Validator.validateId(id);
-        return appointmentRepository.delete(id);
+        Appointment existing = appointmentRepository.findById(id);
+        boolean deleted = appointmentRepository.delete(id);
+        if (deleted && existing != null) {
+            EntityChangeNotifier.appointments().fireDeleted(existing);
+        }
+        return deleted;
+    }
+    
+    /**
+     * Search appointment reasons and notes (FTS5, BM25-ranked)
+     * Supports plain words, "quoted phrases" and prefix terms such as migr*
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return Top matching appointments, best match first
+     * @throws InvalidDataException if query or limit is invalid
+     * @throws SQLException if database operation fails
+     */
+    public List<Appointment> searchAppointmentNotes(String query, int limit)
+            throws InvalidDataException, SQLException {
+        String expression = FullTextQuery.toMatchExpression(query);
+        Validator.validateSearchQuery(expression);
+        Validator.validateLimit(limit);
+        return appointmentRepository.searchFullText(expression, limit);
+    }
+    
+    /**
+     * Persist an appointment change and notify change listeners
+     * @param previous Appointment state before the change (may be null)
+     * @param appointment Appointment to update
+     * @return Updated appointment, or null if it no longer exists
+     * @throws SQLException if database operation fails
+     */
+    private Appointment saveAppointment(Appointment previous, Appointment appointment) throws SQLException {
+        Appointment updated = appointmentRepository.update(appointment);
+        if (updated != null) {
+            EntityChangeNotifier.appointments().fireUpdated(previous, updated);
+        }
+        return updated;
+    }
+    
+    private Appointment copyOf(Appointment appointment) {
+        try {
+            return appointment.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
 
@@ -1,22 +1,34 @@
 package com.airtribe.meditrack.service;
 
+import com.airtribe.meditrack.constants.Constants;
 import com.airtribe.meditrack.constants.Specialization;
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.repository.DoctorRepository;
+import com.airtribe.meditrack.util.EntityChangeNotifier;
+import com.airtribe.meditrack.util.EntitySearchIndex;
 import com.airtribe.meditrack.util.IdGenerator;
+import com.airtribe.meditrack.util.InvertedIndex;
+import com.airtribe.meditrack.util.NameTrie;
+import com.airtribe.meditrack.util.SnapshotReadModel;
+import com.airtribe.meditrack.util.UniquenessChecker;
 import com.airtribe.meditrack.util.Validator;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 public class DoctorService {
     
     private final DoctorRepository doctorRepository;
+    private final SnapshotReadModel readModel;
+    private final UniquenessChecker uniquenessChecker;
     
     public DoctorService() {
         this.doctorRepository = new DoctorRepository();
+        this.readModel = SnapshotReadModel.getInstance();
+        this.uniquenessChecker = UniquenessChecker.getInstance();
     }
     
     /**
@@ -45,6 +57,7 @@ public class DoctorService {
         Validator.validatePhone(phoneNumber);
         Validator.validateAmount(consultationFee);
         Validator.validateNotNull(specialization, "Specialization");
+        validateLicenseIsUnique(licenseNumber, 0);
         
         Doctor doctor = new Doctor();
         doctor.setId(IdGenerator.getInstance().getNextDoctorId());
@@ -57,7 +70,9 @@ public class DoctorService {
         doctor.setExperienceYears(experienceYears);
         doctor.setLicenseNumber(licenseNumber);
         
-        return doctorRepository.create(doctor);
+        Doctor created = doctorRepository.create(doctor);
+        EntityChangeNotifier.doctors().fireCreated(created);
+        return created;
     }
     
     /**
@@ -69,6 +84,9 @@ public class DoctorService {
      */
     public Doctor findDoctorById(int id) throws InvalidDataException, SQLException {
         Validator.validateId(id);
+        if (readModel.isActive()) {
+            return readModel.findDoctor(id);
+        }
         return doctorRepository.findById(id);
     }
     
@@ -78,6 +96,9 @@ public class DoctorService {
      * @throws SQLException if database operation fails
      */
     public List<Doctor> getAllDoctors() throws SQLException {
+        if (readModel.isActive()) {
+            return readModel.findAllDoctors();
+        }
         return doctorRepository.findAll();
     }
     
@@ -94,8 +115,14 @@ public class DoctorService {
         Validator.validateEmail(doctor.getEmail());
         Validator.validatePhone(doctor.getPhoneNumber());
         Validator.validateAmount(doctor.getConsultationFee());
+        validateLicenseIsUnique(doctor.getLicenseNumber(), doctor.getId());
         
-        return doctorRepository.update(doctor);
+        Doctor previous = findDoctorById(doctor.getId());
+        Doctor updated = doctorRepository.update(doctor);
+        if (updated != null) {
+            EntityChangeNotifier.doctors().fireUpdated(previous, updated);
+        }
+        return updated;
     }
     
     /**
@@ -106,8 +133,12 @@ public class DoctorService {
      * @throws SQLException if database operation fails
      */
     public boolean deleteDoctor(int id) throws InvalidDataException, SQLException {
-        Validator.validateId(id);
-        return doctorRepository.delete(id);
+        Doctor existing = findDoctorById(id);
+        boolean deleted = doctorRepository.delete(id);
+        if (deleted && existing != null) {
+            EntityChangeNotifier.doctors().fireDeleted(existing);
+        }
+        return deleted;
     }
     
     /**
@@ -120,6 +151,9 @@ public class DoctorService {
     public List<Doctor> searchDoctorsBySpecialization(Specialization specialization)
             throws InvalidDataException, SQLException {
         Validator.validateNotNull(specialization, "Specialization");
+        if (readModel.isActive()) {
+            return readModel.findDoctorsBySpecialization(specialization);
+        }
         return doctorRepository.findBySpecialization(specialization);
     }
     
@@ -132,7 +166,7 @@ public class DoctorService {
      */
     public List<Doctor> searchDoctorsByName(String name) throws InvalidDataException, SQLException {
         Validator.validateName(name);
-        return doctorRepository.searchByName(name);
+        return findDoctorsByIds(EntitySearchIndex.doctors().searchByName(name));
     }
     
     /**
@@ -144,7 +178,93 @@ public class DoctorService {
      */
     public Doctor searchDoctorById(int id) throws InvalidDataException, SQLException {
         Validator.validateId(id);
+        if (readModel.isActive()) {
+            return readModel.findDoctor(id);
+        }
         return doctorRepository.findById(id);
     }
+    
+    /**
+     * Full-text search over doctor searchable text, ranked by term match
+     * @param query Free-text query (name, specialization, license or ID)
+     * @return Matching doctors, best match first
+     * @throws InvalidDataException if query is empty
+     * @throws SQLException if database operation fails
+     */
+    public List<Doctor> searchDoctors(String query) throws InvalidDataException, SQLException {
+        Validator.validateSearchQuery(query);
+        List<InvertedIndex.Hit> hits = EntitySearchIndex.doctors().search(query, Constants.SEARCH_RESULT_LIMIT);
+        List<Integer> ids = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            ids.add(hit.getId());
+        }
+        return findDoctorsByIds(ids);
+    }
+    
+    /**
+     * Search doctors with the Doctor.matches rules (name, specialization, license number or ID)
+     * Runs in parallel over an in-memory snapshot instead of calling matches() per doctor.
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return Matching doctors: exact ID first, then name prefix, then other matches
+     * @throws InvalidDataException if query is null or limit is not positive
+     * @throws SQLException if database operation fails
+     */
+    public List<Doctor> matchDoctors(String query, int limit) throws InvalidDataException, SQLException {
+        Validator.validateNotNull(query, "Search query");
+        Validator.validateLimit(limit);
+        return EntitySearchIndex.doctors().match(query, limit);
+    }
+    
+    /**
+     * Autocomplete doctor names from a typed prefix
+     * Matches the start of any word of the name, so "doe" completes "John Doe".
+     * @param prefix Typed prefix
+     * @param limit Maximum number of completions
+     * @return Name completions in alphabetical order
+     * @throws InvalidDataException if prefix is empty or limit is not positive
+     * @throws SQLException if database operation fails
+     */
+    public List<NameTrie.Completion> autocompleteDoctorNames(String prefix, int limit)
+            throws InvalidDataException, SQLException {
+        Validator.validateSearchQuery(prefix);
+        Validator.validateLimit(limit);
+        return EntitySearchIndex.doctors().autocomplete(prefix, limit);
+    }
+    
+    /**
+     * Reject a license number that belongs to another doctor before the insert hits
+     * the UNIQUE constraint
+     * @param licenseNumber License number
+     * @param doctorId ID of the doctor being updated, or 0 when creating
+     * @throws InvalidDataException if the license number is already registered
+     * @throws SQLException if database operation fails
+     */
+    private void validateLicenseIsUnique(String licenseNumber, int doctorId)
+            throws InvalidDataException, SQLException {
+        if (uniquenessChecker.isLicenseNumberTaken(licenseNumber, doctorId)) {
+            throw new InvalidDataException("License number " + licenseNumber + " is already registered");
+        }
+    }
+    
+    /**
+     * Load doctors by IDs, keeping the given order
+     * @param ids Doctor IDs
+     * @return List of doctors
+     * @throws SQLException if database operation fails
+     */
+    List<Doctor> findDoctorsByIds(List<Integer> ids) throws SQLException {
+        if (!readModel.isActive()) {
+            return doctorRepository.findByIds(ids);
+        }
+        List<Doctor> doctors = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Doctor doctor = readModel.findDoctor(id);
+            if (doctor != null) {
+                doctors.add(doctor);
+            }
+        }
+        return doctors;
+    }
 }
 
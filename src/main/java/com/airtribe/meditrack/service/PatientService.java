@@ -1,21 +1,36 @@
 package com.airtribe.meditrack.service;
 
+import com.airtribe.meditrack.constants.Constants;
 import com.airtribe.meditrack.entity.Patient;
 import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.repository.PatientRepository;
+import com.airtribe.meditrack.util.EntityChangeNotifier;
+import com.airtribe.meditrack.util.EntitySearchIndex;
+import com.airtribe.meditrack.util.FullTextQuery;
 import com.airtribe.meditrack.util.IdGenerator;
+import com.airtribe.meditrack.util.InvertedIndex;
+import com.airtribe.meditrack.util.NameTrie;
+import com.airtribe.meditrack.util.SnapshotReadModel;
+import com.airtribe.meditrack.util.UniquenessChecker;
 import com.airtribe.meditrack.util.Validator;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class PatientService {
     
     private final PatientRepository patientRepository;
+    private final SnapshotReadModel readModel;
+    private final UniquenessChecker uniquenessChecker;
     
     public PatientService() {
         this.patientRepository = new PatientRepository();
+        this.readModel = SnapshotReadModel.getInstance();
+        this.uniquenessChecker = UniquenessChecker.getInstance();
     }
     
     /**
@@ -42,6 +57,7 @@ public class PatientService {
         Validator.validateDateOfBirth(dateOfBirth);
         Validator.validateEmail(email);
         Validator.validatePhone(phoneNumber);
+        validateContactIsUnique(email, phoneNumber, 0);
         
         Patient patient = new Patient();
         patient.setId(IdGenerator.getInstance().getNextPatientId());
@@ -54,7 +70,9 @@ public class PatientService {
         patient.setInsuranceProvider(insuranceProvider);
         patient.setInsurancePolicyNumber(insurancePolicyNumber);
         
-        return patientRepository.create(patient);
+        Patient created = patientRepository.create(patient);
+        EntityChangeNotifier.patients().fireCreated(created);
+        return created;
     }
     
     /**
@@ -66,6 +84,9 @@ public class PatientService {
      */
     public Patient findPatientById(int id) throws InvalidDataException, SQLException {
         Validator.validateId(id);
+        if (readModel.isActive()) {
+            return readModel.findPatient(id);
+        }
         return patientRepository.findById(id);
     }
     
@@ -75,6 +96,9 @@ public class PatientService {
      * @throws SQLException if database operation fails
      */
     public List<Patient> getAllPatients() throws SQLException {
+        if (readModel.isActive()) {
+            return readModel.findAllPatients();
+        }
         return patientRepository.findAll();
     }
     
@@ -90,8 +114,14 @@ public class PatientService {
         Validator.validateName(patient.getName());
         Validator.validateEmail(patient.getEmail());
         Validator.validatePhone(patient.getPhoneNumber());
+        validateContactIsUnique(patient.getEmail(), patient.getPhoneNumber(), patient.getId());
         
-        return patientRepository.update(patient);
+        Patient previous = findPatientById(patient.getId());
+        Patient updated = patientRepository.update(patient);
+        if (updated != null) {
+            EntityChangeNotifier.patients().fireUpdated(previous, updated);
+        }
+        return updated;
     }
     
     /**
@@ -102,8 +132,12 @@ public class PatientService {
      * @throws SQLException if database operation fails
      */
     public boolean deletePatient(int id) throws InvalidDataException, SQLException {
-        Validator.validateId(id);
-        return patientRepository.delete(id);
+        Patient existing = findPatientById(id);
+        boolean deleted = patientRepository.delete(id);
+        if (deleted && existing != null) {
+            EntityChangeNotifier.patients().fireDeleted(existing);
+        }
+        return deleted;
     }
     
     /**
@@ -115,6 +149,9 @@ public class PatientService {
      */
     public Patient searchPatient(int id) throws InvalidDataException, SQLException {
         Validator.validateId(id);
+        if (readModel.isActive()) {
+            return readModel.findPatient(id);
+        }
         return patientRepository.findById(id);
     }
     
@@ -127,7 +164,7 @@ public class PatientService {
      */
     public List<Patient> searchPatient(String name) throws InvalidDataException, SQLException {
         Validator.validateName(name);
-        return patientRepository.searchByName(name);
+        return findPatientsByIds(EntitySearchIndex.patients().searchByName(name));
     }
     
     /**
@@ -139,11 +176,164 @@ public class PatientService {
      * @throws SQLException if database operation fails
      */
     public List<Patient> searchPatientsByAge(int age) throws InvalidDataException, SQLException {
-        Validator.validateAge(age);
-        List<Patient> allPatients = patientRepository.findAll();
-        return allPatients.stream()
-                .filter(p -> p.getAge() == age)
-                .collect(java.util.stream.Collectors.toList());
+        return searchPatientsByAgeRange(age, age);
+    }
+    
+    /**
+     * Search patients within an age range
+     * Ages follow Person.getAge() (current year minus birth year), so the range
+     * maps to whole birth years and is answered by an indexed date range query.
+     * @param minAge Minimum age, inclusive
+     * @param maxAge Maximum age, inclusive
+     * @return List of matching patients, youngest last
+     * @throws InvalidDataException if either age is invalid or minAge exceeds maxAge
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> searchPatientsByAgeRange(int minAge, int maxAge)
+            throws InvalidDataException, SQLException {
+        Validator.validateAge(minAge);
+        Validator.validateAge(maxAge);
+        if (minAge > maxAge) {
+            throw new InvalidDataException("Minimum age cannot be greater than maximum age");
+        }
+        int currentYear = LocalDate.now().getYear();
+        LocalDate from = LocalDate.of(currentYear - maxAge, 1, 1);
+        LocalDate to = LocalDate.of(currentYear - minAge, 12, 31);
+        return patientRepository.findByBirthDateRange(from, to);
+    }
+    
+    /**
+     * Full-text search over patient searchable text, ranked by term match
+     * @param query Free-text query
+     * @return Matching patients, best match first
+     * @throws InvalidDataException if query is empty
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> searchPatients(String query) throws InvalidDataException, SQLException {
+        Validator.validateSearchQuery(query);
+        List<InvertedIndex.Hit> hits = EntitySearchIndex.patients().search(query, Constants.SEARCH_RESULT_LIMIT);
+        List<Integer> ids = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            ids.add(hit.getId());
+        }
+        return findPatientsByIds(ids);
+    }
+    
+    /**
+     * Typo-tolerant patient search by name
+     * Combines edit-distance matches (closest first) with patients whose
+     * name sounds the same (Soundex), e.g. "Jon Smyth" finds "John Smith".
+     * @param name Possibly misspelled name
+     * @param maxDistance Maximum edits per name word (1 or 2)
+     * @return Matching patients, closest first
+     * @throws InvalidDataException if name is empty or distance is out of range
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> fuzzySearchPatients(String name, int maxDistance)
+            throws InvalidDataException, SQLException {
+        Validator.validateSearchQuery(name);
+        if (maxDistance < 1 || maxDistance > Constants.MAX_FUZZY_DISTANCE) {
+            throw new InvalidDataException("Edit distance must be between 1 and " + Constants.MAX_FUZZY_DISTANCE);
+        }
+        
+        List<Integer> ids = EntitySearchIndex.patients()
+                .fuzzySearchByName(name, maxDistance, Constants.SEARCH_RESULT_LIMIT);
+        List<Patient> patients = findPatientsByIds(ids);
+        if (patients.size() < Constants.SEARCH_RESULT_LIMIT) {
+            Set<Integer> seen = new HashSet<>(ids);
+            for (Patient patient : patientRepository.findBySoundex(name, Constants.SEARCH_RESULT_LIMIT)) {
+                if (patients.size() < Constants.SEARCH_RESULT_LIMIT && seen.add(patient.getId())) {
+                    patients.add(patient);
+                }
+            }
+        }
+        return patients;
+    }
+    
+    /**
+     * Search patients with the Patient.matches rules (name, email, ID or age)
+     * Runs in parallel over an in-memory snapshot instead of calling matches() per patient.
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return Matching patients: exact ID first, then name prefix, then other matches
+     * @throws InvalidDataException if query is null or limit is not positive
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> matchPatients(String query, int limit) throws InvalidDataException, SQLException {
+        Validator.validateNotNull(query, "Search query");
+        Validator.validateLimit(limit);
+        return EntitySearchIndex.patients().match(query, limit);
+    }
+    
+    /**
+     * Autocomplete patient names from a typed prefix
+     * Matches the start of any word of the name, so "doe" completes "John Doe".
+     * @param prefix Typed prefix
+     * @param limit Maximum number of completions
+     * @return Name completions in alphabetical order
+     * @throws InvalidDataException if prefix is empty or limit is not positive
+     * @throws SQLException if database operation fails
+     */
+    public List<NameTrie.Completion> autocompletePatientNames(String prefix, int limit)
+            throws InvalidDataException, SQLException {
+        Validator.validateSearchQuery(prefix);
+        Validator.validateLimit(limit);
+        return EntitySearchIndex.patients().autocomplete(prefix, limit);
+    }
+    
+    /**
+     * Search medical history, allergies and names (FTS5, BM25-ranked)
+     * Supports plain words, "quoted phrases" and prefix terms such as diab*
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return Top matching patients, best match first
+     * @throws InvalidDataException if query or limit is invalid
+     * @throws SQLException if database operation fails
+     */
+    public List<Patient> searchMedicalRecords(String query, int limit)
+            throws InvalidDataException, SQLException {
+        String expression = FullTextQuery.toMatchExpression(query);
+        Validator.validateSearchQuery(expression);
+        Validator.validateLimit(limit);
+        return patientRepository.searchFullText(expression, limit);
+    }
+    
+    /**
+     * Reject an email or phone number that belongs to another patient
+     * @param email Email address
+     * @param phoneNumber Phone number
+     * @param patientId ID of the patient being updated, or 0 when creating
+     * @throws InvalidDataException if either value is already in use
+     * @throws SQLException if database operation fails
+     */
+    private void validateContactIsUnique(String email, String phoneNumber, int patientId)
+            throws InvalidDataException, SQLException {
+        if (uniquenessChecker.isPatientEmailTaken(email, patientId)) {
+            throw new InvalidDataException("A patient with email " + email + " already exists");
+        }
+        if (uniquenessChecker.isPatientPhoneTaken(phoneNumber, patientId)) {
+            throw new InvalidDataException("A patient with phone number " + phoneNumber + " already exists");
+        }
+    }
+    
+    /**
+     * Load patients by IDs, keeping the given order
+     * @param ids Patient IDs
+     * @return List of patients
+     * @throws SQLException if database operation fails
+     */
+    List<Patient> findPatientsByIds(List<Integer> ids) throws SQLException {
+        if (!readModel.isActive()) {
+            return patientRepository.findByIds(ids);
+        }
+        List<Patient> patients = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Patient patient = readModel.findPatient(id);
+            if (patient != null) {
+                patients.add(patient);
+            }
+        }
+        return patients;
     }
 }
 
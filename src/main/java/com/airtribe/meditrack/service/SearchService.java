@@ -0,0 +1,285 @@
+package com.airtribe.meditrack.service;
+
+import com.airtribe.meditrack.constants.EntityType;
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.entity.SearchResult;
+import com.airtribe.meditrack.exception.AppointmentNotFoundException;
+import com.airtribe.meditrack.exception.InvalidDataException;
+import com.airtribe.meditrack.repository.AppointmentRepository;
+import com.airtribe.meditrack.util.DatabaseUtil;
+import com.airtribe.meditrack.util.EntitySearchIndex;
+import com.airtribe.meditrack.util.FullTextQuery;
+import com.airtribe.meditrack.util.InvertedIndex;
+import com.airtribe.meditrack.util.NameTrie;
+import com.airtribe.meditrack.util.Validator;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+
+/**
+ * One search box across patients, doctors and appointments.
+ * The per-entity lookups (ID, name prefix, full text) run concurrently; results
+ * are scored on a common 0..1 scale and the search returns as soon as it has
+ * enough confident hits, without waiting for the slower lookups.
+ */
+public class SearchService {
+    
+    private static final Logger logger = Logger.getLogger(SearchService.class.getName());
+    
+    // Relevance scale shared by all lookups
+    private static final double SCORE_EXACT_ID = 1.0;
+    private static final double SCORE_NAME_PREFIX = 0.9;
+    private static final double SCORE_TEXT = 0.8;
+    private static final double SCORE_APPOINTMENT_TEXT = 0.7;
+    private static final double CONFIDENT_SCORE = SCORE_NAME_PREFIX;
+    
+    private static final ExecutorService LOOKUP_EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors())), runnable -> {
+                Thread thread = new Thread(runnable, "search-lookup");
+                thread.setDaemon(true);
+                return thread;
+            });
+    
+    private final PatientService patientService;
+    private final DoctorService doctorService;
+    private final AppointmentService appointmentService;
+    private final AppointmentRepository appointmentRepository;
+    
+    public SearchService() {
+        this.patientService = new PatientService();
+        this.doctorService = new DoctorService();
+        this.appointmentService = new AppointmentService();
+        this.appointmentRepository = new AppointmentRepository();
+    }
+    
+    /**
+     * Search all record types at once
+     * A numeric query also matches record IDs; text matches names (prefix of any word),
+     * patient and doctor details, and appointment reasons and notes.
+     * @param query What the user typed
+     * @param limit Maximum number of results
+     * @return Results, most relevant first
+     * @throws InvalidDataException if query is empty or limit is not positive
+     * @throws SQLException if database operation fails
+     */
+    public List<SearchResult> search(String query, int limit) throws InvalidDataException, SQLException {
+        Validator.validateSearchQuery(query);
+        Validator.validateLimit(limit);
+        String text = query.trim();
+        
+        List<Callable<List<Candidate>>> lookups = new ArrayList<>();
+        int id = parseId(text);
+        if (id > 0) {
+            lookups.add(() -> single(EntityType.PATIENT, id, patientService.findPatientById(id)));
+            lookups.add(() -> single(EntityType.DOCTOR, id, doctorService.searchDoctorById(id)));
+            lookups.add(() -> single(EntityType.APPOINTMENT, id, findAppointment(id)));
+        }
+        lookups.add(() -> completions(EntityType.PATIENT, EntitySearchIndex.patients().autocomplete(text, limit)));
+        lookups.add(() -> completions(EntityType.DOCTOR, EntitySearchIndex.doctors().autocomplete(text, limit)));
+        lookups.add(() -> textHits(EntityType.PATIENT, EntitySearchIndex.patients().search(text, limit)));
+        lookups.add(() -> textHits(EntityType.DOCTOR, EntitySearchIndex.doctors().search(text, limit)));
+        lookups.add(() -> appointmentNotes(text, limit));
+        
+        // ID lookups are cheap and outrank everything, so they always finish
+        int required = id > 0 ? 3 : 0;
+        Map<String, Candidate> best = collect(lookups, required, limit);
+        
+        List<Candidate> ranked = new ArrayList<>(best.values());
+        ranked.sort(Comparator.comparingDouble((Candidate c) -> -c.score)
+                .thenComparing(c -> c.type)
+                .thenComparingInt(c -> c.id));
+        if (ranked.size() > limit) {
+            ranked = ranked.subList(0, limit);
+        }
+        return toResults(ranked);
+    }
+    
+    /**
+     * Run lookups concurrently and merge their candidates as they finish; once the
+     * first required lookups are done, stop as soon as limit candidates are at
+     * least as good as a name-prefix match
+     */
+    private Map<String, Candidate> collect(List<Callable<List<Candidate>>> lookups, int required, int limit)
+            throws InvalidDataException, SQLException {
+        CompletionService<List<Candidate>> completion = new ExecutorCompletionService<>(LOOKUP_EXECUTOR);
+        List<Future<List<Candidate>>> pending = new ArrayList<>();
+        for (Callable<List<Candidate>> lookup : lookups) {
+            pending.add(completion.submit(lookup));
+        }
+        
+        Set<Future<List<Candidate>>> requiredPending = new HashSet<>(pending.subList(0, required));
+        Map<String, Candidate> best = new HashMap<>();
+        int confident = 0;
+        try {
+            for (int done = 0; done < pending.size() && (confident < limit || !requiredPending.isEmpty()); done++) {
+                Future<List<Candidate>> finished = completion.take();
+                requiredPending.remove(finished);
+                for (Candidate candidate : finished.get()) {
+                    Candidate previous = best.get(candidate.key());
+                    if (previous == null || candidate.score > previous.score) {
+                        best.put(candidate.key(), candidate);
+                        boolean wasConfident = previous != null && previous.score >= CONFIDENT_SCORE;
+                        if (candidate.score >= CONFIDENT_SCORE && !wasConfident) {
+                            confident++;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Search interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof InvalidDataException) {
+                throw (InvalidDataException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Search lookup failed", cause);
+        } finally {
+            // Lookups still queued are not needed any more
+            for (Future<List<Candidate>> future : pending) {
+                future.cancel(false);
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Load the entities of the final candidates, one batch query per type
+     */
+    private List<SearchResult> toResults(List<Candidate> ranked) throws SQLException {
+        List<Integer> patientIds = new ArrayList<>();
+        List<Integer> doctorIds = new ArrayList<>();
+        for (Candidate candidate : ranked) {
+            if (candidate.entity == null) {
+                (candidate.type == EntityType.PATIENT ? patientIds : doctorIds).add(candidate.id);
+            }
+        }
+        Map<Integer, Object> patients = new HashMap<>();
+        for (Patient patient : patientService.findPatientsByIds(patientIds)) {
+            patients.put(patient.getId(), patient);
+        }
+        Map<Integer, Object> doctors = new HashMap<>();
+        for (Doctor doctor : doctorService.findDoctorsByIds(doctorIds)) {
+            doctors.put(doctor.getId(), doctor);
+        }
+        
+        List<SearchResult> results = new ArrayList<>(ranked.size());
+        for (Candidate candidate : ranked) {
+            Object entity = candidate.entity;
+            if (entity == null) {
+                entity = (candidate.type == EntityType.PATIENT ? patients : doctors).get(candidate.id);
+            }
+            if (entity != null) {
+                results.add(new SearchResult(candidate.type, candidate.id, candidate.score, entity));
+            }
+        }
+        return results;
+    }
+    
+    private Appointment findAppointment(int id) throws InvalidDataException, SQLException {
+        try {
+            return appointmentService.findAppointmentById(id);
+        } catch (AppointmentNotFoundException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Appointment reason/notes via FTS5; skipped unless the full-text index has
+     * already been set up (a search never creates schema)
+     */
+    private List<Candidate> appointmentNotes(String text, int limit) {
+        String expression = FullTextQuery.toMatchExpression(text);
+        List<Candidate> candidates = new ArrayList<>();
+        if (expression.isEmpty()) {
+            return candidates;
+        }
+        try {
+            if (!DatabaseUtil.isFullTextSearchEnabled()) {
+                return candidates;
+            }
+            List<Appointment> appointments = appointmentRepository.searchFullText(expression, limit);
+            for (int i = 0; i < appointments.size(); i++) {
+                Appointment appointment = appointments.get(i);
+                // Keep the BM25 order inside the band
+                double score = SCORE_APPOINTMENT_TEXT * (1.0 - (double) i / (2 * appointments.size()));
+                candidates.add(new Candidate(EntityType.APPOINTMENT, appointment.getId(), score, appointment));
+            }
+        } catch (SQLException e) {
+            logger.fine("Appointment text search unavailable: " + e.getMessage());
+        }
+        return candidates;
+    }
+    
+    private static List<Candidate> single(EntityType type, int id, Object entity) {
+        if (entity == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new Candidate(type, id, SCORE_EXACT_ID, entity));
+    }
+    
+    private static List<Candidate> completions(EntityType type, List<NameTrie.Completion> completions) {
+        List<Candidate> candidates = new ArrayList<>(completions.size());
+        for (NameTrie.Completion completion : completions) {
+            candidates.add(new Candidate(type, completion.getId(), SCORE_NAME_PREFIX, null));
+        }
+        return candidates;
+    }
+    
+    /**
+     * Full-text hits scaled so the best hit of the lookup gets SCORE_TEXT
+     */
+    private static List<Candidate> textHits(EntityType type, List<InvertedIndex.Hit> hits) {
+        List<Candidate> candidates = new ArrayList<>(hits.size());
+        double top = hits.isEmpty() ? 1.0 : hits.get(0).getScore();
+        for (InvertedIndex.Hit hit : hits) {
+            candidates.add(new Candidate(type, hit.getId(), SCORE_TEXT * hit.getScore() / top, null));
+        }
+        return candidates;
+    }
+    
+    private static int parseId(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return -1;
+            }
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * A scored match; the entity is loaded later unless the lookup already had it
+     */
+    private static final class Candidate {
+        private final EntityType type;
+        private final int id;
+        private final double score;
+        private final Object entity;
+        
+        Candidate(EntityType type, int id, double score, Object entity) {
+            this.type = type;
+            this.id = id;
+            this.score = score;
+            this.entity = entity;
+        }
+        
+        String key() {
+            return type.name() + ":" + id;
+        }
+    }
+}
+
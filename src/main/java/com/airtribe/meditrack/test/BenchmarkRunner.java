@@ -0,0 +1,1072 @@
+package com.airtribe.meditrack.test;
+
+import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Constants;
+import com.airtribe.meditrack.constants.Specialization;
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.util.AhoCorasick;
+import com.airtribe.meditrack.util.AppointmentColumns;
+import com.airtribe.meditrack.util.AvailabilityIndex;
+import com.airtribe.meditrack.util.BatchScheduler;
+import com.airtribe.meditrack.util.CohortRetention;
+import com.airtribe.meditrack.util.DateUtil;
+import com.airtribe.meditrack.util.DoctorLoadCache;
+import com.airtribe.meditrack.util.FuzzyNameIndex;
+import com.airtribe.meditrack.util.HoltWinters;
+import com.airtribe.meditrack.util.HyperLogLog;
+import com.airtribe.meditrack.util.SearchSnapshot;
+import com.airtribe.meditrack.util.TextNormalizer;
+import com.airtribe.meditrack.util.TrigramIndex;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+
+public class BenchmarkRunner {
+    
+    private static final String[] FIRST_NAMES = {
+        "John", "Jane", "Ahmed", "Maria", "Li", "Olga", "Peter", "Sara", "Ravi", "Chen",
+        "Fatima", "Lucas", "Emma", "Noah", "Aisha", "Mateo", "Yuki", "Ivan", "Grace", "Omar"
+    };
+    
+    private static final String[] SYLLABLES = {
+        "ba", "ko", "ri", "sen", "mal", "do", "vi", "tan", "ler", "mo", "ha", "zu", "pe", "nar",
+        "gi", "los", "ter", "wa", "chen", "fa", "kin", "ro", "sha", "ul", "ber", "ne", "dra", "yo"
+    };
+    
+    private static final int[] TABLE_SIZES = {10_000, 100_000, 1_000_000};
+    private static final int[] SNAPSHOT_SIZES = {100_000, 1_000_000, 10_000_000};
+    private static final int[] COLUMNAR_SIZES = {1_000_000, 10_000_000, 50_000_000};
+    
+    // Synthetic booking history for the distinct-patient comparison
+    private static final int SKETCH_APPOINTMENTS = 2_000_000;
+    private static final int SKETCH_DOCTORS = 200;
+    private static final int SKETCH_SPECIALIZATIONS = 10;
+    private static final int SKETCH_MONTHS = 24;
+    private static final int SKETCH_PATIENTS = 300_000;
+    
+    // Synthetic visit history for the cohort comparison
+    private static final int[] COHORT_SIZES = {1_000_000, 5_000_000};
+    private static final int COHORT_VISITS_PER_PATIENT = 5;
+    
+    // Synthetic daily booking series for the forecast comparison
+    private static final int FORECAST_SERIES = 500;
+    private static final int FORECAST_HISTORY_DAYS = 3 * 365;
+    private static final int FORECAST_HORIZON_DAYS = 14;
+    
+    // Candidate pool for the least-busy doctor comparison (15-minute slots, 9-17, one week)
+    private static final int LOAD_DOCTORS = 500;
+    private static final int LOAD_RECOMMENDATIONS = 5_000;
+    private static final int LOAD_DAYS = 7;
+    private static final int LOAD_SLOTS_PER_DAY = 32;
+    
+    // Keyword dictionaries and descriptions for the symptom matching comparison
+    private static final int[] SYMPTOM_DICTIONARY_SIZES = {24, 1_000, 10_000};
+    private static final int SYMPTOM_QUERIES = 20_000;
+    private static final int SYMPTOM_WORDS_PER_QUERY = 12;
+    private static final int SYMPTOM_SPECIALIZATIONS = 10;
+    
+    // Doctors of one specialization for the earliest-available comparison (15-minute slots, 9-17)
+    private static final int EARLIEST_DOCTORS = 500;
+    private static final int EARLIEST_DAYS = 30;
+    private static final int EARLIEST_QUERIES = 2_000;
+    private static final int[] EARLIEST_RESULTS = {5, 50};
+    
+    // Vaccination drive for the batch scheduling comparison (15-minute slots, 9-17, 30-minute visits)
+    private static final int BATCH_REQUESTS = 4_500;
+    private static final int BATCH_DOCTORS_PER_SPECIALIZATION = 40;
+    private static final int BATCH_DAYS = 5;
+    private static final int BATCH_FIRST_SLOT = 36;
+    private static final int BATCH_LAST_SLOT = 68;
+    
+    // Rough heap needed per synthetic patient plus its snapshot entry
+    private static final long BYTES_PER_PATIENT = 600;
+    
+    // Heap per columnar appointment row, and per Appointment object (with LocalDateTime)
+    private static final long BYTES_PER_COLUMNAR_ROW = 24;
+    private static final long BYTES_PER_APPOINTMENT = 150;
+    
+    /**
+     * Main benchmark method
+     * Runs on synthetic in-memory data, so no database is required.
+     * @param args Command-line arguments
+     */
+    public static void main(String[] args) {
+        System.out.println("=== MEDITRACK BENCHMARK RUNNER ===\n");
+        
+        benchmarkNameSearch();
+        benchmarkFuzzySearch();
+        benchmarkParallelMatch();
+        benchmarkColumnarAnalytics();
+        benchmarkDistinctPatients();
+        benchmarkCohortRetention();
+        benchmarkDemandForecast();
+        benchmarkLeastBusyDoctor();
+        benchmarkSymptomMatch();
+        benchmarkEarliestAvailable();
+        benchmarkBatchScheduling();
+        
+        System.out.println("\n=== ALL BENCHMARKS COMPLETED ===");
+    }
+    
+    /**
+     * Substring name search: trigram index vs. a full scan (what LIKE '%x%' does)
+     */
+    private static void benchmarkNameSearch() {
+        System.out.println("--- Substring Name Search (avg per query) ---");
+        System.out.printf("%12s %16s %16s %10s%n", "rows", "trigram (us)", "scan (us)", "avg hits");
+        
+        for (int size : TABLE_SIZES) {
+            List<String> names = generateNames(size, 42);
+            TrigramIndex index = new TrigramIndex();
+            for (int i = 0; i < names.size(); i++) {
+                index.put(i + 1, names.get(i));
+            }
+            
+            List<String> normalized = new ArrayList<>(names.size());
+            for (String name : names) {
+                normalized.add(TextNormalizer.normalize(name));
+            }
+            
+            // Partial names as typed at the front desk, e.g. "ohn do"
+            Random random = new Random(7);
+            String[] queries = new String[20];
+            for (int i = 0; i < queries.length; i++) {
+                String name = normalized.get(random.nextInt(normalized.size()));
+                int space = name.indexOf(' ');
+                queries[i] = name.substring(Math.max(1, space - 3), Math.min(name.length(), space + 4));
+            }
+            for (String query : queries) {
+                index.search(query); // warm-up
+            }
+            
+            int rounds = size >= 1_000_000 ? 5 : 20;
+            long matches = 0;
+            
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    matches += index.search(query).size();
+                }
+            }
+            double indexedMicros = (System.nanoTime() - start) / 1000.0 / (rounds * queries.length);
+            
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    String needle = TextNormalizer.normalize(query);
+                    for (String name : normalized) {
+                        if (name.contains(needle)) {
+                            matches++;
+                        }
+                    }
+                }
+            }
+            double scanMicros = (System.nanoTime() - start) / 1000.0 / (rounds * queries.length);
+            
+            System.out.printf("%12d %16.1f %16.1f %10.1f%n", size, indexedMicros, scanMicros,
+                    matches / (2.0 * rounds * queries.length));
+        }
+    }
+    
+    /**
+     * Typo-tolerant name search (edit distance 2): BK-tree index vs. comparing every row
+     */
+    private static void benchmarkFuzzySearch() {
+        System.out.println("\n--- Fuzzy Name Search, distance 2 (avg per query) ---");
+        System.out.printf("%12s %16s %16s %10s%n", "rows", "bk-tree (ms)", "scan (ms)", "avg hits");
+        
+        for (int size : TABLE_SIZES) {
+            List<String> names = generateNames(size, 42);
+            FuzzyNameIndex index = new FuzzyNameIndex();
+            List<List<String>> tokenized = new ArrayList<>(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                index.put(i + 1, names.get(i));
+                tokenized.add(TextNormalizer.tokenize(names.get(i)));
+            }
+            
+            // Real names with one mistyped surname letter, e.g. "ahmed kosem"
+            Random random = new Random(7);
+            String[] queries = new String[10];
+            for (int i = 0; i < queries.length; i++) {
+                char[] name = TextNormalizer.normalize(names.get(random.nextInt(names.size()))).toCharArray();
+                name[name.length - 1 - random.nextInt(3)] = (char) ('a' + random.nextInt(26));
+                queries[i] = new String(name);
+            }
+            for (String query : queries) {
+                index.search(query, 2, 50); // warm-up
+            }
+            
+            int rounds = size >= 1_000_000 ? 2 : 10;
+            long matches = 0;
+            
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    matches += index.search(query, 2, Integer.MAX_VALUE).size();
+                }
+            }
+            double indexedMillis = (System.nanoTime() - start) / 1_000_000.0 / (rounds * queries.length);
+            
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    List<String> queryWords = TextNormalizer.tokenize(query);
+                    for (List<String> nameWords : tokenized) {
+                        if (allWordsWithin(queryWords, nameWords)) {
+                            matches++;
+                        }
+                    }
+                }
+            }
+            double scanMillis = (System.nanoTime() - start) / 1_000_000.0 / (rounds * queries.length);
+            
+            System.out.printf("%12d %16.2f %16.2f %10.1f%n", size, indexedMillis, scanMillis,
+                    matches / (2.0 * rounds * queries.length));
+        }
+    }
+    
+    /**
+     * Patient.matches rules: calling matches() per patient vs. a pre-lowercased
+     * snapshot scanned sequentially vs. the same snapshot split into fork/join tasks
+     */
+    private static void benchmarkParallelMatch() {
+        System.out.println("\n--- Predicate Search, top 50 (avg per query, "
+                + Runtime.getRuntime().availableProcessors() + " cores) ---");
+        System.out.printf("%12s %16s %16s %16s%n", "rows", "matches() (ms)", "sequential (ms)", "fork/join (ms)");
+        
+        String[] queries = {"ahmed", "son", "mal", "example.org", "42", "zzz"};
+        for (int size : SNAPSHOT_SIZES) {
+            if (Runtime.getRuntime().maxMemory() < size * BYTES_PER_PATIENT) {
+                System.out.printf("%12d %16s%n", size, "skipped (run with -Xmx"
+                        + (size * BYTES_PER_PATIENT >> 30) + "g or more)");
+                continue;
+            }
+            List<String> names = generateNames(size, 42);
+            List<Patient> patients = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String email = names.get(i).toLowerCase().replace(' ', '.') + "@example.org";
+                patients.add(new Patient(i + 1, names.get(i), LocalDate.of(1950 + i % 60, 1 + i % 12, 1 + i % 28),
+                        email, "5550100", null, null, null, null));
+            }
+            names = null;
+            SearchSnapshot<Patient> snapshot = SearchSnapshot.of(patients, Patient::getId,
+                    p -> new String[] {p.getName(), p.getEmail()}, p -> new int[] {p.getId(), p.getAge()});
+            
+            for (String query : queries) {
+                snapshot.search(query, 50); // warm-up
+                snapshot.searchSequential(query, 50);
+            }
+            int rounds = size >= 10_000_000 ? 1 : size >= 1_000_000 ? 3 : 10;
+            long sink = 0;
+            
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    List<Patient> matched = new ArrayList<>();
+                    for (Patient patient : patients) {
+                        if (patient.matches(query)) {
+                            matched.add(patient);
+                        }
+                    }
+                    sink += matched.size();
+                }
+            }
+            double perCallMillis = (System.nanoTime() - start) / 1_000_000.0 / (rounds * queries.length);
+            
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    sink += snapshot.searchSequential(query, 50).size();
+                }
+            }
+            double sequentialMillis = (System.nanoTime() - start) / 1_000_000.0 / (rounds * queries.length);
+            
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    sink += snapshot.search(query, 50).size();
+                }
+            }
+            double parallelMillis = (System.nanoTime() - start) / 1_000_000.0 / (rounds * queries.length);
+            
+            System.out.printf("%12d %16.1f %16.1f %16.1f%s%n", size, perCallMillis, sequentialMillis, parallelMillis,
+                    sink < 0 ? "!" : "");
+        }
+    }
+    
+    /**
+     * Appointments-per-doctor and revenue queries: streams over Appointment objects
+     * (what AnalyticsUtil used to do) vs. scans of the columnar table
+     */
+    private static void benchmarkColumnarAnalytics() {
+        System.out.println("\n--- Columnar Analytics (avg per query, "
+                + Runtime.getRuntime().availableProcessors() + " cores) ---");
+        System.out.printf("%12s %16s %16s %16s %16s%n", "rows", "objects (ms)", "per doctor (ms)",
+                "revenue (ms)", "by status (ms)");
+        
+        AppointmentStatus[] statuses = AppointmentStatus.values();
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        int startMinute = DateUtil.toEpochMinute(start);
+        AppointmentColumns.Filter notCancelled = AppointmentColumns.Filter.all()
+                .withoutStatus(AppointmentStatus.CANCELLED);
+        AppointmentColumns.Filter paidLastYear = AppointmentColumns.Filter.all()
+                .withBillState(AppointmentColumns.PAID)
+                .between(start.plusYears(4), start.plusYears(5));
+        
+        for (int size : COLUMNAR_SIZES) {
+            if (Runtime.getRuntime().maxMemory() < size * BYTES_PER_COLUMNAR_ROW * 2) {
+                System.out.printf("%12d %16s%n", size, "skipped (run with -Xmx"
+                        + Math.max(1, size * BYTES_PER_COLUMNAR_ROW * 2 >> 30) + "g or more)");
+                continue;
+            }
+            Random random = new Random(7);
+            AppointmentColumns.Appender appender = new AppointmentColumns.Appender(size);
+            for (int i = 0; i < size; i++) {
+                byte billState = (byte) random.nextInt(3);
+                appender.add(1 + random.nextInt(500), 1 + random.nextInt(1_000_000),
+                        startMinute + random.nextInt(5 * 525_600), statuses[random.nextInt(statuses.length)],
+                        billState == AppointmentColumns.NOT_BILLED ? 0 : 5_000 + random.nextInt(30_000), billState);
+            }
+            AppointmentColumns columns = appender.build();
+            
+            String objectMillis = "skipped";
+            if (Runtime.getRuntime().maxMemory() > size * (BYTES_PER_APPOINTMENT + BYTES_PER_COLUMNAR_ROW * 2)) {
+                List<Appointment> appointments = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    Appointment appointment = new Appointment();
+                    appointment.setId(i + 1);
+                    appointment.setDoctorId(columns.doctorId(i));
+                    appointment.setPatientId(columns.patientId(i));
+                    appointment.setAppointmentDateTime(start.plusMinutes(columns.epochMinute(i) - startMinute));
+                    appointment.setStatus(columns.status(i));
+                    appointments.add(appointment);
+                }
+                long begin = System.nanoTime();
+                Map<Integer, Long> perDoctor = appointments.stream()
+                        .filter(apt -> apt.getStatus() != AppointmentStatus.CANCELLED)
+                        .collect(Collectors.groupingBy(Appointment::getDoctorId, Collectors.counting()));
+                objectMillis = String.format("%.1f", (System.nanoTime() - begin) / 1_000_000.0);
+                if (perDoctor.isEmpty()) {
+                    objectMillis += "!";
+                }
+            }
+            
+            int rounds = 5;
+            long sink = 0;
+            for (int r = 0; r < 2; r++) {
+                sink += columns.countByDoctor(notCancelled)[1];
+                sink += columns.sumAmountCentsByDoctor(paidLastYear)[1];
+                sink += columns.countByStatus(AppointmentColumns.Filter.all())[0];
+            }
+            long begin = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                sink += columns.countByDoctor(notCancelled)[1];
+            }
+            double perDoctorMillis = (System.nanoTime() - begin) / 1_000_000.0 / rounds;
+            
+            begin = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                sink += columns.sumAmountCentsByDoctor(paidLastYear)[1];
+            }
+            double revenueMillis = (System.nanoTime() - begin) / 1_000_000.0 / rounds;
+            
+            begin = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                sink += columns.countByStatus(AppointmentColumns.Filter.all())[0];
+            }
+            double statusMillis = (System.nanoTime() - begin) / 1_000_000.0 / rounds;
+            
+            System.out.printf("%12d %16s %16.1f %16.1f %16.1f%s%n", size, objectMillis, perDoctorMillis,
+                    revenueMillis, statusMillis, sink < 0 ? "!" : "");
+        }
+    }
+    
+    /**
+     * Distinct patients per doctor, month, specialization and overall: merged
+     * per-(doctor, month) HyperLogLog sketches vs. exact distinct counts
+     */
+    private static void benchmarkDistinctPatients() {
+        System.out.println("\n--- Distinct Patients, HyperLogLog vs. exact (" + SKETCH_APPOINTMENTS
+                + " appointments, " + SKETCH_DOCTORS + " doctors, " + SKETCH_MONTHS + " months) ---");
+        System.out.printf("%16s %8s %14s %14s %14s %14s%n", "roll-up", "groups", "mean error %",
+                "max error %", "sketch (ms)", "exact (ms)");
+        
+        // Skewed patient popularity: a few patients book often, most rarely
+        Random random = new Random(42);
+        int[] doctorIds = new int[SKETCH_APPOINTMENTS];
+        int[] months = new int[SKETCH_APPOINTMENTS];
+        int[] patientIds = new int[SKETCH_APPOINTMENTS];
+        HyperLogLog[] cells = new HyperLogLog[SKETCH_DOCTORS * SKETCH_MONTHS];
+        for (int i = 0; i < SKETCH_APPOINTMENTS; i++) {
+            double r = random.nextDouble();
+            doctorIds[i] = random.nextInt(SKETCH_DOCTORS);
+            months[i] = random.nextInt(SKETCH_MONTHS);
+            patientIds[i] = 1 + (int) (SKETCH_PATIENTS * r * r);
+            int cell = doctorIds[i] * SKETCH_MONTHS + months[i];
+            if (cells[cell] == null) {
+                cells[cell] = new HyperLogLog();
+            }
+            cells[cell].add(patientIds[i]);
+        }
+        // Round-trip through the stored form, as the repository does
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != null) {
+                cells[cell] = HyperLogLog.fromBytes(cells[cell].toBytes());
+            }
+        }
+        
+        String[] rollups = {"doctor-month", "doctor", "month", "specialization", "all"};
+        for (int level = 0; level < rollups.length; level++) {
+            long begin = System.nanoTime();
+            Map<Integer, HyperLogLog> merged = new HashMap<>();
+            for (int cell = 0; cell < cells.length; cell++) {
+                if (cells[cell] != null) {
+                    int group = groupOf(level, cell / SKETCH_MONTHS, cell % SKETCH_MONTHS);
+                    HyperLogLog sketch = merged.get(group);
+                    if (sketch == null) {
+                        merged.put(group, sketch = new HyperLogLog());
+                    }
+                    sketch.merge(cells[cell]);
+                }
+            }
+            Map<Integer, Long> estimates = new HashMap<>();
+            for (Map.Entry<Integer, HyperLogLog> entry : merged.entrySet()) {
+                estimates.put(entry.getKey(), entry.getValue().estimate());
+            }
+            double sketchMillis = (System.nanoTime() - begin) / 1_000_000.0;
+            
+            // Exact: sort (group, patient) pairs and count the distinct ones
+            begin = System.nanoTime();
+            long[] pairs = new long[SKETCH_APPOINTMENTS];
+            for (int i = 0; i < SKETCH_APPOINTMENTS; i++) {
+                pairs[i] = (long) groupOf(level, doctorIds[i], months[i]) << 32 | patientIds[i];
+            }
+            Arrays.sort(pairs);
+            Map<Integer, Long> exact = new HashMap<>();
+            for (int i = 0; i < pairs.length; i++) {
+                if (i == 0 || pairs[i] != pairs[i - 1]) {
+                    exact.merge((int) (pairs[i] >>> 32), 1L, Long::sum);
+                }
+            }
+            double exactMillis = (System.nanoTime() - begin) / 1_000_000.0;
+            
+            double errorSum = 0;
+            double errorMax = 0;
+            for (Map.Entry<Integer, Long> entry : exact.entrySet()) {
+                double error = Math.abs(estimates.getOrDefault(entry.getKey(), 0L) - entry.getValue())
+                        / (double) entry.getValue();
+                errorSum += error;
+                errorMax = Math.max(errorMax, error);
+            }
+            System.out.printf("%16s %8d %14.2f %14.2f %14.1f %14.1f%n", rollups[level], exact.size(),
+                    errorSum * 100 / exact.size(), errorMax * 100, sketchMillis, exactMillis);
+        }
+    }
+    
+    /**
+     * Cohort retention from visits in (patient, time) order: one-pass builder
+     * over primitive int maps vs. grouping Appointment objects per patient in
+     * boxed collections
+     */
+    private static void benchmarkCohortRetention() {
+        System.out.println("\n--- Cohort Retention (" + COHORT_VISITS_PER_PATIENT + " visits per patient on average) ---");
+        System.out.printf("%12s %10s %16s %16s %8s%n", "visits", "cohorts", "one-pass (ms)", "objects (ms)", "match");
+        
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 9, 0);
+        int startMinute = DateUtil.toEpochMinute(start);
+        for (int size : COHORT_SIZES) {
+            // Patients first visit within 3 years, then return every few weeks to months
+            Random random = new Random(11);
+            int[] patientIds = new int[size];
+            int[] epochMinutes = new int[size];
+            int patientId = 0;
+            int minute = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || random.nextInt(COHORT_VISITS_PER_PATIENT) == 0) {
+                    patientId++;
+                    minute = startMinute + random.nextInt(3 * 525_600);
+                } else {
+                    minute += 1_440 * (1 + (int) (random.nextDouble() * random.nextDouble() * 300));
+                }
+                patientIds[i] = patientId;
+                epochMinutes[i] = minute;
+            }
+            
+            long begin = System.nanoTime();
+            CohortRetention.Builder builder = new CohortRetention.Builder();
+            for (int i = 0; i < size; i++) {
+                builder.add(patientIds[i], epochMinutes[i]);
+            }
+            CohortRetention cohorts = builder.build();
+            double onePassMillis = (System.nanoTime() - begin) / 1_000_000.0;
+            
+            String objectMillis = "skipped";
+            String match = "-";
+            if (Runtime.getRuntime().maxMemory() > size * (BYTES_PER_APPOINTMENT + 16L) * 2) {
+                List<Appointment> appointments = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    Appointment appointment = new Appointment();
+                    appointment.setPatientId(patientIds[i]);
+                    appointment.setAppointmentDateTime(start.plusMinutes(epochMinutes[i] - startMinute));
+                    appointments.add(appointment);
+                }
+                begin = System.nanoTime();
+                Map<Integer, List<Appointment>> byPatient = appointments.stream()
+                        .collect(Collectors.groupingBy(Appointment::getPatientId));
+                Map<YearMonth, Integer> sizes = new HashMap<>();
+                Map<YearMonth, int[]> retained = new HashMap<>();
+                for (List<Appointment> visits : byPatient.values()) {
+                    YearMonth first = YearMonth.from(visits.get(0).getAppointmentDateTime());
+                    sizes.merge(first, 1, Integer::sum);
+                    Set<Long> returnMonths = new HashSet<>();
+                    for (Appointment visit : visits) {
+                        long later = first.until(YearMonth.from(visit.getAppointmentDateTime()), ChronoUnit.MONTHS);
+                        if (later >= 1 && later <= CohortRetention.HORIZON_MONTHS) {
+                            returnMonths.add(later);
+                        }
+                    }
+                    int[] row = retained.computeIfAbsent(first, month -> new int[CohortRetention.HORIZON_MONTHS]);
+                    for (long later : returnMonths) {
+                        row[(int) later - 1]++;
+                    }
+                }
+                objectMillis = String.format("%.1f", (System.nanoTime() - begin) / 1_000_000.0);
+                
+                boolean same = sizes.size() == cohorts.getCohorts().size();
+                for (YearMonth cohort : cohorts.getCohorts()) {
+                    same &= sizes.getOrDefault(cohort, 0) == cohorts.cohortSize(cohort);
+                    for (int later = 1; later <= CohortRetention.HORIZON_MONTHS; later++) {
+                        same &= retained.get(cohort)[later - 1] == cohorts.retained(cohort, later);
+                    }
+                }
+                match = same ? "yes" : "NO";
+            }
+            
+            System.out.printf("%12d %10d %16.1f %16s %8s%n", size, cohorts.getCohorts().size(),
+                    onePassMillis, objectMillis, match);
+        }
+    }
+    
+    /**
+     * 14-day demand forecasts: weekly Holt-Winters vs. repeating last week and
+     * averaging the last four weeks, on series with a weekly pattern, a slow
+     * trend and Poisson noise. Errors are over rolling origins in the last year.
+     */
+    private static void benchmarkDemandForecast() {
+        System.out.println("\n--- Demand Forecast (" + FORECAST_SERIES + " daily series, "
+                + FORECAST_HISTORY_DAYS + " days, " + FORECAST_HORIZON_DAYS + "-day horizon) ---");
+        System.out.printf("%20s %12s%n", "method", "MAE / day");
+        
+        Random random = new Random(5);
+        double[] weekdayShape = {1.2, 1.1, 1.0, 1.0, 0.9, 0.5, 0.3};
+        double[] errors = new double[3];
+        long forecasts = 0;
+        long fitNanos = 0;
+        long forecastNanos = 0;
+        for (int s = 0; s < FORECAST_SERIES; s++) {
+            double base = 2 + random.nextDouble() * 20;
+            double growth = (random.nextDouble() - 0.4) * base / FORECAST_HISTORY_DAYS;
+            int[] series = new int[FORECAST_HISTORY_DAYS + FORECAST_HORIZON_DAYS];
+            for (int day = 0; day < series.length; day++) {
+                series[day] = poisson(random, Math.max(0, (base + growth * day) * weekdayShape[day % 7]));
+            }
+            
+            // Same smoothing parameters as DemandForecaster
+            HoltWinters model = new HoltWinters(7, 0.1, 0.01, 0.1, 0.9);
+            for (int day = 0; day < FORECAST_HISTORY_DAYS; day++) {
+                long begin = System.nanoTime();
+                model.update(series[day]);
+                fitNanos += System.nanoTime() - begin;
+                if (day < FORECAST_HISTORY_DAYS - 365 || day % 7 != 0) {
+                    continue;
+                }
+                begin = System.nanoTime();
+                double[] expected = model.forecast(FORECAST_HORIZON_DAYS);
+                forecastNanos += System.nanoTime() - begin;
+                forecasts++;
+                for (int h = 0; h < FORECAST_HORIZON_DAYS; h++) {
+                    int actual = series[day + 1 + h];
+                    double lastWeek = series[day - 6 + h % 7];
+                    double fourWeeks = 0;
+                    for (int w = 0; w < 4; w++) {
+                        fourWeeks += series[day - 6 + h % 7 - 7 * w];
+                    }
+                    errors[0] += Math.abs(expected[h] - actual);
+                    errors[1] += Math.abs(lastWeek - actual);
+                    errors[2] += Math.abs(fourWeeks / 4 - actual);
+                }
+            }
+        }
+        String[] methods = {"Holt-Winters", "last week", "4-week average"};
+        for (int m = 0; m < methods.length; m++) {
+            System.out.printf("%20s %12.2f%n", methods[m], errors[m] / (forecasts * FORECAST_HORIZON_DAYS));
+        }
+        System.out.printf("update: %.0f ns, %d-day forecast: %.0f ns%n",
+                fitNanos / (double) (FORECAST_SERIES * FORECAST_HISTORY_DAYS), FORECAST_HORIZON_DAYS,
+                forecastNanos / (double) forecasts);
+    }
+    
+    /**
+     * Least-busy doctor among 500 candidates of one specialization. Each
+     * recommendation books 30 minutes with the chosen doctor. Compares the old
+     * pick-the-first rule and regrouping all upcoming appointments per
+     * recommendation with cached counts plus popcounts of free-slot bitmaps.
+     */
+    private static void benchmarkLeastBusyDoctor() {
+        System.out.println("\n--- Least Busy Doctor (" + LOAD_DOCTORS + " candidates, "
+                + LOAD_RECOMMENDATIONS + " recommendations) ---");
+        System.out.printf("%22s %16s %14s %14s%n", "method", "per pick (us)", "max picks", "doctors picked");
+        
+        String[] methods = {"first candidate", "regroup per pick", "cached + bitmaps"};
+        for (int method = 0; method < methods.length; method++) {
+            // Existing load: 0-80 booked 15-minute slots per doctor over the week, in 30-minute visits
+            Random random = new Random(9);
+            List<Integer> candidates = new ArrayList<>();
+            long[][] booked = new long[LOAD_DOCTORS][LOAD_DAYS];
+            List<int[]> appointments = new ArrayList<>();
+            for (int doctor = 0; doctor < LOAD_DOCTORS; doctor++) {
+                candidates.add(doctor);
+                int visits = random.nextInt(41);
+                for (int v = 0; v < visits; v++) {
+                    int day = random.nextInt(LOAD_DAYS);
+                    int slot = 2 * random.nextInt(LOAD_SLOTS_PER_DAY / 2);
+                    if ((booked[doctor][day] & (3L << slot)) == 0) {
+                        booked[doctor][day] |= 3L << slot;
+                        appointments.add(new int[] {doctor, day});
+                    }
+                }
+            }
+            int[] cachedCounts = new int[LOAD_DOCTORS];
+            for (int[] appointment : appointments) {
+                cachedCounts[appointment[0]]++;
+            }
+            
+            int[] recommended = new int[LOAD_DOCTORS];
+            long begin = System.nanoTime();
+            for (int r = 0; r < LOAD_RECOMMENDATIONS; r++) {
+                Integer chosen;
+                if (method == 0) {
+                    chosen = candidates.get(0);
+                } else if (method == 1) {
+                    int[] counts = new int[LOAD_DOCTORS];
+                    for (int[] appointment : appointments) {
+                        counts[appointment[0]]++;
+                    }
+                    chosen = DoctorLoadCache.pickLeastBusy(candidates, doctor -> counts[doctor],
+                            doctor -> freeSlotCount(booked[doctor]));
+                } else {
+                    chosen = DoctorLoadCache.pickLeastBusy(candidates, doctor -> cachedCounts[doctor],
+                            doctor -> freeSlotCount(booked[doctor]));
+                }
+                recommended[chosen]++;
+                // Book the first free 30 minutes of the week, if any
+                for (int day = 0; day < LOAD_DAYS; day++) {
+                    long runs = ~booked[chosen][day] & (~booked[chosen][day] >>> 1) & ((1L << (LOAD_SLOTS_PER_DAY - 1)) - 1);
+                    if (runs != 0) {
+                        booked[chosen][day] |= 3L << Long.numberOfTrailingZeros(runs);
+                        appointments.add(new int[] {chosen, day});
+                        cachedCounts[chosen]++;
+                        break;
+                    }
+                }
+            }
+            double perPickMicros = (System.nanoTime() - begin) / 1_000.0 / LOAD_RECOMMENDATIONS;
+            
+            int maxBookings = 0;
+            int used = 0;
+            for (int count : recommended) {
+                maxBookings = Math.max(maxBookings, count);
+                used += count > 0 ? 1 : 0;
+            }
+            System.out.printf("%22s %16.2f %14d %14d%n", methods[method], perPickMicros, maxBookings, used);
+        }
+    }
+    
+    /**
+     * Symptom keyword routing: String.contains for every dictionary keyword vs.
+     * one pass of an Aho-Corasick automaton, on synthetic 1-3 word keywords
+     * and descriptions of 12 words.
+     */
+    private static void benchmarkSymptomMatch() {
+        System.out.println("\n--- Symptom Match (" + SYMPTOM_QUERIES + " descriptions of "
+                + SYMPTOM_WORDS_PER_QUERY + " words) ---");
+        System.out.printf("%10s %22s %22s %12s%n", "keywords", "contains loop (us/q)", "automaton (us/q)", "build (ms)");
+        
+        for (int size : SYMPTOM_DICTIONARY_SIZES) {
+            Random random = new Random(11);
+            Map<String, Integer> keywords = new HashMap<>();
+            while (keywords.size() < size) {
+                int words = 1 + random.nextInt(3);
+                StringBuilder keyword = new StringBuilder();
+                for (int w = 0; w < words; w++) {
+                    keyword.append(w > 0 ? " " : "").append(randomWord(random));
+                }
+                keywords.put(keyword.toString(), random.nextInt(SYMPTOM_SPECIALIZATIONS));
+            }
+            List<String> keywordList = new ArrayList<>(keywords.keySet());
+            String[] queries = new String[SYMPTOM_QUERIES];
+            for (int q = 0; q < SYMPTOM_QUERIES; q++) {
+                StringBuilder query = new StringBuilder();
+                for (int w = 0; w < SYMPTOM_WORDS_PER_QUERY; w++) {
+                    // Roughly one word in six starts a dictionary keyword
+                    String word = random.nextInt(6) == 0
+                            ? keywordList.get(random.nextInt(keywordList.size()))
+                            : randomWord(random);
+                    query.append(w > 0 ? " " : "").append(word);
+                }
+                queries[q] = query.toString();
+            }
+            
+            long begin = System.nanoTime();
+            int containsHits = 0;
+            for (String query : queries) {
+                for (Map.Entry<String, Integer> entry : keywords.entrySet()) {
+                    if (query.contains(entry.getKey())) {
+                        containsHits++;
+                    }
+                }
+            }
+            double containsMicros = (System.nanoTime() - begin) / 1_000.0 / SYMPTOM_QUERIES;
+            
+            begin = System.nanoTime();
+            AhoCorasick.Builder builder = new AhoCorasick.Builder();
+            for (Map.Entry<String, Integer> entry : keywords.entrySet()) {
+                builder.add(entry.getKey(), entry.getValue());
+            }
+            AhoCorasick automaton = builder.build();
+            double buildMillis = (System.nanoTime() - begin) / 1_000_000.0;
+            
+            begin = System.nanoTime();
+            int[] scores = new int[SYMPTOM_SPECIALIZATIONS];
+            long checksum = 0;
+            for (String query : queries) {
+                Arrays.fill(scores, 0);
+                automaton.search(query, (specialization, start, end) -> scores[specialization]++);
+                int best = 0;
+                for (int i = 1; i < scores.length; i++) {
+                    best = scores[i] > scores[best] ? i : best;
+                }
+                checksum += best + scores[best];
+            }
+            double automatonMicros = (System.nanoTime() - begin) / 1_000.0 / SYMPTOM_QUERIES;
+            
+            System.out.printf("%10d %22.2f %22.2f %12.1f%n", size, containsMicros, automatonMicros, buildMillis);
+            if (containsHits == 0 || checksum == 0) {
+                System.out.println("  (no keyword hits)");
+            }
+        }
+    }
+    
+    /**
+     * Earliest free 30-minute slots across 500 doctors with a busy first week:
+     * one free-slot query per doctor followed by a sort vs.
+     * AvailabilityIndex.findEarliestSlots merging lazy per-doctor slot cursors
+     * through a priority queue.
+     */
+    private static void benchmarkEarliestAvailable() {
+        System.out.println("\n--- Earliest Available (" + EARLIEST_DOCTORS + " doctors, "
+                + EARLIEST_DAYS + " days, " + EARLIEST_QUERIES + " queries) ---");
+        System.out.printf("%8s %26s %22s %8s%n", "results", "per-doctor + sort (us/q)", "queue merge (us/q)", "same");
+        
+        // Bookings thin out over the month: the first week is nearly full
+        Random random = new Random(13);
+        long[][] booked = new long[EARLIEST_DOCTORS][EARLIEST_DAYS];
+        for (int doctor = 0; doctor < EARLIEST_DOCTORS; doctor++) {
+            for (int day = 0; day < EARLIEST_DAYS; day++) {
+                double busy = day < 7 ? 0.97 : 0.5;
+                for (int slot = 0; slot < LOAD_SLOTS_PER_DAY; slot += 2) {
+                    if (random.nextDouble() < busy) {
+                        booked[doctor][day] |= 3L << slot;
+                    }
+                }
+            }
+        }
+        
+        // The same days as whole-day free bitmaps, in the index's slot layout
+        int openSlot = Constants.WORKING_HOURS_START.toSecondOfDay() / 60 / Constants.SLOT_MINUTES;
+        long[][][] free = new long[EARLIEST_DOCTORS][EARLIEST_DAYS][];
+        for (int doctor = 0; doctor < EARLIEST_DOCTORS; doctor++) {
+            for (int day = 0; day < EARLIEST_DAYS; day++) {
+                free[doctor][day] = new long[(24 * 60 / Constants.SLOT_MINUTES + 63) / 64];
+                for (int slot = 0; slot < LOAD_SLOTS_PER_DAY; slot++) {
+                    if ((booked[doctor][day] & (1L << slot)) == 0) {
+                        int bit = openSlot + slot;
+                        free[doctor][day][bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+        }
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        List<Integer> doctorIds = new ArrayList<>(EARLIEST_DOCTORS);
+        for (int doctor = 0; doctor < EARLIEST_DOCTORS; doctor++) {
+            doctorIds.add(doctor);
+        }
+        AvailabilityIndex.FreeSlotSource source =
+                (doctorId, day) -> free[doctorId][(int) ChronoUnit.DAYS.between(firstDay, day)];
+        
+        for (int results : EARLIEST_RESULTS) {
+            long checksum = 0;
+            long begin = System.nanoTime();
+            for (int q = 0; q < EARLIEST_QUERIES; q++) {
+                // Up to results slots per doctor, then the earliest overall
+                List<long[]> all = new ArrayList<>();
+                for (int doctor = 0; doctor < EARLIEST_DOCTORS; doctor++) {
+                    int found = 0;
+                    for (int day = 0; day < EARLIEST_DAYS && found < results; day++) {
+                        long runs = ~booked[doctor][day] & (~booked[doctor][day] >>> 1) & ((1L << (LOAD_SLOTS_PER_DAY - 1)) - 1);
+                        for (int slot = 0; slot < LOAD_SLOTS_PER_DAY && found < results; slot++) {
+                            if ((runs & (1L << slot)) != 0) {
+                                all.add(new long[] {(long) day * LOAD_SLOTS_PER_DAY + slot, doctor});
+                                found++;
+                                slot++;
+                            }
+                        }
+                    }
+                }
+                all.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+                for (int i = 0; i < results && i < all.size(); i++) {
+                    checksum += all.get(i)[0] * 31 + all.get(i)[1];
+                }
+            }
+            double sortMicros = (System.nanoTime() - begin) / 1_000.0 / EARLIEST_QUERIES;
+            
+            long mergedChecksum = 0;
+            try {
+                begin = System.nanoTime();
+                for (int q = 0; q < EARLIEST_QUERIES; q++) {
+                    List<AvailabilityIndex.DoctorSlot> earliest = AvailabilityIndex.findEarliestSlots(doctorIds,
+                            firstDay.atStartOfDay(), 2 * Constants.SLOT_MINUTES, results, EARLIEST_DAYS, source);
+                    for (AvailabilityIndex.DoctorSlot slot : earliest) {
+                        long day = ChronoUnit.DAYS.between(firstDay, slot.getStart().toLocalDate());
+                        int minute = slot.getStart().toLocalTime().toSecondOfDay() / 60;
+                        long start = day * LOAD_SLOTS_PER_DAY + minute / Constants.SLOT_MINUTES - openSlot;
+                        mergedChecksum += start * 31 + slot.getDoctorId();
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            double mergeMicros = (System.nanoTime() - begin) / 1_000.0 / EARLIEST_QUERIES;
+            
+            System.out.printf("%8d %26.1f %22.1f %8s%n", results, sortMicros, mergeMicros,
+                    checksum == mergedChecksum ? "yes" : "NO");
+        }
+    }
+    
+    /**
+     * A vaccination drive: 4,500 requests with morning 2-hour or whole-day
+     * windows for two specializations, on calendars with a few existing visits
+     * a day. Compares booking
+     * the requests one by one, each with the least busy doctor free in its
+     * window, with BatchScheduler (greedy plus local search).
+     */
+    private static void benchmarkBatchScheduling() {
+        Specialization[] specializations = {Specialization.GENERAL, Specialization.PEDIATRICS};
+        int doctorCount = BATCH_DOCTORS_PER_SPECIALIZATION * specializations.length;
+        System.out.println("\n--- Batch Scheduling (" + BATCH_REQUESTS + " requests, " + doctorCount
+                + " doctors, " + BATCH_DAYS + " days) ---");
+        System.out.printf("%14s %12s %14s %10s%n", "method", "fulfilled", "load spread", "time (ms)");
+        
+        Random random = new Random(17);
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        Map<Integer, Specialization> doctors = new HashMap<>();
+        long[][][] free = new long[doctorCount + 1][BATCH_DAYS][2];
+        int[] initialLoad = new int[doctorCount + 1];
+        for (int doctor = 1; doctor <= doctorCount; doctor++) {
+            doctors.put(doctor, specializations[(doctor - 1) / BATCH_DOCTORS_PER_SPECIALIZATION]);
+            for (int day = 0; day < BATCH_DAYS; day++) {
+                free[doctor][day][0] = -1L << BATCH_FIRST_SLOT;
+                free[doctor][day][1] = (1L << (BATCH_LAST_SLOT - 64)) - 1;
+                // Existing 30-minute visits at any quarter hour
+                for (int visit = random.nextInt(7); visit > 0; visit--) {
+                    int slot = BATCH_FIRST_SLOT + random.nextInt(BATCH_LAST_SLOT - BATCH_FIRST_SLOT - 1);
+                    free[doctor][day][slot >>> 6] &= ~(1L << slot);
+                    free[doctor][day][(slot + 1) >>> 6] &= ~(1L << (slot + 1));
+                    initialLoad[doctor]++;
+                }
+            }
+        }
+        List<BatchScheduler.Request> requests = new ArrayList<>();
+        for (int i = 0; i < BATCH_REQUESTS; i++) {
+            LocalDate day = firstDay.plusDays(random.nextInt(BATCH_DAYS));
+            // Short windows cluster in the morning; whole-day requests could go anywhere
+            boolean wholeDay = random.nextInt(10) < 4;
+            LocalDateTime earliest = wholeDay ? day.atTime(9, 0) : day.atTime(9 + random.nextInt(3), 0);
+            LocalDateTime latest = wholeDay ? day.atTime(17, 0) : earliest.plusHours(2);
+            requests.add(new BatchScheduler.Request(i + 1, specializations[random.nextInt(specializations.length)],
+                    earliest, latest.isAfter(day.atTime(17, 0)) ? day.atTime(17, 0) : latest, "Vaccination"));
+        }
+        
+        // One by one: least busy doctor with a free start, earliest start on ties
+        long[][][] oneByOne = new long[doctorCount + 1][BATCH_DAYS][];
+        for (int doctor = 1; doctor <= doctorCount; doctor++) {
+            for (int day = 0; day < BATCH_DAYS; day++) {
+                oneByOne[doctor][day] = free[doctor][day].clone();
+            }
+        }
+        int[] load = initialLoad.clone();
+        int fulfilled = 0;
+        long begin = System.nanoTime();
+        for (BatchScheduler.Request request : requests) {
+            int day = (int) ChronoUnit.DAYS.between(firstDay, request.getEarliest().toLocalDate());
+            int first = request.getEarliest().getHour() * 4;
+            int last = request.getLatest().getHour() * 4 - 2;
+            int bestDoctor = -1;
+            int bestSlot = -1;
+            for (int doctor = 1; doctor <= doctorCount; doctor++) {
+                if (doctors.get(doctor) != request.getSpecialization()
+                        || (bestDoctor > 0 && load[doctor] >= load[bestDoctor])) {
+                    continue;
+                }
+                long[] bits = oneByOne[doctor][day];
+                for (int slot = first; slot <= last; slot++) {
+                    if ((bits[slot >>> 6] & 1L << slot) != 0 && (bits[(slot + 1) >>> 6] & 1L << (slot + 1)) != 0) {
+                        bestDoctor = doctor;
+                        bestSlot = slot;
+                        break;
+                    }
+                }
+            }
+            if (bestDoctor > 0) {
+                long[] bits = oneByOne[bestDoctor][day];
+                bits[bestSlot >>> 6] &= ~(1L << bestSlot);
+                bits[(bestSlot + 1) >>> 6] &= ~(1L << (bestSlot + 1));
+                load[bestDoctor]++;
+                fulfilled++;
+            }
+        }
+        double oneByOneMillis = (System.nanoTime() - begin) / 1_000_000.0;
+        System.out.printf("%14s %12d %14d %10.1f%n", "one by one", fulfilled, spread(load), oneByOneMillis);
+        
+        BatchScheduler scheduler = new BatchScheduler(new BatchScheduler.DoctorCalendar() {
+            @Override
+            public long[] freeSlots(int doctorId, LocalDate day) {
+                return free[doctorId][(int) ChronoUnit.DAYS.between(firstDay, day)].clone();
+            }
+            
+            @Override
+            public int upcomingCount(int doctorId) {
+                return initialLoad[doctorId];
+            }
+        }, 30, firstDay.atStartOfDay());
+        try {
+            begin = System.nanoTime();
+            BatchScheduler.Result result = scheduler.schedule(requests, doctors);
+            double batchMillis = (System.nanoTime() - begin) / 1_000_000.0;
+            int[] batchLoad = initialLoad.clone();
+            for (BatchScheduler.Assignment assignment : result.getAssignments()) {
+                batchLoad[assignment.getDoctorId()]++;
+            }
+            System.out.printf("%14s %12d %14d %10.1f%n", "batch", result.getAssignments().size(),
+                    spread(batchLoad), batchMillis);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Difference between the most and least loaded doctor (index 0 is unused)
+     */
+    private static int spread(int[] load) {
+        int max = Integer.MIN_VALUE;
+        int min = Integer.MAX_VALUE;
+        for (int i = 1; i < load.length; i++) {
+            max = Math.max(max, load[i]);
+            min = Math.min(min, load[i]);
+        }
+        return max - min;
+    }
+    
+    private static String randomWord(Random random) {
+        int syllables = 2 + random.nextInt(2);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+    
+    private static int freeSlotCount(long[] bookedDays) {
+        long workingDay = (1L << LOAD_SLOTS_PER_DAY) - 1;
+        int free = 0;
+        for (long day : bookedDays) {
+            free += Long.bitCount(workingDay & ~day);
+        }
+        return free;
+    }
+    
+    private static int poisson(Random random, double mean) {
+        // Knuth's method; fine for the small means used here
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+    
+    private static int groupOf(int level, int doctorId, int month) {
+        switch (level) {
+            case 0: return doctorId * SKETCH_MONTHS + month;
+            case 1: return doctorId;
+            case 2: return month;
+            case 3: return doctorId % SKETCH_SPECIALIZATIONS;
+            default: return 0;
+        }
+    }
+    
+    /**
+     * Same per-word distance rule as FuzzyNameIndex, checked by brute force
+     */
+    private static boolean allWordsWithin(List<String> queryWords, List<String> nameWords) {
+        for (String queryWord : queryWords) {
+            int allowed = queryWord.length() <= 2 ? 0 : queryWord.length() <= 4 ? 1 : 2;
+            boolean found = false;
+            for (int i = 0; i < nameWords.size() && !found; i++) {
+                found = FuzzyNameIndex.distance(queryWord, nameWords.get(i)) <= allowed;
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Generate synthetic "First Last" names with syllable-built surnames
+     * @param count Number of names
+     * @param seed Random seed
+     * @return List of names
+     */
+    private static List<String> generateNames(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder last = new StringBuilder();
+            int syllables = 2 + random.nextInt(2);
+            for (int s = 0; s < syllables; s++) {
+                last.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            last.setCharAt(0, Character.toUpperCase(last.charAt(0)));
+            names.add(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + last);
+        }
+        return names;
+    }
+}
+
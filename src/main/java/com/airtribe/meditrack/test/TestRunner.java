@@ -1,6 +1,7 @@
 package com.airtribe.meditrack.test;
 
 import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Constants;
 import com.airtribe.meditrack.constants.Specialization;
 import com.airtribe.meditrack.controller.AppointmentController;
 import com.airtribe.meditrack.controller.DoctorController;
@@ -11,12 +12,18 @@ import com.airtribe.meditrack.entity.Appointment;
 import com.airtribe.meditrack.exception.InvalidDataException;
 import com.airtribe.meditrack.util.AnalyticsUtil;
 import com.airtribe.meditrack.util.AIHelper;
+import com.airtribe.meditrack.util.BatchScheduler;
+import com.airtribe.meditrack.util.CohortRetention;
 import com.airtribe.meditrack.util.DatabaseUtil;
 import com.airtribe.meditrack.util.DateUtil;
+import com.airtribe.meditrack.util.Money;
+import com.airtribe.meditrack.util.SymptomMatcher;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class TestRunner {
@@ -155,6 +162,17 @@ public class TestRunner {
         Appointment retrieved = appointmentController.getAppointment(appointment.getId());
         System.out.println("✓ Appointment retrieved: Status = " + retrieved.getStatus());
         
+        // Schedule a small batch with the first doctor's specialization (one patient, back-to-back windows)
+        LocalDateTime windowStart = LocalDateTime.now().plusDays(2).withHour(9).withMinute(0);
+        List<BatchScheduler.Request> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            requests.add(new BatchScheduler.Request(patientId, doctors.get(0).getSpecialization(),
+                    windowStart.plusHours(2 * i), windowStart.plusHours(2 * i + 2), "Batch check-up"));
+        }
+        BatchScheduler.Result batch = appointmentController.scheduleBatch(requests);
+        System.out.println((batch.getUnassigned().isEmpty() ? "✓" : "✗") + " Batch scheduled: "
+                + batch.getAssignments().size() + " of " + requests.size() + " requests assigned");
+        
         System.out.println();
     }
     
@@ -201,7 +219,7 @@ public class TestRunner {
         
         // Generate bill summary
         var summary = appointmentController.generateBillSummary(appointmentId);
-        System.out.println("✓ Bill summary generated: Total = $" + summary.getTotalAmount());
+        System.out.println("✓ Bill summary generated: Total = $" + Money.format(summary.getTotalCents()));
         
         System.out.println();
     }
@@ -223,6 +241,11 @@ public class TestRunner {
             System.out.println("⚠ No doctor recommendation available");
         }
         
+        // Test symptom matching (the phrase "chest pain" outweighs "child")
+        Specialization matched = SymptomMatcher.getInstance().match("child with chest pain");
+        System.out.println((matched == Specialization.CARDIOLOGY ? "✓" : "✗")
+                + " Symptoms 'child with chest pain' matched to " + matched);
+        
         // Test appointment slot suggestion
         var doctors = doctorController.getAllDoctors();
         if (!doctors.isEmpty()) {
@@ -231,6 +254,17 @@ public class TestRunner {
             System.out.println("✓ Appointment slots suggested: " + slots.size() + " slots");
         }
         
+        // Test earliest availability across a specialization
+        var earliest = aiHelper.findEarliestAvailable(Specialization.CARDIOLOGY, 5);
+        System.out.println("✓ Earliest cardiology slots: " + earliest.size()
+                + (earliest.isEmpty() ? "" : ", first " + earliest.get(0)));
+        
+        // Test demand forecast (models are fitted on the first forecast)
+        var forecast = aiHelper.forecastDemand(Specialization.CARDIOLOGY, Constants.FORECAST_HORIZON_DAYS);
+        System.out.println("✓ Cardiology demand forecast: " + forecast.size() + " days, "
+                + String.format("%.1f", forecast.values().stream().mapToDouble(Double::doubleValue).sum())
+                + " appointments expected");
+        
         System.out.println();
     }
     
@@ -247,13 +281,19 @@ public class TestRunner {
         System.out.println("✓ Average consultation fee: $" + String.format("%.2f", avgFee));
         
         // Total revenue
-        double revenue = analytics.calculateTotalRevenue();
-        System.out.println("✓ Total revenue: $" + String.format("%.2f", revenue));
+        long revenueCents = analytics.calculateTotalRevenueCents();
+        System.out.println("✓ Total revenue: $" + Money.format(revenueCents));
         
         // Confirmed appointments count
         long confirmedCount = analytics.getConfirmedAppointmentsCount();
         System.out.println("✓ Confirmed appointments: " + confirmedCount);
         
+        // Cohort retention
+        CohortRetention cohorts = analytics.getCohortRetention();
+        System.out.println("✓ Cohorts: " + cohorts.getCohorts().size() + " months, "
+                + cohorts.getPatientCount() + " patients, median return after "
+                + cohorts.returnIntervalPercentile(50) + " days");
+        
         // Generate report
         String report = analytics.generateAnalyticsReport();
         System.out.println("✓ Analytics report generated");
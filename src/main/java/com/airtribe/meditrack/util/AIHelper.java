@@ -1,10 +1,9 @@
 package com.airtribe.meditrack.util;
 
+import com.airtribe.meditrack.constants.Constants;
 import com.airtribe.meditrack.constants.Specialization;
 import com.airtribe.meditrack.entity.Doctor;
-import com.airtribe.meditrack.entity.Appointment;
 import com.airtribe.meditrack.repository.DoctorRepository;
-import com.airtribe.meditrack.repository.AppointmentRepository;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -14,40 +13,11 @@ import java.util.*;
 public class AIHelper {
     
     private final DoctorRepository doctorRepository;
-    private final AppointmentRepository appointmentRepository;
+    private final SnapshotReadModel readModel;
     
-    private static final Map<String, Specialization> SYMPTOM_SPECIALIZATION_MAP = new HashMap<>();
-    
-    static {
-        SYMPTOM_SPECIALIZATION_MAP.put("chest pain", Specialization.CARDIOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("heart", Specialization.CARDIOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("cardiac", Specialization.CARDIOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("rash", Specialization.DERMATOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("skin", Specialization.DERMATOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("acne", Specialization.DERMATOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("child", Specialization.PEDIATRICS);
-        SYMPTOM_SPECIALIZATION_MAP.put("pediatric", Specialization.PEDIATRICS);
-        SYMPTOM_SPECIALIZATION_MAP.put("baby", Specialization.PEDIATRICS);
-        SYMPTOM_SPECIALIZATION_MAP.put("fracture", Specialization.ORTHOPEDICS);
-        SYMPTOM_SPECIALIZATION_MAP.put("bone", Specialization.ORTHOPEDICS);
-        SYMPTOM_SPECIALIZATION_MAP.put("joint", Specialization.ORTHOPEDICS);
-        SYMPTOM_SPECIALIZATION_MAP.put("headache", Specialization.NEUROLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("neurological", Specialization.NEUROLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("seizure", Specialization.NEUROLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("mental", Specialization.PSYCHIATRY);
-        SYMPTOM_SPECIALIZATION_MAP.put("depression", Specialization.PSYCHIATRY);
-        SYMPTOM_SPECIALIZATION_MAP.put("anxiety", Specialization.PSYCHIATRY);
-        SYMPTOM_SPECIALIZATION_MAP.put("cancer", Specialization.ONCOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("tumor", Specialization.ONCOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("women", Specialization.GYNECOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("gynecological", Specialization.GYNECOLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("urinary", Specialization.UROLOGY);
-        SYMPTOM_SPECIALIZATION_MAP.put("kidney", Specialization.UROLOGY);
-    }
-
     public AIHelper() {
         this.doctorRepository = new DoctorRepository();
-        this.appointmentRepository = new AppointmentRepository();
+        this.readModel = SnapshotReadModel.getInstance();
     }
     
     /**
@@ -61,24 +31,16 @@ public class AIHelper {
             return null;
         }
         
-        String lowerSymptoms = symptoms.toLowerCase();
-        Specialization recommendedSpecialization = null;
-        
-        for (Map.Entry<String, Specialization> entry : SYMPTOM_SPECIALIZATION_MAP.entrySet()) {
-            if (lowerSymptoms.contains(entry.getKey())) {
-                recommendedSpecialization = entry.getValue();
-                break;
-            }
-        }
+        Specialization recommendedSpecialization = SymptomMatcher.getInstance().match(symptoms);
         
         if (recommendedSpecialization == null) {
             recommendedSpecialization = Specialization.GENERAL;
         }
         
-        List<Doctor> doctors = doctorRepository.findBySpecialization(recommendedSpecialization);
+        List<Doctor> doctors = findDoctorsBySpecialization(recommendedSpecialization);
         
         if (doctors.isEmpty()) {
-            doctors = doctorRepository.findBySpecialization(Specialization.GENERAL);
+            doctors = findDoctorsBySpecialization(Specialization.GENERAL);
         }
         
         if (!doctors.isEmpty()) {
@@ -97,45 +59,96 @@ public class AIHelper {
      */
     public List<LocalDateTime> suggestAppointmentSlots(int doctorId, LocalDate preferredDate) 
             throws SQLException {
-        List<LocalDateTime> suggestions = new ArrayList<>();
-        LocalDateTime baseDateTime;
-        
-        if (preferredDate != null) {
-            baseDateTime = preferredDate.atTime(9, 0); // Start at 9 AM
-        } else {
-            baseDateTime = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0);
+        LocalDate date = preferredDate != null ? preferredDate : LocalDate.now().plusDays(1);
+        return suggestAppointmentSlots(doctorId, date.atStartOfDay(), Constants.APPOINTMENT_MINUTES, 5, 1);
+    }
+    
+    /**
+     * Suggest free appointment slots from the doctor's availability bitmaps,
+     * within working hours and without overlapping each other
+     * @param doctorId Doctor ID
+     * @param from Earliest start (times before now are skipped)
+     * @param durationMinutes Appointment length
+     * @param maxSlots Maximum number of suggestions
+     * @param days Number of days to search, starting with the day of from
+     * @return List of suggested appointment times, earliest first
+     * @throws SQLException if database operation fails
+     */
+    public List<LocalDateTime> suggestAppointmentSlots(int doctorId, LocalDateTime from, int durationMinutes,
+                                                       int maxSlots, int days) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from.isAfter(now) ? from : now;
+        int remainingDays = days - (int) (start.toLocalDate().toEpochDay() - from.toLocalDate().toEpochDay());
+        if (remainingDays <= 0) {
+            return new ArrayList<>();
         }
-        
-        List<Appointment> existingAppointments = appointmentRepository.findByDoctorId(doctorId);
-        Set<LocalDateTime> bookedSlots = new HashSet<>();
-        
-        for (Appointment apt : existingAppointments) {
-            if (apt.getStatus() != com.airtribe.meditrack.constants.AppointmentStatus.CANCELLED) {
-                bookedSlots.add(apt.getAppointmentDateTime());
-            }
+        return AvailabilityIndex.getInstance().findFreeSlots(doctorId, start, durationMinutes, maxSlots,
+                remainingDays);
+    }
+    
+    /**
+     * Find the earliest free appointment times with any doctor of a
+     * specialization, searching all of them at once in the availability index
+     * @param specialization Specialization
+     * @param maxSlots Maximum number of suggestions
+     * @return Doctor and start time pairs, earliest first
+     * @throws SQLException if database operation fails
+     */
+    public List<AvailabilityIndex.DoctorSlot> findEarliestAvailable(Specialization specialization, int maxSlots)
+            throws SQLException {
+        List<Integer> doctorIds = new ArrayList<>();
+        for (Doctor doctor : findDoctorsBySpecialization(specialization)) {
+            doctorIds.add(doctor.getId());
         }
-        
-        LocalDateTime currentSlot = baseDateTime;
-        int slotsSuggested = 0;
-        int maxSlots = 5;
-        
-        while (slotsSuggested < maxSlots && currentSlot.getHour() < 17) {
-            if (currentSlot.isAfter(LocalDateTime.now()) && !bookedSlots.contains(currentSlot)) {
-                suggestions.add(currentSlot);
-                slotsSuggested++;
-            }
-            currentSlot = currentSlot.plusHours(1);
+        return AvailabilityIndex.getInstance().findEarliestSlots(doctorIds, LocalDateTime.now(),
+                Constants.APPOINTMENT_MINUTES, maxSlots, Constants.SLOT_SEARCH_DAYS);
+    }
+    
+    /**
+     * Forecast daily appointment demand for a specialization, starting today
+     * @param specialization Specialization
+     * @param days Number of days (e.g. Constants.FORECAST_HORIZON_DAYS)
+     * @return Map of day to expected appointments, in day order
+     * @throws SQLException if database operation fails
+     */
+    public Map<LocalDate, Double> forecastDemand(Specialization specialization, int days) throws SQLException {
+        return DemandForecaster.getInstance().forecastSpecialization(specialization, days);
+    }
+    
+    /**
+     * Forecast a doctor's daily appointment demand, starting today
+     * @param doctorId Doctor ID
+     * @param days Number of days (e.g. Constants.FORECAST_HORIZON_DAYS)
+     * @return Map of day to expected appointments, in day order
+     * @throws SQLException if database operation fails
+     */
+    public Map<LocalDate, Double> forecastDoctorDemand(int doctorId, int days) throws SQLException {
+        return DemandForecaster.getInstance().forecastDoctor(doctorId, days);
+    }
+    
+    /**
+     * Find doctors by specialization, from the read model when available
+     * @param specialization Specialization
+     * @return List of doctors
+     * @throws SQLException if database operation fails
+     */
+    private List<Doctor> findDoctorsBySpecialization(Specialization specialization) throws SQLException {
+        if (readModel.isActive()) {
+            return readModel.findDoctorsBySpecialization(specialization);
         }
-        
-        return suggestions;
+        return doctorRepository.findBySpecialization(specialization);
     }
     
     /**
-     * Find the least busy doctor from a list
+     * Find the least busy doctor from a list: fewest upcoming appointments
+     * relative to free slots in the next LOAD_WINDOW_DAYS days. Upcoming counts
+     * come from one cached grouped query and free slots from the availability
+     * bitmaps, so this is O(candidates) with no per-doctor queries.
      * @param doctors List of doctors
      * @return Least busy doctor
+     * @throws SQLException if the load counts have to be reloaded and the query fails
      */
-    private Doctor findLeastBusyDoctor(List<Doctor> doctors) {
+    private Doctor findLeastBusyDoctor(List<Doctor> doctors) throws SQLException {
         if (doctors.isEmpty()) {
             return null;
         }
@@ -144,7 +157,18 @@ public class AIHelper {
             return doctors.get(0);
         }
         
-        return doctors.get(0);
+        DoctorLoadCache loadCache = DoctorLoadCache.getInstance();
+        AvailabilityIndex availability = AvailabilityIndex.getInstance();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, Integer> upcoming = new HashMap<>();
+        Map<Integer, Integer> freeSlots = new HashMap<>();
+        for (Doctor doctor : doctors) {
+            upcoming.put(doctor.getId(), loadCache.upcomingCount(doctor.getId()));
+            freeSlots.put(doctor.getId(), availability.countFreeSlots(doctor.getId(), now, Constants.LOAD_WINDOW_DAYS));
+        }
+        
+        return DoctorLoadCache.pickLeastBusy(doctors, doctor -> upcoming.get(doctor.getId()),
+                doctor -> freeSlots.get(doctor.getId()));
     }
 }
 
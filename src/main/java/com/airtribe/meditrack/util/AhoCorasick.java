@@ -0,0 +1,220 @@
+package com.airtribe.meditrack.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton for finding every occurrence of a set of patterns in
+ * one left-to-right pass over the text, in O(text length + matches) whatever
+ * the number of patterns. Each pattern carries an int id chosen by the caller.
+ * The automaton is compiled into flat arrays (children of a state are a sorted
+ * slice of one char array), so matching allocates nothing. Immutable and
+ * thread-safe once built.
+ */
+public final class AhoCorasick {
+    
+    /**
+     * Receives the matches of a search
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        /**
+         * Called for each occurrence, in order of end position
+         * @param patternId ID the pattern was added with
+         * @param start Index of the first matched character
+         * @param end Index after the last matched character
+         */
+        void onMatch(int patternId, int start, int end);
+    }
+    
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    
+    // Children of state s are childLabels/childTargets[childStart[s] .. childStart[s + 1])
+    private final int[] childStart;
+    private final char[] childLabels;
+    private final int[] childTargets;
+    private final int[] fail;
+    // Pattern ending at a state, and the nearest state on the fail chain that ends a pattern
+    private final int[] patternAt;
+    private final int[] outputLink;
+    private final int[] depth;
+    private final int patternCount;
+    
+    private AhoCorasick(int[] childStart, char[] childLabels, int[] childTargets, int[] fail,
+                        int[] patternAt, int[] outputLink, int[] depth, int patternCount) {
+        this.childStart = childStart;
+        this.childLabels = childLabels;
+        this.childTargets = childTargets;
+        this.fail = fail;
+        this.patternAt = patternAt;
+        this.outputLink = outputLink;
+        this.depth = depth;
+        this.patternCount = patternCount;
+    }
+    
+    /**
+     * Find all pattern occurrences, including overlapping ones
+     * @param text Text to search
+     * @param consumer Receives each match
+     */
+    public void search(CharSequence text, MatchConsumer consumer) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = child(state, c);
+            while (next == NONE && state != ROOT) {
+                state = fail[state];
+                next = child(state, c);
+            }
+            state = next == NONE ? ROOT : next;
+            
+            int match = patternAt[state] != NONE ? state : outputLink[state];
+            while (match != NONE) {
+                consumer.onMatch(patternAt[match], i + 1 - depth[match], i + 1);
+                match = outputLink[match];
+            }
+        }
+    }
+    
+    /**
+     * Number of distinct patterns
+     * @return Pattern count
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+    
+    /**
+     * Number of automaton states
+     * @return State count
+     */
+    public int getStateCount() {
+        return fail.length;
+    }
+    
+    private int child(int state, char c) {
+        return findChild(childStart, childLabels, childTargets, state, c);
+    }
+    
+    private static int findChild(int[] childStart, char[] childLabels, int[] childTargets, int state, char c) {
+        int index = Arrays.binarySearch(childLabels, childStart[state], childStart[state + 1], c);
+        return index >= 0 ? childTargets[index] : NONE;
+    }
+    
+    /**
+     * Collects patterns and compiles the automaton. Not thread-safe.
+     */
+    public static final class Builder {
+        private final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        private final List<Integer> patternAt = new ArrayList<>();
+        private int patternCount;
+        
+        public Builder() {
+            newState();
+        }
+        
+        /**
+         * Add a pattern; adding the same pattern again replaces its id
+         * @param pattern Non-empty pattern
+         * @param patternId ID reported for its matches (non-negative)
+         * @return This builder
+         */
+        public Builder add(String pattern, int patternId) {
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern must not be empty");
+            }
+            if (patternId < 0) {
+                throw new IllegalArgumentException("Pattern ID must not be negative: " + patternId);
+            }
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = children.get(state).get(pattern.charAt(i));
+                if (next == null) {
+                    next = newState();
+                    children.get(state).put(pattern.charAt(i), next);
+                }
+                state = next;
+            }
+            if (patternAt.get(state) == NONE) {
+                patternCount++;
+            }
+            patternAt.set(state, patternId);
+            return this;
+        }
+        
+        /**
+         * Compile the automaton
+         * @return Automaton for the patterns added so far
+         */
+        public AhoCorasick build() {
+            int states = children.size();
+            int[] childStart = new int[states + 1];
+            int edges = 0;
+            for (int s = 0; s < states; s++) {
+                childStart[s] = edges;
+                edges += children.get(s).size();
+            }
+            childStart[states] = edges;
+            char[] childLabels = new char[edges];
+            int[] childTargets = new int[edges];
+            for (int s = 0; s < states; s++) {
+                int e = childStart[s];
+                // TreeMap iterates in label order, as child() expects
+                for (Map.Entry<Character, Integer> entry : children.get(s).entrySet()) {
+                    childLabels[e] = entry.getKey();
+                    childTargets[e++] = entry.getValue();
+                }
+            }
+            
+            int[] fail = new int[states];
+            int[] outputLink = new int[states];
+            int[] depth = new int[states];
+            int[] patterns = new int[states];
+            for (int s = 0; s < states; s++) {
+                patterns[s] = patternAt.get(s);
+            }
+            Arrays.fill(outputLink, NONE);
+            
+            // Breadth-first, so the fail target of a state is always finished before the state
+            int[] queue = new int[states];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = ROOT;
+            while (head < tail) {
+                int state = queue[head++];
+                for (int e = childStart[state]; e < childStart[state + 1]; e++) {
+                    int next = childTargets[e];
+                    char c = childLabels[e];
+                    depth[next] = depth[state] + 1;
+                    if (state == ROOT) {
+                        fail[next] = ROOT;
+                    } else {
+                        int f = fail[state];
+                        int target = findChild(childStart, childLabels, childTargets, f, c);
+                        while (target == NONE && f != ROOT) {
+                            f = fail[f];
+                            target = findChild(childStart, childLabels, childTargets, f, c);
+                        }
+                        fail[next] = target == NONE ? ROOT : target;
+                    }
+                    int suffix = fail[next];
+                    outputLink[next] = patterns[suffix] != NONE ? suffix : outputLink[suffix];
+                    queue[tail++] = next;
+                }
+            }
+            return new AhoCorasick(childStart, childLabels, childTargets, fail, patterns, outputLink, depth,
+                    patternCount);
+        }
+        
+        private int newState() {
+            children.add(new TreeMap<>());
+            patternAt.add(NONE);
+            return children.size() - 1;
+        }
+    }
+}
+
@@ -1,27 +1,40 @@
 package com.airtribe.meditrack.util;
 
 import com.airtribe.meditrack.entity.Appointment;
-import com.airtribe.meditrack.entity.Bill;
 import com.airtribe.meditrack.entity.Doctor;
 import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Constants;
 import com.airtribe.meditrack.repository.AppointmentRepository;
-import com.airtribe.meditrack.repository.BillRepository;
 import com.airtribe.meditrack.repository.DoctorRepository;
+import com.airtribe.meditrack.repository.DoctorStatsRepository;
+import com.airtribe.meditrack.repository.PatientRepository;
+import com.airtribe.meditrack.repository.PatientSketchRepository;
+import com.airtribe.meditrack.repository.RevenueRollupRepository;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class AnalyticsUtil {
     
     private final AppointmentRepository appointmentRepository;
-    private final BillRepository billRepository;
     private final DoctorRepository doctorRepository;
-
+    private final PatientRepository patientRepository;
+    private final DoctorStatsRepository doctorStatsRepository;
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final PatientSketchRepository patientSketchRepository;
+    
     public AnalyticsUtil() {
         this.appointmentRepository = new AppointmentRepository();
-        this.billRepository = new BillRepository();
         this.doctorRepository = new DoctorRepository();
+        this.patientRepository = new PatientRepository();
+        this.doctorStatsRepository = new DoctorStatsRepository();
+        this.revenueRollupRepository = new RevenueRollupRepository();
+        this.patientSketchRepository = new PatientSketchRepository();
     }
     
     /**
@@ -50,52 +63,227 @@ public class AnalyticsUtil {
     }
     
     /**
-     * Get appointments per doctor using streams
+     * Get appointments per doctor (not cancelled) from the maintained counters
      * @return Map of doctor ID to appointment count
      * @throws SQLException if database operation fails
      */
     public Map<Integer, Long> getAppointmentsPerDoctor() throws SQLException {
-        return appointmentRepository.findAll().stream()
-                .filter(apt -> apt.getStatus() != AppointmentStatus.CANCELLED)
-                .collect(Collectors.groupingBy(
-                        Appointment::getDoctorId,
-                        Collectors.counting()
-                ));
+        return doctorStatsRepository.countPerDoctorExcluding(AppointmentStatus.CANCELLED);
+    }
+    
+    /**
+     * Get one doctor's appointment counts by status from the maintained counters
+     * @param doctorId Doctor ID
+     * @return Count per status
+     * @throws SQLException if database operation fails
+     */
+    public Map<AppointmentStatus, Long> getAppointmentCountsByStatus(int doctorId) throws SQLException {
+        return doctorStatsRepository.findCountsByDoctorId(doctorId);
+    }
+    
+    /**
+     * Calculate total revenue (paid bills) from the revenue rollups
+     * @return Total revenue in cents
+     * @throws SQLException if database operation fails
+     */
+    public long calculateTotalRevenueCents() throws SQLException {
+        return revenueRollupRepository.totalPaidCents();
+    }
+    
+    /**
+     * Calculate revenue (paid bills) for a date range from the revenue rollups
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Revenue in the range, in cents
+     * @throws SQLException if database operation fails
+     */
+    public long calculateRevenueCents(LocalDate from, LocalDate to) throws SQLException {
+        return revenueRollupRepository.sumPaidCents(from, to);
+    }
+    
+    /**
+     * Get revenue per day for a date range
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Map of day to revenue in cents, in date order (days without revenue are left out)
+     * @throws SQLException if database operation fails
+     */
+    public Map<LocalDate, Long> getRevenueCentsByDay(LocalDate from, LocalDate to) throws SQLException {
+        return revenueRollupRepository.sumPaidCentsByDay(from, to);
+    }
+    
+    /**
+     * Get revenue per month for a date range
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Map of month to revenue in cents, in month order
+     * @throws SQLException if database operation fails
+     */
+    public Map<YearMonth, Long> getRevenueCentsByMonth(LocalDate from, LocalDate to) throws SQLException {
+        return revenueRollupRepository.sumPaidCentsByMonth(from, to);
+    }
+    
+    /**
+     * Get revenue per doctor for a date range
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Map of doctor ID to revenue in cents
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, Long> getRevenueCentsByDoctor(LocalDate from, LocalDate to) throws SQLException {
+        return new TreeMap<>(revenueRollupRepository.sumPaidCentsByDoctor(from, to));
+    }
+    
+    /**
+     * Get revenue per specialization for a date range
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return Map of specialization name to revenue in cents
+     * @throws SQLException if database operation fails
+     */
+    public Map<String, Long> getRevenueCentsBySpecialization(LocalDate from, LocalDate to) throws SQLException {
+        return new TreeMap<>(revenueRollupRepository.sumPaidCentsBySpecialization(from, to));
+    }
+    
+    /**
+     * Estimate distinct patients seen in a month range by merging the stored
+     * HyperLogLog sketches (about 1.6% standard error, near exact for small counts)
+     * @param from First month (inclusive)
+     * @param to Last month (inclusive)
+     * @return Estimated number of distinct patients
+     * @throws SQLException if database operation fails
+     */
+    public long estimateUniquePatients(YearMonth from, YearMonth to) throws SQLException {
+        return patientSketchRepository.mergeAll(from, to).estimate();
+    }
+    
+    /**
+     * Estimate distinct patients per doctor in a month range
+     * @param from First month (inclusive)
+     * @param to Last month (inclusive)
+     * @return Map of doctor ID to estimated distinct patients
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, Long> estimateUniquePatientsByDoctor(YearMonth from, YearMonth to) throws SQLException {
+        return toEstimates(patientSketchRepository.mergeByDoctor(from, to), new TreeMap<>());
     }
     
     /**
-     * Calculate total revenue using streams
-     * @return Total revenue
+     * Estimate distinct patients per month in a month range
+     * @param from First month (inclusive)
+     * @param to Last month (inclusive)
+     * @return Map of month to estimated distinct patients, in month order
      * @throws SQLException if database operation fails
      */
-    public double calculateTotalRevenue() throws SQLException {
-        return billRepository.findAll().stream()
-                .filter(bill -> "PAID".equalsIgnoreCase(bill.getPaymentStatus()))
-                .mapToDouble(Bill::getTotalAmount)
-                .sum();
+    public Map<YearMonth, Long> estimateUniquePatientsByMonth(YearMonth from, YearMonth to) throws SQLException {
+        return toEstimates(patientSketchRepository.mergeByMonth(from, to), new TreeMap<>());
     }
     
     /**
-     * Get most booked doctors using streams
+     * Estimate distinct patients per specialization in a month range
+     * (a patient seeing two doctors of one specialization counts once)
+     * @param from First month (inclusive)
+     * @param to Last month (inclusive)
+     * @return Map of specialization name to estimated distinct patients
+     * @throws SQLException if database operation fails
+     */
+    public Map<String, Long> estimateUniquePatientsBySpecialization(YearMonth from, YearMonth to) throws SQLException {
+        return toEstimates(patientSketchRepository.mergeBySpecialization(from, to), new TreeMap<>());
+    }
+    
+    /**
+     * Get most booked doctors (bounded-heap top-k, one batch query for the doctors)
      * @param limit Number of top doctors to return
      * @return List of doctors sorted by appointment count
      * @throws SQLException if database operation fails
      */
     public List<Doctor> getMostBookedDoctors(int limit) throws SQLException {
-        Map<Integer, Long> appointmentsPerDoctor = getAppointmentsPerDoctor();
-        
-        return appointmentsPerDoctor.entrySet().stream()
-                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
-                .limit(limit)
-                .map(entry -> {
-                    try {
-                        return doctorRepository.findById(entry.getKey());
-                    } catch (SQLException e) {
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return doctorRepository.findByIds(TopK.largestKeys(getAppointmentsPerDoctor(), limit));
+    }
+    
+    /**
+     * Get the doctors booked most often in the last hour (streaming estimate)
+     * @param limit Number of top doctors to return
+     * @return List of doctors, most booked first
+     * @throws SQLException if database operation fails
+     */
+    public List<Doctor> getMostBookedDoctorsLastHour(int limit) throws SQLException {
+        return findDoctors(BookingTrends.getInstance().mostBookedLastHour(limit));
+    }
+    
+    /**
+     * Get the doctors booked most often in the last day (streaming estimate)
+     * @param limit Number of top doctors to return
+     * @return List of doctors, most booked first
+     * @throws SQLException if database operation fails
+     */
+    public List<Doctor> getMostBookedDoctorsLastDay(int limit) throws SQLException {
+        return findDoctors(BookingTrends.getInstance().mostBookedLastDay(limit));
+    }
+    
+    private List<Doctor> findDoctors(List<SlidingHeavyHitters.Entry> ranking) throws SQLException {
+        List<Integer> ids = new ArrayList<>(ranking.size());
+        for (SlidingHeavyHitters.Entry entry : ranking) {
+            ids.add(entry.getKey());
+        }
+        return doctorRepository.findByIds(ids);
+    }
+    
+    /**
+     * Get a latency distribution over all doctors (p50/p90/p99 via valueAtPercentile)
+     * @param metric Lead time (booking to appointment) or confirmation wait
+     * @return Histogram in minutes
+     * @throws SQLException if database operation fails
+     */
+    public LogHistogram getLatency(AppointmentLatency.Metric metric) throws SQLException {
+        return AppointmentLatency.getInstance().overall(metric);
+    }
+    
+    /**
+     * Get latency distributions per doctor
+     * @param metric Lead time (booking to appointment) or confirmation wait
+     * @return Map of doctor ID to histogram in minutes
+     * @throws SQLException if database operation fails
+     */
+    public Map<Integer, LogHistogram> getLatencyByDoctor(AppointmentLatency.Metric metric)
+            throws SQLException {
+        return AppointmentLatency.getInstance().byDoctor(metric);
+    }
+    
+    /**
+     * Get latency distributions per specialization, merged from the doctors' histograms
+     * @param metric Lead time (booking to appointment) or confirmation wait
+     * @return Map of specialization name to histogram in minutes
+     * @throws SQLException if database operation fails
+     */
+    public Map<String, LogHistogram> getLatencyBySpecialization(AppointmentLatency.Metric metric)
+            throws SQLException {
+        Map<Integer, Doctor> doctorsById = new HashMap<>();
+        doctorRepository.forEach(doctor -> doctorsById.put(doctor.getId(), doctor));
+        return mergeBySpecialization(getLatencyByDoctor(metric), doctorsById);
+    }
+    
+    /**
+     * Compute monthly patient cohorts (by first visit) with their return rates in
+     * M+1 .. M+12 and the days between visits, from one ordered pass over the
+     * non-cancelled appointments up to now (future bookings are not visits yet)
+     * @return Cohort retention matrix
+     * @throws SQLException if database operation fails
+     */
+    public CohortRetention getCohortRetention() throws SQLException {
+        CohortRetention.Builder builder = new CohortRetention.Builder();
+        appointmentRepository.forEachVisitByPatient(LocalDateTime.now(), builder::add);
+        return builder.build();
+    }
+    
+    /**
+     * Load all appointments and their bills into a columnar table for ad-hoc
+     * scans, filters and group-bys over primitive arrays
+     * @return Columnar appointments
+     * @throws SQLException if database operation fails
+     */
+    public AppointmentColumns loadAppointmentColumns() throws SQLException {
+        return appointmentRepository.loadColumns();
     }
     
     /**
@@ -111,14 +299,12 @@ public class AnalyticsUtil {
     }
     
     /**
-     * Get confirmed appointments count using streams
+     * Get confirmed appointments count from the maintained counters
      * @return Count of confirmed appointments
      * @throws SQLException if database operation fails
      */
     public long getConfirmedAppointmentsCount() throws SQLException {
-        return appointmentRepository.findAll().stream()
-                .filter(apt -> apt.getStatus() == AppointmentStatus.CONFIRMED)
-                .count();
+        return doctorStatsRepository.countByStatus(AppointmentStatus.CONFIRMED);
     }
     
     /**
@@ -135,40 +321,221 @@ public class AnalyticsUtil {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Count patients per age bucket without loading patient rows
+     * Built from per-birth-year counts, with age as in Person.getAge()
+     * @param bucketSize Bucket width in years (e.g. 10 gives "0-9", "10-19", ...)
+     * @return Map of bucket label to patient count, youngest bucket first
+     * @throws SQLException if database operation fails
+     */
+    public Map<String, Integer> getPatientAgeDistribution(int bucketSize) throws SQLException {
+        return bucketByAge(patientRepository.countByBirthYear(), bucketSize);
+    }
+    
     /**
      * Generate analytics report
+     * All metrics are planned up front and computed from one read of each source
+     * (doctors, doctor_stats, revenue_monthly, patient birth years, and the latency
+     * histograms, which read appointment booking times only the first time they
+     * are used); the reads run concurrently and every metric's accumulator is fed
+     * from the shared pass.
      * @return Analytics report as string
      * @throws SQLException if database operation fails
      */
     public String generateAnalyticsReport() throws SQLException {
+        ScanPlan plan = new ScanPlan();
+        int currentYear = LocalDate.now().getYear();
+        
+        DoubleSummaryStatistics fees = new DoubleSummaryStatistics();
+        Map<Integer, Doctor> doctorsById = new HashMap<>();
+        plan.source("doctors", doctorRepository::forEach)
+                .accumulate(doctor -> fees.accept(doctor.getConsultationFee()))
+                .accumulate(doctor -> doctorsById.put(doctor.getId(), doctor));
+        
+        Map<AppointmentStatus, Long> statusTotals = new EnumMap<>(AppointmentStatus.class);
+        Map<Integer, Long> bookingsPerDoctor = new HashMap<>();
+        plan.source("doctor_stats", doctorStatsRepository::forEach)
+                .accumulate(row -> statusTotals.merge(row.getStatus(), row.getCount(), Long::sum))
+                .accumulate(row -> {
+                    if (row.getStatus() != AppointmentStatus.CANCELLED) {
+                        bookingsPerDoctor.merge(row.getDoctorId(), row.getCount(), Long::sum);
+                    }
+                });
+        
+        LongAdder totalCents = new LongAdder();
+        Map<Integer, Long> yearCentsByDoctor = new HashMap<>();
+        plan.source("revenue_monthly", revenueRollupRepository::forEachMonth)
+                .accumulate(row -> totalCents.add(row.getPaidCents()))
+                .accumulate(row -> {
+                    if (row.getMonth().getYear() == currentYear) {
+                        yearCentsByDoctor.merge(row.getDoctorId(), row.getPaidCents(), Long::sum);
+                    }
+                });
+        
+        Map<Integer, Integer> patientsByBirthYear = new TreeMap<>();
+        ScanPlan.Scanner<Map<Integer, Integer>> birthYears = sink -> sink.accept(patientRepository.countByBirthYear());
+        plan.source("patients", birthYears).accumulate(patientsByBirthYear::putAll);
+        
+        Map<AppointmentLatency.Metric, Map<Integer, LogHistogram>> latencyByDoctor =
+                new EnumMap<>(AppointmentLatency.Metric.class);
+        ScanPlan.Scanner<Map<AppointmentLatency.Metric, Map<Integer, LogHistogram>>> latencies = sink -> {
+            Map<AppointmentLatency.Metric, Map<Integer, LogHistogram>> byMetric =
+                    new EnumMap<>(AppointmentLatency.Metric.class);
+            for (AppointmentLatency.Metric metric : AppointmentLatency.Metric.values()) {
+                byMetric.put(metric, getLatencyByDoctor(metric));
+            }
+            sink.accept(byMetric);
+        };
+        plan.source("appointment booking times", latencies).accumulate(latencyByDoctor::putAll);
+        
+        plan.execute();
+        
+        Map<String, Long> yearCentsBySpecialization = new TreeMap<>();
+        for (Map.Entry<Integer, Long> entry : yearCentsByDoctor.entrySet()) {
+            Doctor doctor = doctorsById.get(entry.getKey());
+            String specialization = doctor == null ? "UNKNOWN" : doctor.getSpecialization().name();
+            yearCentsBySpecialization.merge(specialization, entry.getValue(), Long::sum);
+        }
+        
         StringBuilder report = new StringBuilder();
         report.append("=== MEDITRACK ANALYTICS REPORT ===\n\n");
         
         report.append("Average Consultation Fee: $")
-                .append(String.format("%.2f", calculateAverageConsultationFee()))
+                .append(String.format("%.2f", fees.getAverage()))
                 .append("\n");
         
         report.append("Total Revenue: $")
-                .append(String.format("%.2f", calculateTotalRevenue()))
+                .append(Money.format(totalCents.sum()))
                 .append("\n");
         
         report.append("Confirmed Appointments: ")
-                .append(getConfirmedAppointmentsCount())
+                .append(statusTotals.getOrDefault(AppointmentStatus.CONFIRMED, 0L))
                 .append("\n");
         
         report.append("\nTop 3 Most Booked Doctors:\n");
-        List<Doctor> topDoctors = getMostBookedDoctors(3);
-        for (int i = 0; i < topDoctors.size(); i++) {
-            Doctor doctor = topDoctors.get(i);
-            report.append((i + 1))
-                    .append(". ")
-                    .append(doctor.getName())
-                    .append(" - ")
-                    .append(doctor.getSpecialization())
+        int rank = 0;
+        for (int doctorId : TopK.largestKeys(bookingsPerDoctor, 3)) {
+            Doctor doctor = doctorsById.get(doctorId);
+            if (doctor != null) {
+                report.append(++rank)
+                        .append(". ")
+                        .append(doctor.getName())
+                        .append(" - ")
+                        .append(doctor.getSpecialization())
+                        .append("\n");
+            }
+        }
+        
+        report.append("\nMost Booked in the Last 24 Hours:\n");
+        rank = 0;
+        for (SlidingHeavyHitters.Entry entry : BookingTrends.getInstance().mostBookedLastDay(3)) {
+            Doctor doctor = doctorsById.get(entry.getKey());
+            if (doctor != null) {
+                report.append(++rank)
+                        .append(". ")
+                        .append(doctor.getName())
+                        .append("\n");
+            }
+        }
+        
+        report.append("\nRevenue by Specialization (").append(currentYear).append("):\n");
+        for (Map.Entry<String, Long> entry : yearCentsBySpecialization.entrySet()) {
+            report.append(entry.getKey())
+                    .append(": $")
+                    .append(Money.format(entry.getValue()))
+                    .append("\n");
+        }
+        
+        report.append("\nBooking Lead Time (p50 / p90 / p99):\n");
+        appendLatencies(report, latencyByDoctor.get(AppointmentLatency.Metric.LEAD_TIME), doctorsById);
+        
+        report.append("\nConfirmation Wait (p50 / p90 / p99):\n");
+        appendLatencies(report, latencyByDoctor.get(AppointmentLatency.Metric.CONFIRMATION_WAIT), doctorsById);
+        
+        report.append("\nPatients by Age:\n");
+        for (Map.Entry<String, Integer> entry : bucketByAge(patientsByBirthYear, Constants.AGE_BUCKET_SIZE).entrySet()) {
+            report.append(entry.getKey())
+                    .append(": ")
+                    .append(entry.getValue())
                     .append("\n");
         }
         
         return report.toString();
     }
+    
+    private void appendLatencies(StringBuilder report, Map<Integer, LogHistogram> byDoctor,
+                                 Map<Integer, Doctor> doctorsById) {
+        LogHistogram overall = AppointmentLatency.emptyHistogram();
+        for (LogHistogram histogram : byDoctor.values()) {
+            overall.merge(histogram);
+        }
+        appendLatency(report, "All", overall);
+        for (Map.Entry<String, LogHistogram> entry : mergeBySpecialization(byDoctor, doctorsById).entrySet()) {
+            appendLatency(report, entry.getKey(), entry.getValue());
+        }
+    }
+    
+    private static void appendLatency(StringBuilder report, String label, LogHistogram histogram) {
+        report.append(label).append(": ");
+        if (histogram.getCount() == 0) {
+            report.append("no data\n");
+            return;
+        }
+        report.append(formatMinutes(histogram.valueAtPercentile(50)))
+                .append(" / ")
+                .append(formatMinutes(histogram.valueAtPercentile(90)))
+                .append(" / ")
+                .append(formatMinutes(histogram.valueAtPercentile(99)))
+                .append(" (n=")
+                .append(histogram.getCount())
+                .append(")\n");
+    }
+    
+    private static String formatMinutes(long minutes) {
+        if (minutes < 60) {
+            return minutes + "m";
+        }
+        if (minutes < 24 * 60) {
+            return minutes / 60 + "h " + minutes % 60 + "m";
+        }
+        return minutes / (24 * 60) + "d " + minutes % (24 * 60) / 60 + "h";
+    }
+    
+    private static Map<String, LogHistogram> mergeBySpecialization(Map<Integer, LogHistogram> byDoctor,
+                                                                  Map<Integer, Doctor> doctorsById) {
+        Map<String, LogHistogram> merged = new TreeMap<>();
+        for (Map.Entry<Integer, LogHistogram> entry : byDoctor.entrySet()) {
+            Doctor doctor = doctorsById.get(entry.getKey());
+            String specialization = doctor == null ? "UNKNOWN" : doctor.getSpecialization().name();
+            merged.computeIfAbsent(specialization, key -> AppointmentLatency.emptyHistogram())
+                    .merge(entry.getValue());
+        }
+        return merged;
+    }
+    
+    private static Map<String, Integer> bucketByAge(Map<Integer, Integer> countsByBirthYear, int bucketSize) {
+        int width = Math.max(1, bucketSize);
+        int currentYear = LocalDate.now().getYear();
+        Map<Integer, Integer> countsByBucket = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> entry : countsByBirthYear.entrySet()) {
+            int age = Math.max(0, currentYear - entry.getKey());
+            countsByBucket.merge(age / width, entry.getValue(), Integer::sum);
+        }
+        
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : countsByBucket.entrySet()) {
+            int start = entry.getKey() * width;
+            String label = width == 1 ? String.valueOf(start) : start + "-" + (start + width - 1);
+            distribution.put(label, entry.getValue());
+        }
+        return distribution;
+    }
+    
+    private static <K> Map<K, Long> toEstimates(Map<K, HyperLogLog> sketches, Map<K, Long> estimates) {
+        for (Map.Entry<K, HyperLogLog> entry : sketches.entrySet()) {
+            estimates.put(entry.getKey(), entry.getValue().estimate());
+        }
+        return estimates;
+    }
 }
 
@@ -0,0 +1,424 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.AppointmentStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented, read-only copy of appointments joined with their bills.
+ * One primitive array per attribute instead of one object per row, so a
+ * report over tens of millions of appointments is a handful of tight loops
+ * over contiguous memory. Scans run over fixed-size segments in parallel
+ * and merge per-segment partial results.
+ */
+public final class AppointmentColumns {
+    
+    /** Billing state of an appointment */
+    public static final byte NOT_BILLED = 0;
+    public static final byte UNPAID = 1;
+    public static final byte PAID = 2;
+    
+    private static final int SEGMENT_ROWS = 1 << 20;
+    private static final int GROUP_NONE = 0;
+    private static final int GROUP_DOCTOR = 1;
+    private static final int GROUP_STATUS = 2;
+    
+    private final int size;
+    private final int[] doctorIds;
+    private final int[] patientIds;
+    private final int[] epochMinutes;
+    private final byte[] statusOrdinals;
+    private final long[] amountCents;
+    private final byte[] billStates;
+    private final int maxDoctorId;
+    
+    private AppointmentColumns(Appender appender) {
+        this.size = appender.size;
+        this.doctorIds = appender.doctorIds;
+        this.patientIds = appender.patientIds;
+        this.epochMinutes = appender.epochMinutes;
+        this.statusOrdinals = appender.statusOrdinals;
+        this.amountCents = appender.amountCents;
+        this.billStates = appender.billStates;
+        this.maxDoctorId = appender.maxDoctorId;
+    }
+    
+    /**
+     * Number of appointments
+     * @return Row count
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Highest doctor ID; arrays grouped by doctor have this length plus one
+     * @return Maximum doctor ID (0 if empty)
+     */
+    public int maxDoctorId() {
+        return maxDoctorId;
+    }
+    
+    /**
+     * Count matching appointments
+     * @param filter Row filter
+     * @return Count
+     */
+    public long count(Filter filter) {
+        return aggregate(filter, GROUP_NONE, false)[0];
+    }
+    
+    /**
+     * Sum the bill amounts of matching appointments
+     * @param filter Row filter
+     * @return Total in cents
+     */
+    public long sumAmountCents(Filter filter) {
+        return aggregate(filter, GROUP_NONE, true)[0];
+    }
+    
+    /**
+     * Count matching appointments per doctor
+     * @param filter Row filter
+     * @return Counts indexed by doctor ID
+     */
+    public long[] countByDoctor(Filter filter) {
+        return aggregate(filter, GROUP_DOCTOR, false);
+    }
+    
+    /**
+     * Sum the bill amounts of matching appointments per doctor
+     * @param filter Row filter
+     * @return Totals in cents indexed by doctor ID
+     */
+    public long[] sumAmountCentsByDoctor(Filter filter) {
+        return aggregate(filter, GROUP_DOCTOR, true);
+    }
+    
+    /**
+     * Count matching appointments per status
+     * @param filter Row filter
+     * @return Counts indexed by AppointmentStatus ordinal
+     */
+    public long[] countByStatus(Filter filter) {
+        return aggregate(filter, GROUP_STATUS, false);
+    }
+    
+    /**
+     * Positions of the matching rows
+     * @param filter Row filter
+     * @return Row positions in ascending order
+     */
+    public int[] select(Filter filter) {
+        return IntStream.range(0, segmentCount()).parallel()
+                .mapToObj(segment -> selectSegment(filter, segment))
+                .flatMapToInt(Arrays::stream)
+                .toArray();
+    }
+    
+    /**
+     * Doctor ID of a row
+     * @param row Row position
+     * @return Doctor ID
+     */
+    public int doctorId(int row) {
+        return doctorIds[row];
+    }
+    
+    /**
+     * Patient ID of a row
+     * @param row Row position
+     * @return Patient ID
+     */
+    public int patientId(int row) {
+        return patientIds[row];
+    }
+    
+    /**
+     * Appointment time of a row
+     * @param row Row position
+     * @return Minutes since 1970-01-01 00:00
+     */
+    public int epochMinute(int row) {
+        return epochMinutes[row];
+    }
+    
+    /**
+     * Status of a row
+     * @param row Row position
+     * @return Appointment status
+     */
+    public AppointmentStatus status(int row) {
+        return AppointmentStatus.values()[statusOrdinals[row]];
+    }
+    
+    /**
+     * Bill amount of a row
+     * @param row Row position
+     * @return Amount in cents (0 if not billed)
+     */
+    public long amountCents(int row) {
+        return amountCents[row];
+    }
+    
+    /**
+     * Billing state of a row
+     * @param row Row position
+     * @return NOT_BILLED, UNPAID or PAID
+     */
+    public byte billState(int row) {
+        return billStates[row];
+    }
+    
+    private int segmentCount() {
+        return (size + SEGMENT_ROWS - 1) / SEGMENT_ROWS;
+    }
+    
+    private long[] aggregate(Filter filter, int groupBy, boolean sumAmounts) {
+        int groups = groupBy == GROUP_DOCTOR ? maxDoctorId + 1
+                : groupBy == GROUP_STATUS ? AppointmentStatus.values().length : 1;
+        return IntStream.range(0, segmentCount()).parallel()
+                .mapToObj(segment -> {
+                    long[] partial = new long[groups];
+                    int from = segment * SEGMENT_ROWS;
+                    int to = Math.min(size, from + SEGMENT_ROWS);
+                    if (groupBy == GROUP_DOCTOR) {
+                        groupByDoctor(filter, sumAmounts, from, to, partial);
+                    } else if (groupBy == GROUP_STATUS) {
+                        countByStatus(filter, from, to, partial);
+                    } else {
+                        partial[0] = sumAmounts ? sum(filter, from, to) : count(filter, from, to);
+                    }
+                    return partial;
+                })
+                .reduce((a, b) -> {
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] += b[i];
+                    }
+                    return a;
+                })
+                .orElseGet(() -> new long[groups]);
+    }
+    
+    // One small loop per operator keeps each loop free of per-row dispatch.
+    // matches() evaluates every condition (non-short-circuit &), which avoids
+    // unpredictable branches and is cheaper than stopping early on this data.
+    
+    private long count(Filter f, int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            count += matches(f, i) ? 1 : 0;
+        }
+        return count;
+    }
+    
+    private long sum(Filter f, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += matches(f, i) ? amountCents[i] : 0;
+        }
+        return total;
+    }
+    
+    private void groupByDoctor(Filter f, boolean sumAmounts, int from, int to, long[] out) {
+        if (sumAmounts) {
+            for (int i = from; i < to; i++) {
+                out[doctorIds[i]] += matches(f, i) ? amountCents[i] : 0;
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                out[doctorIds[i]] += matches(f, i) ? 1 : 0;
+            }
+        }
+    }
+    
+    private void countByStatus(Filter f, int from, int to, long[] out) {
+        for (int i = from; i < to; i++) {
+            out[statusOrdinals[i]] += matches(f, i) ? 1 : 0;
+        }
+    }
+    
+    private int[] selectSegment(Filter f, int segment) {
+        int from = segment * SEGMENT_ROWS;
+        int to = Math.min(size, from + SEGMENT_ROWS);
+        int[] rows = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            rows[count] = i;
+            count += matches(f, i) ? 1 : 0;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+    
+    private boolean matches(Filter f, int i) {
+        int minute = epochMinutes[i];
+        return ((f.statusMask >>> statusOrdinals[i]) & 1) != 0
+                & ((f.billStateMask >>> billStates[i]) & 1) != 0
+                & minute >= f.fromMinute & minute < f.toMinute
+                & (f.doctorId < 0 | doctorIds[i] == f.doctorId);
+    }
+    
+    /**
+     * Immutable conjunction of row conditions; start from all() and narrow it down
+     */
+    public static final class Filter {
+        private static final Filter ALL = new Filter(-1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, -1);
+        
+        private final int statusMask;
+        private final int billStateMask;
+        private final int fromMinute;
+        private final int toMinute;
+        private final int doctorId;
+        
+        private Filter(int statusMask, int billStateMask, int fromMinute, int toMinute, int doctorId) {
+            this.statusMask = statusMask;
+            this.billStateMask = billStateMask;
+            this.fromMinute = fromMinute;
+            this.toMinute = toMinute;
+            this.doctorId = doctorId;
+        }
+        
+        /**
+         * Filter that matches every row
+         * @return Filter
+         */
+        public static Filter all() {
+            return ALL;
+        }
+        
+        /**
+         * Keep only some statuses
+         * @param statuses Statuses to keep
+         * @return New filter
+         */
+        public Filter withStatus(AppointmentStatus... statuses) {
+            int mask = 0;
+            for (AppointmentStatus status : statuses) {
+                mask |= 1 << status.ordinal();
+            }
+            return new Filter(statusMask & mask, billStateMask, fromMinute, toMinute, doctorId);
+        }
+        
+        /**
+         * Exclude one status
+         * @param status Status to drop
+         * @return New filter
+         */
+        public Filter withoutStatus(AppointmentStatus status) {
+            return new Filter(statusMask & ~(1 << status.ordinal()), billStateMask, fromMinute, toMinute, doctorId);
+        }
+        
+        /**
+         * Keep only some billing states
+         * @param states NOT_BILLED, UNPAID and/or PAID
+         * @return New filter
+         */
+        public Filter withBillState(byte... states) {
+            int mask = 0;
+            for (byte state : states) {
+                mask |= 1 << state;
+            }
+            return new Filter(statusMask, billStateMask & mask, fromMinute, toMinute, doctorId);
+        }
+        
+        /**
+         * Keep appointments in a time range
+         * @param from Start (inclusive)
+         * @param to End (exclusive)
+         * @return New filter
+         */
+        public Filter between(LocalDateTime from, LocalDateTime to) {
+            return new Filter(statusMask, billStateMask,
+                    Math.max(fromMinute, DateUtil.toEpochMinute(from)),
+                    Math.min(toMinute, DateUtil.toEpochMinute(to)), doctorId);
+        }
+        
+        /**
+         * Keep one doctor's appointments
+         * @param id Doctor ID
+         * @return New filter
+         */
+        public Filter forDoctor(int id) {
+            return new Filter(statusMask, billStateMask, fromMinute, toMinute, id);
+        }
+    }
+    
+    /**
+     * Append-only row buffer that becomes an AppointmentColumns with build()
+     */
+    public static final class Appender {
+        private int size;
+        private int[] doctorIds;
+        private int[] patientIds;
+        private int[] epochMinutes;
+        private byte[] statusOrdinals;
+        private long[] amountCents;
+        private byte[] billStates;
+        private int maxDoctorId;
+        
+        /**
+         * Create a buffer
+         * @param expectedRows Initial capacity (grows as needed)
+         */
+        public Appender(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            doctorIds = new int[capacity];
+            patientIds = new int[capacity];
+            epochMinutes = new int[capacity];
+            statusOrdinals = new byte[capacity];
+            amountCents = new long[capacity];
+            billStates = new byte[capacity];
+        }
+        
+        /**
+         * Add a row
+         * @param doctorId Doctor ID (non-negative)
+         * @param patientId Patient ID
+         * @param epochMinute Appointment time in minutes since 1970-01-01 00:00
+         * @param status Appointment status
+         * @param amountCents Bill amount in cents (0 if not billed)
+         * @param billState NOT_BILLED, UNPAID or PAID
+         */
+        public void add(int doctorId, int patientId, int epochMinute, AppointmentStatus status,
+                        long amountCents, byte billState) {
+            if (size == doctorIds.length) {
+                grow();
+            }
+            this.doctorIds[size] = doctorId;
+            this.patientIds[size] = patientId;
+            this.epochMinutes[size] = epochMinute;
+            this.statusOrdinals[size] = (byte) status.ordinal();
+            this.amountCents[size] = amountCents;
+            this.billStates[size] = billState;
+            this.maxDoctorId = Math.max(maxDoctorId, doctorId);
+            size++;
+        }
+        
+        /**
+         * Freeze the rows; the buffers are handed over, so the appender must not be used afterwards
+         * @return Columnar table
+         */
+        public AppointmentColumns build() {
+            if (size != doctorIds.length) {
+                resize(size);
+            }
+            return new AppointmentColumns(this);
+        }
+        
+        private void grow() {
+            resize(size + (size >> 1));
+        }
+        
+        private void resize(int capacity) {
+            doctorIds = Arrays.copyOf(doctorIds, capacity);
+            patientIds = Arrays.copyOf(patientIds, capacity);
+            epochMinutes = Arrays.copyOf(epochMinutes, capacity);
+            statusOrdinals = Arrays.copyOf(statusOrdinals, capacity);
+            amountCents = Arrays.copyOf(amountCents, capacity);
+            billStates = Arrays.copyOf(billStates, capacity);
+        }
+    }
+}
+
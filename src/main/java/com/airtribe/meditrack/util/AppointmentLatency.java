@@ -0,0 +1,178 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+import com.airtribe.meditrack.repository.AppointmentRepository;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Per-doctor latency distributions, in minutes:
+ * lead time (booking to appointment) and confirmation wait (booking to CONFIRMED).
+ * Recorded from appointment create and confirm events into log-bucketed
+ * histograms of fixed size. The histograms are built from the stored booking and
+ * confirmation timestamps on first use; until then events are not recorded, as
+ * the build reads them from the database. Histograms merge, so specialization
+ * and clinic-wide views are built by adding the doctors' histograms.
+ */
+public class AppointmentLatency {
+    
+    /**
+     * Which latency to report
+     */
+    public enum Metric {
+        LEAD_TIME,
+        CONFIRMATION_WAIT
+    }
+    
+    private static final Logger logger = Logger.getLogger(AppointmentLatency.class.getName());
+    
+    // 1.6% buckets up to about 30 years in minutes: 1280 counters per histogram
+    private static final int PRECISION_BITS = 6;
+    private static final long MAX_MINUTES = 1L << 24;
+    
+    private static volatile AppointmentLatency instance;
+    
+    private final AppointmentRepository appointmentRepository;
+    private final Map<Integer, LogHistogram> leadTimes = new HashMap<>();
+    private final Map<Integer, LogHistogram> confirmationWaits = new HashMap<>();
+    private boolean loaded;
+    
+    private AppointmentLatency() {
+        this.appointmentRepository = new AppointmentRepository();
+        EntityChangeNotifier.appointments().addListener(new EntityChangeListener<Appointment>() {
+            @Override
+            public void onCreated(Appointment entity) {
+                recordLeadTime(entity);
+            }
+            
+            @Override
+            public void onUpdated(Appointment previous, Appointment current) {
+                if (previous.getStatus() == AppointmentStatus.PENDING
+                        && current.getStatus() == AppointmentStatus.CONFIRMED) {
+                    recordConfirmationWait(current);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * @return AppointmentLatency instance
+     */
+    public static AppointmentLatency getInstance() {
+        if (instance == null) {
+            synchronized (AppointmentLatency.class) {
+                if (instance == null) {
+                    instance = new AppointmentLatency();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Rebuild all histograms from the appointments that have a booking time
+     * @throws SQLException if database operation fails
+     */
+    public synchronized void rebuild() throws SQLException {
+        leadTimes.clear();
+        confirmationWaits.clear();
+        long[] recorded = new long[1];
+        appointmentRepository.forEachBookingTimes((doctorId, bookedMinute, appointmentMinute, confirmedMinute) -> {
+            record(leadTimes, doctorId, bookedMinute, appointmentMinute);
+            record(confirmationWaits, doctorId, bookedMinute, confirmedMinute);
+            recorded[0]++;
+        });
+        loaded = true;
+        logger.info("Appointment latency histograms built (" + recorded[0] + " appointments)");
+    }
+    
+    /**
+     * Record the time from booking to the appointment
+     * @param appointment Appointment with a booking time
+     */
+    public synchronized void recordLeadTime(Appointment appointment) {
+        if (loaded) {
+            record(leadTimes, appointment.getDoctorId(), appointment.getCreatedAt(),
+                    appointment.getAppointmentDateTime());
+        }
+    }
+    
+    /**
+     * Record the time from booking to confirmation
+     * @param appointment Confirmed appointment with booking and confirmation times
+     */
+    public synchronized void recordConfirmationWait(Appointment appointment) {
+        if (loaded) {
+            record(confirmationWaits, appointment.getDoctorId(), appointment.getCreatedAt(),
+                    appointment.getConfirmedAt());
+        }
+    }
+    
+    /**
+     * Get a copy of each doctor's histogram
+     * @param metric Latency to report
+     * @return Map of doctor ID to histogram in minutes (doctors without data are left out)
+     * @throws SQLException if the histograms have to be built and the database read fails
+     */
+    public synchronized Map<Integer, LogHistogram> byDoctor(Metric metric) throws SQLException {
+        Map<Integer, LogHistogram> copies = new HashMap<>();
+        for (Map.Entry<Integer, LogHistogram> entry : loadedHistograms(metric).entrySet()) {
+            copies.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copies;
+    }
+    
+    /**
+     * Get the histogram over all doctors
+     * @param metric Latency to report
+     * @return Merged histogram in minutes
+     * @throws SQLException if the histograms have to be built and the database read fails
+     */
+    public synchronized LogHistogram overall(Metric metric) throws SQLException {
+        LogHistogram merged = emptyHistogram();
+        for (LogHistogram histogram : loadedHistograms(metric).values()) {
+            merged.merge(histogram);
+        }
+        return merged;
+    }
+    
+    /**
+     * Create an empty histogram with the layout used here (for merging)
+     * @return Empty histogram
+     */
+    public static LogHistogram emptyHistogram() {
+        return new LogHistogram(PRECISION_BITS, MAX_MINUTES);
+    }
+    
+    private Map<Integer, LogHistogram> loadedHistograms(Metric metric) throws SQLException {
+        if (!loaded) {
+            rebuild();
+        }
+        return metric == Metric.LEAD_TIME ? leadTimes : confirmationWaits;
+    }
+    
+    private static void record(Map<Integer, LogHistogram> histograms, int doctorId,
+                               LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            return;
+        }
+        record(histograms, doctorId, DateUtil.toEpochMinute(from), DateUtil.toEpochMinute(to));
+    }
+    
+    private static void record(Map<Integer, LogHistogram> histograms, int doctorId,
+                               int fromMinute, int toMinute) {
+        if (fromMinute == AppointmentRepository.MISSING_MINUTE || toMinute == AppointmentRepository.MISSING_MINUTE) {
+            return;
+        }
+        histograms.computeIfAbsent(doctorId, id -> emptyHistogram())
+                .record(Math.max(0, (long) toMinute - fromMinute));
+    }
+}
+
@@ -0,0 +1,535 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Constants;
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+import com.airtribe.meditrack.repository.AppointmentRepository;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Per-doctor, per-day booking bitmaps: one bit per SLOT_MINUTES slot of the
+ * day in a long[] (96 bits at 15 minutes). Bits are set and cleared from
+ * appointment events (booking, cancellation, rescheduling), so finding free
+ * time never queries appointments: free slots are the working-hours mask
+ * AND NOT the booked bits, and a free run of k slots is found by AND-ing the
+ * free bits with shifted copies of themselves. Days without bookings are not
+ * stored. Working hours default to Constants and can be set per doctor.
+ */
+public class AvailabilityIndex {
+    
+    private static final Logger logger = Logger.getLogger(AvailabilityIndex.class.getName());
+    
+    static final int SLOTS_PER_DAY = 24 * 60 / Constants.SLOT_MINUTES;
+    private static final int WORDS_PER_DAY = (SLOTS_PER_DAY + 63) / 64;
+    
+    /**
+     * Free-slot bitmaps of doctors by day (the index itself, or a copy of it)
+     */
+    @FunctionalInterface
+    public interface FreeSlotSource {
+        /**
+         * @return Bitmap with bit i set if the i-th SLOT_MINUTES slot of the day is free
+         */
+        long[] freeSlots(int doctorId, LocalDate day) throws SQLException;
+    }
+    
+    private static volatile AvailabilityIndex instance;
+    
+    private final AppointmentRepository appointmentRepository;
+    private final Map<Integer, TreeMap<LocalDate, DaySchedule>> schedules = new HashMap<>();
+    private final Map<Integer, long[]> workingHours = new HashMap<>();
+    private final long[] defaultWorkingHours;
+    private boolean loaded;
+    
+    private AvailabilityIndex() {
+        this.appointmentRepository = new AppointmentRepository();
+        this.defaultWorkingHours = slotMask(Constants.WORKING_HOURS_START, Constants.WORKING_HOURS_END);
+        EntityChangeNotifier.appointments().addListener(new EntityChangeListener<Appointment>() {
+            @Override
+            public void onCreated(Appointment entity) {
+                book(entity);
+            }
+            
+            @Override
+            public void onUpdated(Appointment previous, Appointment current) {
+                release(previous);
+                book(current);
+            }
+            
+            @Override
+            public void onDeleted(Appointment entity) {
+                release(entity);
+            }
+        });
+        EntityChangeNotifier.doctors().addListener(new EntityChangeListener<Doctor>() {
+            @Override
+            public void onDeleted(Doctor entity) {
+                removeDoctor(entity.getId());
+            }
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * @return AvailabilityIndex instance
+     */
+    public static AvailabilityIndex getInstance() {
+        if (instance == null) {
+            synchronized (AvailabilityIndex.class) {
+                if (instance == null) {
+                    instance = new AvailabilityIndex();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Rebuild the bitmaps from the non-cancelled appointments of today and later
+     * @throws SQLException if database operation fails
+     */
+    public synchronized void rebuild() throws SQLException {
+        schedules.clear();
+        int[] booked = new int[1];
+        LocalDate today = LocalDate.now();
+        // Rows come in time order, so consecutive rows mostly share a day
+        LocalDate[] lastDay = {today};
+        appointmentRepository.forEachUpcomingBooking(today.atStartOfDay(), (appointmentId, doctorId, epochMinute) -> {
+            long epochDay = Math.floorDiv(epochMinute, 24 * 60);
+            if (lastDay[0].toEpochDay() != epochDay) {
+                lastDay[0] = LocalDate.ofEpochDay(epochDay);
+            }
+            int minuteOfDay = Math.floorMod(epochMinute, 24 * 60);
+            schedules.computeIfAbsent(doctorId, id -> new TreeMap<>())
+                    .computeIfAbsent(lastDay[0], key -> new DaySchedule())
+                    .add(appointmentId, minuteOfDay / Constants.SLOT_MINUTES,
+                            slotsFor(Constants.APPOINTMENT_MINUTES));
+            booked[0]++;
+        });
+        loaded = true;
+        logger.info("Availability bitmaps built (" + booked[0] + " appointments, "
+                + schedules.size() + " doctors)");
+    }
+    
+    /**
+     * Set a doctor's daily working hours (used instead of the clinic default)
+     * @param doctorId Doctor ID
+     * @param start Start of the working day
+     * @param end End of the working day (exclusive; must be after start)
+     */
+    public synchronized void setWorkingHours(int doctorId, LocalTime start, LocalTime end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Working hours must end after they start");
+        }
+        workingHours.put(doctorId, slotMask(start, end));
+    }
+    
+    /**
+     * Check whether a doctor is free for a period within working hours
+     * @param doctorId Doctor ID
+     * @param start Start of the period
+     * @param durationMinutes Length of the period
+     * @return true if every slot of the period is free
+     * @throws SQLException if the bitmaps have to be built and the database read fails
+     */
+    public synchronized boolean isFree(int doctorId, LocalDateTime start, int durationMinutes)
+            throws SQLException {
+        int first = slotOf(start);
+        int end = ceilSlotOf(start.toLocalTime().toSecondOfDay() / 60 + durationMinutes);
+        if (end > SLOTS_PER_DAY) {
+            return false;
+        }
+        long[] free = freeSlots(doctorId, start.toLocalDate());
+        for (int slot = first; slot < end; slot++) {
+            if ((free[slot >>> 6] & (1L << slot)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Find the next free periods of a doctor, without overlaps, in time order.
+     * Periods start on slot boundaries and lie within one working day.
+     * @param doctorId Doctor ID
+     * @param from Earliest start
+     * @param durationMinutes Length of each period
+     * @param count Maximum number of periods
+     * @param days Number of days to search, starting with the day of from
+     * @return Start times of free periods (fewer than count if the days run out)
+     * @throws SQLException if the bitmaps have to be built and the database read fails
+     */
+    public synchronized List<LocalDateTime> findFreeSlots(int doctorId, LocalDateTime from, int durationMinutes,
+                                                          int count, int days) throws SQLException {
+        List<LocalDateTime> slots = new ArrayList<>();
+        int length = slotsFor(durationMinutes);
+        LocalDate day = from.toLocalDate();
+        int position = ceilSlotOf(from);
+        for (int d = 0; d < days && slots.size() < count; d++, day = day.plusDays(1), position = 0) {
+            long[] runs = runStarts(freeSlots(doctorId, day), length);
+            while (slots.size() < count) {
+                int start = nextSetBit(runs, position);
+                if (start < 0) {
+                    break;
+                }
+                slots.add(day.atStartOfDay().plusMinutes((long) start * Constants.SLOT_MINUTES));
+                position = start + length;
+            }
+        }
+        return slots;
+    }
+    
+    /**
+     * Find the first period at or after a time for which a doctor is free
+     * @param doctorId Doctor ID
+     * @param from Earliest start
+     * @param durationMinutes Length of the period
+     * @param days Number of days to search, starting with the day of from
+     * @return Start time, or null if there is none within the days searched
+     * @throws SQLException if the bitmaps have to be built and the database read fails
+     */
+    public LocalDateTime findFirstFreeSlot(int doctorId, LocalDateTime from, int durationMinutes, int days)
+            throws SQLException {
+        List<LocalDateTime> slots = findFreeSlots(doctorId, from, durationMinutes, 1, days);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+    
+    /**
+     * Find the earliest free periods across several doctors (e.g. all doctors
+     * of a specialization). Each doctor's free periods are produced lazily, a
+     * day's bitmap at a time, and merged through a priority queue keyed on the
+     * next start, so only the days that hold the first count results are
+     * examined: O((doctors + count) log doctors) plus one bitmap pass per day
+     * visited. A doctor's own periods do not overlap, as in findFreeSlots.
+     * @param doctorIds Doctors to search
+     * @param from Earliest start
+     * @param durationMinutes Length of each period
+     * @param count Maximum number of results
+     * @param days Number of days to search, starting with the day of from
+     * @return Doctor and start time pairs, earliest first (ties by doctor ID)
+     * @throws SQLException if the bitmaps have to be built and the database read fails
+     */
+    public synchronized List<DoctorSlot> findEarliestSlots(Collection<Integer> doctorIds, LocalDateTime from,
+                                                           int durationMinutes, int count, int days)
+            throws SQLException {
+        return findEarliestSlots(doctorIds, from, durationMinutes, count, days, this::freeSlots);
+    }
+    
+    /**
+     * Find the earliest free periods across several doctors, as the instance
+     * method does, over any free-slot bitmaps
+     * @param doctorIds Doctors to search
+     * @param from Earliest start
+     * @param durationMinutes Length of each period
+     * @param count Maximum number of results
+     * @param days Number of days to search, starting with the day of from
+     * @param source Free slots of a doctor on a day (not modified)
+     * @return Doctor and start time pairs, earliest first (ties by doctor ID)
+     * @throws SQLException if the source fails
+     */
+    public static List<DoctorSlot> findEarliestSlots(Collection<Integer> doctorIds, LocalDateTime from,
+                                                     int durationMinutes, int count, int days,
+                                                     FreeSlotSource source) throws SQLException {
+        int length = slotsFor(durationMinutes);
+        PriorityQueue<SlotCursor> queue = new PriorityQueue<>(Math.max(1, doctorIds.size()),
+                Comparator.comparingLong((SlotCursor cursor) -> cursor.next).thenComparingInt(cursor -> cursor.doctorId));
+        for (int doctorId : doctorIds) {
+            SlotCursor cursor = new SlotCursor(source, doctorId, from, length, days);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        
+        List<DoctorSlot> slots = new ArrayList<>();
+        LocalDateTime firstDay = from.toLocalDate().atStartOfDay();
+        while (slots.size() < count && !queue.isEmpty()) {
+            SlotCursor cursor = queue.poll();
+            slots.add(new DoctorSlot(cursor.doctorId,
+                    firstDay.plusMinutes(cursor.next * Constants.SLOT_MINUTES)));
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return slots;
+    }
+    
+    /**
+     * Get a doctor's free working slots on a day
+     * @param doctorId Doctor ID
+     * @param day Day
+     * @return Bitmap with bit i set if the i-th SLOT_MINUTES slot of the day is free (a copy)
+     * @throws SQLException if the bitmaps have to be built and the database read fails
+     */
+    public synchronized long[] getFreeSlots(int doctorId, LocalDate day) throws SQLException {
+        return freeSlots(doctorId, day);
+    }
+    
+    /**
+     * Count a doctor's free working slots in the days ahead (popcounts of the
+     * free bitmaps)
+     * @param doctorId Doctor ID
+     * @param from Start of the window (earlier slots of that day are not counted)
+     * @param days Number of days, starting with the day of from
+     * @return Free slots
+     * @throws SQLException if the bitmaps have to be built and the database read fails
+     */
+    public synchronized int countFreeSlots(int doctorId, LocalDateTime from, int days) throws SQLException {
+        int count = 0;
+        int position = ceilSlotOf(from);
+        LocalDate day = from.toLocalDate();
+        for (int d = 0; d < days; d++, day = day.plusDays(1), position = 0) {
+            long[] free = freeSlots(doctorId, day);
+            for (int w = position >>> 6; w < free.length; w++) {
+                long word = w == position >>> 6 ? free[w] & (-1L << position) : free[w];
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Free slots of a doctor's day: working hours minus bookings
+     */
+    private long[] freeSlots(int doctorId, LocalDate day) throws SQLException {
+        if (!loaded) {
+            rebuild();
+        }
+        long[] free = workingHours.getOrDefault(doctorId, defaultWorkingHours).clone();
+        TreeMap<LocalDate, DaySchedule> doctorDays = schedules.get(doctorId);
+        DaySchedule schedule = doctorDays == null ? null : doctorDays.get(day);
+        if (schedule != null) {
+            for (int w = 0; w < WORDS_PER_DAY; w++) {
+                free[w] &= ~schedule.booked[w];
+            }
+        }
+        return free;
+    }
+    
+    private synchronized void book(Appointment appointment) {
+        if (appointment.getStatus() == AppointmentStatus.CANCELLED || appointment.getAppointmentDateTime() == null) {
+            return;
+        }
+        LocalDate day = appointment.getAppointmentDateTime().toLocalDate();
+        if (day.isBefore(LocalDate.now())) {
+            return;
+        }
+        TreeMap<LocalDate, DaySchedule> doctorDays = schedules.computeIfAbsent(appointment.getDoctorId(),
+                id -> new TreeMap<>());
+        // Past days are never searched again
+        doctorDays.headMap(LocalDate.now()).clear();
+        doctorDays.computeIfAbsent(day, key -> new DaySchedule()).add(appointment.getId(),
+                slotOf(appointment.getAppointmentDateTime()), slotsFor(Constants.APPOINTMENT_MINUTES));
+    }
+    
+    private synchronized void release(Appointment appointment) {
+        if (appointment.getAppointmentDateTime() == null) {
+            return;
+        }
+        TreeMap<LocalDate, DaySchedule> doctorDays = schedules.get(appointment.getDoctorId());
+        LocalDate day = appointment.getAppointmentDateTime().toLocalDate();
+        DaySchedule schedule = doctorDays == null ? null : doctorDays.get(day);
+        if (schedule != null && schedule.remove(appointment.getId())) {
+            doctorDays.remove(day);
+        }
+    }
+    
+    private synchronized void removeDoctor(int doctorId) {
+        schedules.remove(doctorId);
+        workingHours.remove(doctorId);
+    }
+    
+    /**
+     * Bit i of the result is set when slots i .. i + length - 1 are all set in free.
+     * Doubling shifts: after each step, runs of twice the length are covered.
+     */
+    static long[] runStarts(long[] free, int length) {
+        long[] runs = free.clone();
+        int covered = 1;
+        while (covered < length) {
+            int shift = Math.min(covered, length - covered);
+            andShiftedRight(runs, shift);
+            covered += shift;
+        }
+        return runs;
+    }
+    
+    private static void andShiftedRight(long[] bits, int shift) {
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+        for (int w = 0; w < bits.length; w++) {
+            int source = w + wordShift;
+            long low = source < bits.length ? bits[source] : 0;
+            long high = source + 1 < bits.length ? bits[source + 1] : 0;
+            long shifted = bitShift == 0 ? low : (low >>> bitShift) | (high << (64 - bitShift));
+            bits[w] &= shifted;
+        }
+    }
+    
+    static int nextSetBit(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) {
+            return -1;
+        }
+        long word = bits[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == bits.length) {
+                return -1;
+            }
+            word = bits[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+    
+    private static long[] slotMask(LocalTime start, LocalTime end) {
+        long[] mask = new long[WORDS_PER_DAY];
+        int first = ceilSlotOf(start.toSecondOfDay() / 60);
+        int last = end.toSecondOfDay() / 60 / Constants.SLOT_MINUTES;
+        for (int slot = first; slot < last; slot++) {
+            mask[slot >>> 6] |= 1L << slot;
+        }
+        return mask;
+    }
+    
+    static int slotOf(LocalDateTime time) {
+        return time.toLocalTime().toSecondOfDay() / 60 / Constants.SLOT_MINUTES;
+    }
+    
+    static int ceilSlotOf(LocalDateTime time) {
+        return ceilSlotOf((time.toLocalTime().toSecondOfDay() + 59) / 60);
+    }
+    
+    private static int ceilSlotOf(int minuteOfDay) {
+        return (minuteOfDay + Constants.SLOT_MINUTES - 1) / Constants.SLOT_MINUTES;
+    }
+    
+    static int slotsFor(int minutes) {
+        return Math.max(1, (minutes + Constants.SLOT_MINUTES - 1) / Constants.SLOT_MINUTES);
+    }
+    
+    /**
+     * Free period of a doctor
+     */
+    public static final class DoctorSlot {
+        private final int doctorId;
+        private final LocalDateTime start;
+        
+        DoctorSlot(int doctorId, LocalDateTime start) {
+            this.doctorId = doctorId;
+            this.start = start;
+        }
+        
+        public int getDoctorId() {
+            return doctorId;
+        }
+        
+        public LocalDateTime getStart() {
+            return start;
+        }
+        
+        @Override
+        public String toString() {
+            return "Doctor #" + doctorId + " at " + start;
+        }
+    }
+    
+    /**
+     * A doctor's free periods in time order, one day's run bitmap at a time
+     */
+    private static final class SlotCursor {
+        private final FreeSlotSource source;
+        private final int doctorId;
+        private final LocalDate firstDay;
+        private final int length;
+        private final int days;
+        private int day = -1;
+        private long[] runs;
+        private int position;
+        // Start of the current period, in slots since the start of firstDay
+        private long next;
+        
+        SlotCursor(FreeSlotSource source, int doctorId, LocalDateTime from, int length, int days) {
+            this.source = source;
+            this.doctorId = doctorId;
+            this.firstDay = from.toLocalDate();
+            this.length = length;
+            this.days = days;
+            this.position = ceilSlotOf(from);
+        }
+        
+        /**
+         * Move to the next free period
+         * @return false if there are no more within the days searched
+         */
+        boolean advance() throws SQLException {
+            while (true) {
+                if (runs != null) {
+                    int start = nextSetBit(runs, position);
+                    if (start >= 0) {
+                        next = (long) day * SLOTS_PER_DAY + start;
+                        position = start + length;
+                        return true;
+                    }
+                    position = 0;
+                }
+                if (++day >= days) {
+                    return false;
+                }
+                runs = runStarts(source.freeSlots(doctorId, firstDay.plusDays(day)), length);
+            }
+        }
+    }
+    
+    /**
+     * Bookings of one doctor on one day. The bitmap is the union of the
+     * appointments' slots; it is recomputed when an appointment leaves, since
+     * overlapping (double-booked) appointments may share bits.
+     */
+    private static final class DaySchedule {
+        private final long[] booked = new long[WORDS_PER_DAY];
+        // Appointment ID -> first slot << 16 | end slot (exclusive)
+        private final Map<Integer, Integer> slots = new HashMap<>();
+        
+        void add(int appointmentId, int first, int length) {
+            int end = Math.min(SLOTS_PER_DAY, first + length);
+            slots.put(appointmentId, first << 16 | end);
+            mark(first, end);
+        }
+        
+        /**
+         * @return true if the day has no bookings left
+         */
+        boolean remove(int appointmentId) {
+            if (slots.remove(appointmentId) == null) {
+                return slots.isEmpty();
+            }
+            Arrays.fill(booked, 0);
+            for (int range : slots.values()) {
+                mark(range >>> 16, range & 0xFFFF);
+            }
+            return slots.isEmpty();
+        }
+        
+        private void mark(int first, int end) {
+            for (int slot = first; slot < end; slot++) {
+                booked[slot >>> 6] |= 1L << slot;
+            }
+        }
+    }
+}
+
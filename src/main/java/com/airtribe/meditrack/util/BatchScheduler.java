@@ -0,0 +1,491 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.Constants;
+import com.airtribe.meditrack.constants.Specialization;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Assigns a batch of appointment requests (a vaccination drive, school
+ * check-ups) to doctors in one go. Each request names a specialization and a
+ * time window; the plan maximizes the number of requests that get a slot and
+ * then evens out the doctors' load:
+ * 1. Greedy: requests whose windows close first go first (those with the
+ *    fewest free doctor/start options on ties), each to the least loaded
+ *    doctor with a free start in its window, earliest start on ties.
+ * 2. Ejection: an unassigned request may take the place of an assigned one
+ *    if that one can move to another free start.
+ * 3. Balancing: assigned requests move to a doctor with at least two fewer
+ *    appointments when a free start in their window allows.
+ * Specializations share no doctors, so each is planned separately and in
+ * parallel. Calendars are read once up front, so the plan is made against a
+ * snapshot; it is deterministic for a given input.
+ */
+public class BatchScheduler {
+    
+    private static final int SLOTS_PER_DAY = AvailabilityIndex.SLOTS_PER_DAY;
+    private static final int MAX_IMPROVEMENT_ROUNDS = 5;
+    
+    /**
+     * Doctor availability the plan starts from
+     */
+    public interface DoctorCalendar {
+        /**
+         * @return Bitmap with bit i set if the i-th SLOT_MINUTES slot of the day is free
+         */
+        long[] freeSlots(int doctorId, LocalDate day) throws SQLException;
+        
+        /**
+         * @return Appointments the doctor already has (the starting load)
+         */
+        int upcomingCount(int doctorId) throws SQLException;
+    }
+    
+    private final DoctorCalendar calendar;
+    private final int length;
+    private final LocalDateTime notBefore;
+    
+    /**
+     * Create a scheduler
+     * @param calendar Free slots and current load of the doctors
+     * @param durationMinutes Length of each appointment
+     * @param notBefore Earliest start for any appointment (e.g. now)
+     */
+    public BatchScheduler(DoctorCalendar calendar, int durationMinutes, LocalDateTime notBefore) {
+        this.calendar = calendar;
+        this.length = AvailabilityIndex.slotsFor(durationMinutes);
+        this.notBefore = notBefore;
+    }
+    
+    /**
+     * Plan a batch of requests
+     * @param requests Requests
+     * @param doctors Doctor ID to specialization, for every doctor that may be assigned
+     * @return Assigned requests with their doctor and start, and the requests left over
+     * @throws SQLException if reading a calendar fails
+     */
+    public Result schedule(List<Request> requests, Map<Integer, Specialization> doctors) throws SQLException {
+        Map<Specialization, List<Integer>> requestsBySpecialization = new EnumMap<>(Specialization.class);
+        for (int i = 0; i < requests.size(); i++) {
+            requestsBySpecialization.computeIfAbsent(requests.get(i).getSpecialization(), key -> new ArrayList<>())
+                    .add(i);
+        }
+        Map<Specialization, List<Integer>> doctorsBySpecialization = new EnumMap<>(Specialization.class);
+        for (Map.Entry<Integer, Specialization> doctor : doctors.entrySet()) {
+            doctorsBySpecialization.computeIfAbsent(doctor.getValue(), key -> new ArrayList<>()).add(doctor.getKey());
+        }
+        
+        List<Plan> plans = new ArrayList<>();
+        for (Map.Entry<Specialization, List<Integer>> group : requestsBySpecialization.entrySet()) {
+            List<Integer> doctorIds = doctorsBySpecialization.getOrDefault(group.getKey(), Collections.emptyList());
+            Collections.sort(doctorIds);
+            plans.add(new Plan(requests, group.getValue(), doctorIds));
+        }
+        plans.parallelStream().forEach(Plan::solve);
+        
+        Assignment[] byRequest = new Assignment[requests.size()];
+        for (Plan plan : plans) {
+            plan.collect(byRequest);
+        }
+        List<Assignment> assigned = new ArrayList<>();
+        List<Request> unassigned = new ArrayList<>();
+        for (int i = 0; i < byRequest.length; i++) {
+            if (byRequest[i] != null) {
+                assigned.add(byRequest[i]);
+            } else {
+                unassigned.add(requests.get(i));
+            }
+        }
+        return new Result(assigned, unassigned);
+    }
+    
+    /**
+     * Requests and doctors of one specialization. Times are slot numbers
+     * counted from the start of firstDay.
+     */
+    private final class Plan {
+        private final List<Request> requests;
+        private final int[] requestIndexes;
+        private final int[] doctorIds;
+        private final LocalDate firstDay;
+        private final int days;
+        // Window of each request: first allowed start, and end of the last allowed appointment
+        private final int[] windowStart;
+        private final int[] windowEnd;
+        private final long[][][] free;
+        // Request (position in requestIndexes) holding each slot, or -1
+        private final int[][] occupant;
+        private final int[] load;
+        private final int[] assignedDoctor;
+        private final int[] assignedStart;
+        // Requests that could not be moved, as of which plan change
+        private final int[] stuckSince;
+        private int changes;
+        
+        Plan(List<Request> allRequests, List<Integer> indexes, List<Integer> doctors) throws SQLException {
+            this.requests = allRequests;
+            this.requestIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+            this.doctorIds = doctors.stream().mapToInt(Integer::intValue).toArray();
+            
+            LocalDateTime earliest = null;
+            LocalDateTime latest = null;
+            for (int index : requestIndexes) {
+                Request request = allRequests.get(index);
+                LocalDateTime start = request.getEarliest().isBefore(notBefore) ? notBefore : request.getEarliest();
+                earliest = earliest == null || start.isBefore(earliest) ? start : earliest;
+                latest = latest == null || request.getLatest().isAfter(latest) ? request.getLatest() : latest;
+            }
+            this.firstDay = earliest.toLocalDate();
+            this.days = Math.max(1, (int) ChronoUnit.DAYS.between(firstDay, latest.toLocalDate()) + 1);
+            
+            int n = requestIndexes.length;
+            this.windowStart = new int[n];
+            this.windowEnd = new int[n];
+            for (int r = 0; r < n; r++) {
+                Request request = allRequests.get(requestIndexes[r]);
+                LocalDateTime start = request.getEarliest().isBefore(notBefore) ? notBefore : request.getEarliest();
+                windowStart[r] = slotNumber(start, AvailabilityIndex.ceilSlotOf(start));
+                windowEnd[r] = slotNumber(request.getLatest(), AvailabilityIndex.slotOf(request.getLatest()));
+            }
+            
+            this.free = new long[doctorIds.length][days][];
+            this.occupant = new int[doctorIds.length][days * SLOTS_PER_DAY];
+            this.load = new int[doctorIds.length];
+            for (int d = 0; d < doctorIds.length; d++) {
+                for (int day = 0; day < days; day++) {
+                    free[d][day] = calendar.freeSlots(doctorIds[d], firstDay.plusDays(day)).clone();
+                }
+                Arrays.fill(occupant[d], -1);
+                load[d] = calendar.upcomingCount(doctorIds[d]);
+            }
+            this.assignedDoctor = new int[n];
+            this.assignedStart = new int[n];
+            Arrays.fill(assignedDoctor, -1);
+            this.stuckSince = new int[n];
+            Arrays.fill(stuckSince, -1);
+        }
+        
+        void solve() {
+            int n = requestIndexes.length;
+            if (doctorIds.length == 0) {
+                return;
+            }
+            
+            // Greedy, earliest window end first (option counts only read the calendars)
+            int[] options = IntStream.range(0, n).parallel().map(this::countOptions).toArray();
+            Integer[] order = new Integer[n];
+            for (int r = 0; r < n; r++) {
+                order[r] = r;
+            }
+            Arrays.sort(order, Comparator.<Integer>comparingInt(r -> windowEnd[r])
+                    .thenComparingInt(r -> options[r]).thenComparingInt(r -> r));
+            for (int r : order) {
+                if (options[r] > 0) {
+                    placeBest(r);
+                }
+            }
+            
+            for (int round = 0; round < MAX_IMPROVEMENT_ROUNDS; round++) {
+                boolean improved = false;
+                for (int r = 0; r < n; r++) {
+                    if (assignedDoctor[r] < 0 && options[r] > 0) {
+                        improved |= placeByEjection(r);
+                    }
+                }
+                for (int r = 0; r < n; r++) {
+                    if (assignedDoctor[r] >= 0) {
+                        improved |= rebalance(r);
+                    }
+                }
+                if (!improved) {
+                    break;
+                }
+            }
+        }
+        
+        void collect(Assignment[] byRequest) {
+            for (int r = 0; r < requestIndexes.length; r++) {
+                if (assignedDoctor[r] >= 0) {
+                    int start = assignedStart[r];
+                    LocalDateTime time = firstDay.plusDays(start / SLOTS_PER_DAY).atStartOfDay()
+                            .plusMinutes((long) (start % SLOTS_PER_DAY) * Constants.SLOT_MINUTES);
+                    byRequest[requestIndexes[r]] = new Assignment(requests.get(requestIndexes[r]),
+                            doctorIds[assignedDoctor[r]], time);
+                }
+            }
+        }
+        
+        private int countOptions(int r) {
+            int count = 0;
+            int lastStart = windowEnd[r] - length;
+            for (int d = 0; d < doctorIds.length; d++) {
+                for (int day = windowStart[r] / SLOTS_PER_DAY; day * SLOTS_PER_DAY <= lastStart && day < days; day++) {
+                    long[] runs = AvailabilityIndex.runStarts(free[d][day], length);
+                    int to = lastStart - day * SLOTS_PER_DAY;
+                    int slot = AvailabilityIndex.nextSetBit(runs, Math.max(windowStart[r] - day * SLOTS_PER_DAY, 0));
+                    for (; slot >= 0 && slot <= to; slot = AvailabilityIndex.nextSetBit(runs, slot + 1)) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+        
+        /**
+         * Place a request with the least loaded doctor that has room, earliest start on ties
+         * @return false if no doctor has a free start in the window
+         */
+        private boolean placeBest(int r) {
+            int bestDoctor = -1;
+            int bestStart = -1;
+            for (int d = 0; d < doctorIds.length; d++) {
+                if (bestDoctor >= 0 && load[d] > load[bestDoctor]) {
+                    continue;
+                }
+                int start = firstStart(r, d, windowStart[r]);
+                if (start >= 0 && (bestDoctor < 0 || load[d] < load[bestDoctor] || start < bestStart)) {
+                    bestDoctor = d;
+                    bestStart = start;
+                }
+            }
+            if (bestDoctor < 0) {
+                return false;
+            }
+            place(r, bestDoctor, bestStart);
+            return true;
+        }
+        
+        /**
+         * Give an unassigned request the place of one assigned request that
+         * can move elsewhere
+         */
+        private boolean placeByEjection(int r) {
+            for (int d = 0; d < doctorIds.length; d++) {
+                for (int start = windowStart[r]; start + length <= windowEnd[r]; start++) {
+                    if (start % SLOTS_PER_DAY + length > SLOTS_PER_DAY) {
+                        continue;
+                    }
+                    int blocker = singleBlocker(d, start);
+                    if (blocker == -1) {
+                        place(r, d, start);
+                        changes++;
+                        return true;
+                    }
+                    if (blocker < 0 || stuckSince[blocker] == changes) {
+                        continue;
+                    }
+                    int blockerDoctor = assignedDoctor[blocker];
+                    int blockerStart = assignedStart[blocker];
+                    release(blocker);
+                    place(r, d, start);
+                    if (placeBest(blocker)) {
+                        changes++;
+                        return true;
+                    }
+                    release(r);
+                    place(blocker, blockerDoctor, blockerStart);
+                    stuckSince[blocker] = changes;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * Move an assigned request to a doctor with at least two fewer appointments
+         */
+        private boolean rebalance(int r) {
+            int doctor = assignedDoctor[r];
+            int start = assignedStart[r];
+            release(r);
+            placeBest(r);
+            if (assignedDoctor[r] != doctor && load[assignedDoctor[r]] <= load[doctor]) {
+                changes++;
+                return true;
+            }
+            // No strictly better doctor: keep the original place
+            release(r);
+            place(r, doctor, start);
+            return false;
+        }
+        
+        /**
+         * @return -1 if the slots of an appointment at start are free, the one
+         *         request occupying the rest of them, or -2 if they are blocked otherwise
+         */
+        private int singleBlocker(int d, int start) {
+            int day = start / SLOTS_PER_DAY;
+            int blocker = -1;
+            for (int slot = start; slot < start + length; slot++) {
+                int bit = slot % SLOTS_PER_DAY;
+                if ((free[d][day][bit >>> 6] & (1L << bit)) != 0) {
+                    continue;
+                }
+                int holder = occupant[d][slot];
+                if (holder < 0 || (blocker >= 0 && holder != blocker)) {
+                    return -2;
+                }
+                blocker = holder;
+            }
+            return blocker;
+        }
+        
+        /**
+         * First start at or after from where the request fits with doctor d, or -1
+         */
+        private int firstStart(int r, int d, int from) {
+            for (int day = from / SLOTS_PER_DAY; day * SLOTS_PER_DAY < windowEnd[r] && day < days; day++) {
+                int position = Math.max(from - day * SLOTS_PER_DAY, 0);
+                long[] runs = AvailabilityIndex.runStarts(free[d][day], length);
+                int slot = AvailabilityIndex.nextSetBit(runs, position);
+                if (slot >= 0 && slot + length <= SLOTS_PER_DAY) {
+                    int start = day * SLOTS_PER_DAY + slot;
+                    return start + length <= windowEnd[r] ? start : -1;
+                }
+            }
+            return -1;
+        }
+        
+        private void place(int r, int d, int start) {
+            mark(d, start, r);
+            assignedDoctor[r] = d;
+            assignedStart[r] = start;
+            load[d]++;
+        }
+        
+        private void release(int r) {
+            int d = assignedDoctor[r];
+            mark(d, assignedStart[r], -1);
+            assignedDoctor[r] = -1;
+            load[d]--;
+        }
+        
+        private void mark(int d, int start, int holder) {
+            long[] day = free[d][start / SLOTS_PER_DAY];
+            for (int slot = start; slot < start + length; slot++) {
+                int bit = slot % SLOTS_PER_DAY;
+                if (holder < 0) {
+                    day[bit >>> 6] |= 1L << bit;
+                } else {
+                    day[bit >>> 6] &= ~(1L << bit);
+                }
+                occupant[d][slot] = holder;
+            }
+        }
+        
+        private int slotNumber(LocalDateTime time, int slotOfDay) {
+            return (int) ChronoUnit.DAYS.between(firstDay, time.toLocalDate()) * SLOTS_PER_DAY + slotOfDay;
+        }
+    }
+    
+    /**
+     * Request for one appointment with any doctor of a specialization
+     */
+    public static final class Request {
+        private final int patientId;
+        private final Specialization specialization;
+        private final LocalDateTime earliest;
+        private final LocalDateTime latest;
+        private final String reason;
+        
+        /**
+         * @param patientId Patient ID
+         * @param specialization Specialization
+         * @param earliest Earliest start
+         * @param latest Latest end (the appointment must finish by then)
+         * @param reason Reason for the appointment
+         */
+        public Request(int patientId, Specialization specialization, LocalDateTime earliest,
+                       LocalDateTime latest, String reason) {
+            this.patientId = patientId;
+            this.specialization = specialization;
+            this.earliest = earliest;
+            this.latest = latest;
+            this.reason = reason;
+        }
+        
+        public int getPatientId() {
+            return patientId;
+        }
+        
+        public Specialization getSpecialization() {
+            return specialization;
+        }
+        
+        public LocalDateTime getEarliest() {
+            return earliest;
+        }
+        
+        public LocalDateTime getLatest() {
+            return latest;
+        }
+        
+        public String getReason() {
+            return reason;
+        }
+    }
+    
+    /**
+     * Request placed with a doctor
+     */
+    public static final class Assignment {
+        private final Request request;
+        private final int doctorId;
+        private final LocalDateTime start;
+        
+        Assignment(Request request, int doctorId, LocalDateTime start) {
+            this.request = request;
+            this.doctorId = doctorId;
+            this.start = start;
+        }
+        
+        public Request getRequest() {
+            return request;
+        }
+        
+        public int getDoctorId() {
+            return doctorId;
+        }
+        
+        public LocalDateTime getStart() {
+            return start;
+        }
+        
+        @Override
+        public String toString() {
+            return "Patient #" + request.getPatientId() + " with doctor #" + doctorId + " at " + start;
+        }
+    }
+    
+    /**
+     * Outcome of a batch: assignments and leftover requests, both in request order
+     */
+    public static final class Result {
+        private final List<Assignment> assignments;
+        private final List<Request> unassigned;
+        
+        Result(List<Assignment> assignments, List<Request> unassigned) {
+            this.assignments = assignments;
+            this.unassigned = unassigned;
+        }
+        
+        public List<Assignment> getAssignments() {
+            return assignments;
+        }
+        
+        public List<Request> getUnassigned() {
+            return unassigned;
+        }
+    }
+}
+
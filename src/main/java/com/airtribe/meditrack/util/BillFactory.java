@@ -1,52 +1,51 @@
 package com.airtribe.meditrack.util;
 
 import com.airtribe.meditrack.entity.Bill;
-import com.airtribe.meditrack.constants.Constants;
 
 public class BillFactory {
     
     /**
      * Create a standard consultation bill
      * @param appointmentId Appointment ID
-     * @param baseAmount Base amount
+     * @param baseCents Base amount in cents
      * @return Bill object
      */
-    public static Bill createConsultationBill(int appointmentId, double baseAmount) {
+    public static Bill createConsultationBill(int appointmentId, long baseCents) {
         Bill bill = new Bill();
         bill.setId(IdGenerator.getInstance().getNextBillId());
         bill.setAppointmentId(appointmentId);
-        bill.setBaseAmount(baseAmount);
+        bill.setBaseCents(baseCents);
         return bill;
     }
     
     /**
      * Create a bill with discount
      * @param appointmentId Appointment ID
-     * @param baseAmount Base amount
+     * @param baseCents Base amount in cents
      * @param discountPercent Discount percentage (0-100)
      * @return Bill object
      */
-    public static Bill createDiscountedBill(int appointmentId, double baseAmount, double discountPercent) {
-        double discountedAmount = baseAmount * (1 - discountPercent / 100);
+    public static Bill createDiscountedBill(int appointmentId, long baseCents, double discountPercent) {
+        long discountCents = Money.percentOf(baseCents, Math.round(discountPercent * 100));
         Bill bill = new Bill();
         bill.setId(IdGenerator.getInstance().getNextBillId());
         bill.setAppointmentId(appointmentId);
-        bill.setBaseAmount(discountedAmount);
+        bill.setBaseCents(baseCents - discountCents);
         return bill;
     }
     
     /**
      * Create a premium bill (includes additional services)
      * @param appointmentId Appointment ID
-     * @param baseAmount Base amount
-     * @param additionalCharges Additional charges
+     * @param baseCents Base amount in cents
+     * @param additionalCents Additional charges in cents
      * @return Bill object
      */
-    public static Bill createPremiumBill(int appointmentId, double baseAmount, double additionalCharges) {
+    public static Bill createPremiumBill(int appointmentId, long baseCents, long additionalCents) {
         Bill bill = new Bill();
         bill.setId(IdGenerator.getInstance().getNextBillId());
         bill.setAppointmentId(appointmentId);
-        bill.setBaseAmount(baseAmount + additionalCharges);
+        bill.setBaseCents(baseCents + additionalCents);
         return bill;
     }
     
@@ -54,20 +53,22 @@ public class BillFactory {
      * Factory method to create bill based on type
      * @param type Bill type (STANDARD, DISCOUNTED, PREMIUM)
      * @param appointmentId Appointment ID
-     * @param baseAmount Base amount
-     * @param additionalParam Additional parameter (discount % or additional charges)
+     * @param baseCents Base amount in cents
+     * @param discountPercent Discount percentage (0-100), used by DISCOUNTED
+     * @param additionalCents Additional charges in cents, used by PREMIUM
      * @return Bill object
      */
-    public static Bill createBill(String type, int appointmentId, double baseAmount, double additionalParam) {
+    public static Bill createBill(String type, int appointmentId, long baseCents, double discountPercent,
+                                  long additionalCents) {
         switch (type.toUpperCase()) {
             case "STANDARD":
-                return createConsultationBill(appointmentId, baseAmount);
+                return createConsultationBill(appointmentId, baseCents);
             case "DISCOUNTED":
-                return createDiscountedBill(appointmentId, baseAmount, additionalParam);
+                return createDiscountedBill(appointmentId, baseCents, discountPercent);
             case "PREMIUM":
-                return createPremiumBill(appointmentId, baseAmount, additionalParam);
+                return createPremiumBill(appointmentId, baseCents, additionalCents);
             default:
-                return createConsultationBill(appointmentId, baseAmount);
+                return createConsultationBill(appointmentId, baseCents);
         }
     }
 }
@@ -0,0 +1,84 @@
+package com.airtribe.meditrack.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings.
+ * mightContain() never returns false for a value that was added, and returns
+ * true for a value that was not added with roughly the configured probability.
+ * Values cannot be removed; a rebuild drops stale entries. The k bit positions
+ * come from one 64-bit hash by double hashing (h1 + i * h2).
+ */
+public class BloomFilter {
+    
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    
+    /**
+     * Create a filter sized for an expected number of values
+     * @param expectedValues Number of values the filter should hold
+     * @param falsePositiveRate Target false-positive probability (e.g. 0.01)
+     */
+    public BloomFilter(long expectedValues, double falsePositiveRate) {
+        long n = Math.max(1, expectedValues);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, (m + 63) / 64 * 64);
+        this.bitCount = m;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (m / 64));
+    }
+    
+    /**
+     * Add a value
+     * @param value Value to add
+     */
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = Long.rotateLeft(h1, 32) | 1;
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+    
+    /**
+     * Check whether a value may have been added
+     * @param value Value to check
+     * @return false if the value was definitely never added
+     */
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = Long.rotateLeft(h1, 32) | 1;
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, finished with the MurmurHash3 mixer
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
+
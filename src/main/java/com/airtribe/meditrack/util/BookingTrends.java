@@ -0,0 +1,78 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming "most booked doctors" over the last hour and the last day.
+ * Listens to appointment create events and feeds the doctor IDs into sliding
+ * heavy-hitter trackers, so the ranking never queries the database.
+ */
+public class BookingTrends {
+    
+    private static final int CANDIDATES_PER_SLOT = 64;
+    
+    private static volatile BookingTrends instance;
+    
+    private final SlidingHeavyHitters lastHour;
+    private final SlidingHeavyHitters lastDay;
+    
+    private BookingTrends() {
+        // 5-minute slots for the hour, 1-hour slots for the day
+        this.lastHour = new SlidingHeavyHitters(TimeUnit.HOURS.toMillis(1), 12, CANDIDATES_PER_SLOT);
+        this.lastDay = new SlidingHeavyHitters(TimeUnit.DAYS.toMillis(1), 24, CANDIDATES_PER_SLOT);
+        EntityChangeNotifier.appointments().addListener(new EntityChangeListener<Appointment>() {
+            @Override
+            public void onCreated(Appointment entity) {
+                recordBooking(entity.getDoctorId());
+            }
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * Bookings are counted from the first call on.
+     * @return BookingTrends instance
+     */
+    public static BookingTrends getInstance() {
+        if (instance == null) {
+            synchronized (BookingTrends.class) {
+                if (instance == null) {
+                    instance = new BookingTrends();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Count a booking for a doctor now
+     * @param doctorId Doctor ID
+     */
+    public void recordBooking(int doctorId) {
+        lastHour.record(doctorId);
+        lastDay.record(doctorId);
+    }
+    
+    /**
+     * Get the most booked doctors of the last hour
+     * @param limit Number of doctors to return
+     * @return Doctor IDs with estimated booking counts, most booked first
+     */
+    public List<SlidingHeavyHitters.Entry> mostBookedLastHour(int limit) {
+        return lastHour.top(limit);
+    }
+    
+    /**
+     * Get the most booked doctors of the last day
+     * @param limit Number of doctors to return
+     * @return Doctor IDs with estimated booking counts, most booked first
+     */
+    public List<SlidingHeavyHitters.Entry> mostBookedLastDay(int limit) {
+        return lastDay.top(limit);
+    }
+}
+
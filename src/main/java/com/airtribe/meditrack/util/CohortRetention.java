@@ -0,0 +1,253 @@
+package com.airtribe.meditrack.util;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Patient cohorts by month of first visit, and how many of each cohort came
+ * back in each of the following months (M+1 .. M+12), plus the distribution
+ * of days between consecutive visits. Built in one pass over visits ordered
+ * by patient and time: only the current patient's first month and a bitmask
+ * of return months are held per patient, and everything else is kept in
+ * primitive arrays and int maps, so millions of visits need no per-row objects.
+ */
+public final class CohortRetention {
+    
+    /** Number of months after the first visit that are tracked */
+    public static final int HORIZON_MONTHS = 12;
+    
+    private final int[] cohortMonths;
+    private final int[] cohortSizes;
+    private final int[][] retained;
+    private final int[] returnedWithinHorizon;
+    private final int[] intervalDays;
+    private final long[] intervalCumulative;
+    private final long visitCount;
+    
+    private CohortRetention(Builder builder) {
+        this.cohortMonths = builder.rowOfMonth.sortedKeys();
+        int cohorts = cohortMonths.length;
+        this.cohortSizes = new int[cohorts];
+        this.retained = new int[cohorts][];
+        this.returnedWithinHorizon = new int[cohorts];
+        for (int i = 0; i < cohorts; i++) {
+            int row = builder.rowOfMonth.get(cohortMonths[i], -1);
+            cohortSizes[i] = builder.sizes[row];
+            returnedWithinHorizon[i] = builder.returnedAny[row];
+            retained[i] = Arrays.copyOfRange(builder.retained, row * HORIZON_MONTHS, (row + 1) * HORIZON_MONTHS);
+        }
+        
+        this.intervalDays = builder.intervalCounts.sortedKeys();
+        this.intervalCumulative = new long[intervalDays.length];
+        long seen = 0;
+        for (int i = 0; i < intervalDays.length; i++) {
+            seen += builder.intervalCounts.get(intervalDays[i], 0);
+            intervalCumulative[i] = seen;
+        }
+        this.visitCount = builder.visitCount;
+    }
+    
+    /**
+     * Get the cohorts
+     * @return Months with at least one first visit, oldest first
+     */
+    public List<YearMonth> getCohorts() {
+        List<YearMonth> cohorts = new ArrayList<>(cohortMonths.length);
+        for (int month : cohortMonths) {
+            cohorts.add(toYearMonth(month));
+        }
+        return cohorts;
+    }
+    
+    /**
+     * Number of patients whose first visit was in a month
+     * @param cohort Cohort month
+     * @return Cohort size (0 if no patient started that month)
+     */
+    public int cohortSize(YearMonth cohort) {
+        int i = indexOf(cohort);
+        return i < 0 ? 0 : cohortSizes[i];
+    }
+    
+    /**
+     * Number of patients of a cohort with a visit exactly monthsLater months after their first month
+     * @param cohort Cohort month
+     * @param monthsLater 1 to HORIZON_MONTHS
+     * @return Retained patients
+     */
+    public int retained(YearMonth cohort, int monthsLater) {
+        if (monthsLater < 1 || monthsLater > HORIZON_MONTHS) {
+            throw new IllegalArgumentException("Months later must be between 1 and " + HORIZON_MONTHS);
+        }
+        int i = indexOf(cohort);
+        return i < 0 ? 0 : retained[i][monthsLater - 1];
+    }
+    
+    /**
+     * Share of a cohort with a visit exactly monthsLater months after their first month
+     * @param cohort Cohort month
+     * @param monthsLater 1 to HORIZON_MONTHS
+     * @return Percentage (0 for an empty cohort)
+     */
+    public double retentionRate(YearMonth cohort, int monthsLater) {
+        int size = cohortSize(cohort);
+        return size == 0 ? 0 : retained(cohort, monthsLater) * 100.0 / size;
+    }
+    
+    /**
+     * Number of patients of a cohort who came back at least once in M+1 .. M+12
+     * @param cohort Cohort month
+     * @return Returning patients
+     */
+    public int returnedWithinHorizon(YearMonth cohort) {
+        int i = indexOf(cohort);
+        return i < 0 ? 0 : returnedWithinHorizon[i];
+    }
+    
+    /**
+     * Get the number of days between consecutive visits of the same patient at a
+     * percentile (visits on the same day are not counted as returns)
+     * @param percentile Percentile (0 to 100)
+     * @return Days, or 0 if no patient returned
+     */
+    public int returnIntervalPercentile(double percentile) {
+        if (intervalDays.length == 0) {
+            return 0;
+        }
+        long total = intervalCumulative[intervalCumulative.length - 1];
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        int i = Arrays.binarySearch(intervalCumulative, rank);
+        return intervalDays[i >= 0 ? i : -i - 1];
+    }
+    
+    /**
+     * Number of patients with at least one visit
+     * @return Patient count
+     */
+    public int getPatientCount() {
+        int patients = 0;
+        for (int size : cohortSizes) {
+            patients += size;
+        }
+        return patients;
+    }
+    
+    /**
+     * Number of visits read
+     * @return Visit count
+     */
+    public long getVisitCount() {
+        return visitCount;
+    }
+    
+    private int indexOf(YearMonth cohort) {
+        return Arrays.binarySearch(cohortMonths, cohort.getYear() * 12 + cohort.getMonthValue() - 1);
+    }
+    
+    private static YearMonth toYearMonth(int month) {
+        return YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1);
+    }
+    
+    /**
+     * Streaming accumulator. Visits must arrive ordered by patient ID, then by time.
+     */
+    public static final class Builder {
+        private final IntIntHashMap rowOfMonth = new IntIntHashMap(256);
+        private final IntIntHashMap intervalCounts = new IntIntHashMap(1024);
+        private int[] sizes = new int[64];
+        private int[] returnedAny = new int[64];
+        private int[] retained = new int[64 * HORIZON_MONTHS];
+        private long visitCount;
+        
+        private boolean hasPatient;
+        private int patientId;
+        private int firstMonth;
+        private int returnMask;
+        private int lastDay;
+        private int lastMinute;
+        
+        /**
+         * Add a visit
+         * @param patientId Patient ID
+         * @param epochMinute Visit time in minutes since 1970-01-01 00:00
+         * @throws IllegalArgumentException if visits are not in patient and time order
+         */
+        public void add(int patientId, int epochMinute) {
+            int day = Math.floorDiv(epochMinute, 24 * 60);
+            if (!hasPatient || patientId != this.patientId) {
+                if (hasPatient && patientId < this.patientId) {
+                    throw new IllegalArgumentException("Visits must be ordered by patient ID: "
+                            + patientId + " after " + this.patientId);
+                }
+                flushPatient();
+                hasPatient = true;
+                this.patientId = patientId;
+                firstMonth = monthOf(day);
+                returnMask = 0;
+            } else {
+                if (epochMinute < lastMinute) {
+                    throw new IllegalArgumentException("Visits of patient " + patientId + " must be ordered by time");
+                }
+                int monthsLater = monthOf(day) - firstMonth;
+                if (monthsLater >= 1 && monthsLater <= HORIZON_MONTHS) {
+                    returnMask |= 1 << (monthsLater - 1);
+                }
+                if (day > lastDay) {
+                    intervalCounts.addTo(day - lastDay, 1);
+                }
+            }
+            lastDay = day;
+            lastMinute = epochMinute;
+            visitCount++;
+        }
+        
+        /**
+         * Finish the last patient and build the result
+         * @return Cohort retention
+         */
+        public CohortRetention build() {
+            flushPatient();
+            hasPatient = false;
+            return new CohortRetention(this);
+        }
+        
+        private void flushPatient() {
+            if (!hasPatient) {
+                return;
+            }
+            int row = rowOfMonth.get(firstMonth, -1);
+            if (row < 0) {
+                row = rowOfMonth.size();
+                rowOfMonth.put(firstMonth, row);
+                if (row == sizes.length) {
+                    sizes = Arrays.copyOf(sizes, row * 2);
+                    returnedAny = Arrays.copyOf(returnedAny, row * 2);
+                    retained = Arrays.copyOf(retained, row * 2 * HORIZON_MONTHS);
+                }
+            }
+            sizes[row]++;
+            if (returnMask != 0) {
+                returnedAny[row]++;
+                int base = row * HORIZON_MONTHS;
+                for (int mask = returnMask; mask != 0; mask &= mask - 1) {
+                    retained[base + Integer.numberOfTrailingZeros(mask)]++;
+                }
+            }
+        }
+        
+        private static int monthOf(int epochDay) {
+            // Inverse of DateUtil.toEpochMinute's day count: March-based year and month
+            int day = epochDay + 719468;
+            int era = Math.floorDiv(day, 146097);
+            int dayOfEra = day - era * 146097;
+            int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+            int dayOfYear = dayOfEra - (yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100);
+            int marchMonth = (5 * dayOfYear + 2) / 153;
+            // March of year y is month y * 12 + 2; January and February roll into y + 1
+            return (era * 400 + yearOfEra) * 12 + marchMonth + 2;
+        }
+    }
+}
+
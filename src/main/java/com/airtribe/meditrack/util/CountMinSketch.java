@@ -0,0 +1,72 @@
+package com.airtribe.meditrack.util;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch over int keys.
+ * Keeps depth rows of width counters; a key adds to one counter per row and its
+ * estimate is the smallest of those counters. Estimates never undercount; they
+ * overcount by more than e/width of the total added with probability at most e^-depth.
+ * Not thread-safe.
+ */
+public class CountMinSketch {
+    
+    private final long[][] counters;
+    private final int mask;
+    
+    /**
+     * Create a sketch
+     * @param width Counters per row (rounded up to a power of two)
+     * @param depth Number of rows (independent hash functions)
+     */
+    public CountMinSketch(int width, int depth) {
+        int size = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.counters = new long[Math.max(1, depth)][size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Add to a key's count
+     * @param key Key
+     * @param count Amount to add (positive)
+     */
+    public void add(int key, long count) {
+        for (int row = 0; row < counters.length; row++) {
+            counters[row][index(key, row)] += count;
+        }
+    }
+    
+    /**
+     * Estimate a key's count
+     * @param key Key
+     * @return Estimated count (never below the true count)
+     */
+    public long estimate(int key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            min = Math.min(min, counters[row][index(key, row)]);
+        }
+        return min;
+    }
+    
+    /**
+     * Reset all counters
+     */
+    public void clear() {
+        for (long[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+    }
+    
+    private int index(int key, int row) {
+        // MurmurHash3 finalizer with a per-row seed
+        int h = key ^ (0x9E3779B9 * (row + 1));
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
+
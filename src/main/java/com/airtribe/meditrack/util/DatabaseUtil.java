@@ -11,6 +11,8 @@ public class DatabaseUtil {
     
     private static final Logger logger = Logger.getLogger(DatabaseUtil.class.getName());
     
+    private static volatile boolean fullTextSearchReady;
+    
     /**
      * Get database connection
      * @return Connection object
@@ -43,7 +45,8 @@ public class DatabaseUtil {
                     "medical_history TEXT, " +
                     "allergies TEXT, " +
                     "insurance_provider TEXT, " +
-                    "insurance_policy_number TEXT)";
+                    "insurance_policy_number TEXT, " +
+                    "name_phonetic TEXT)";
             
             // Create doctors table
             String createDoctorsTable = "CREATE TABLE IF NOT EXISTS doctors (" +
@@ -66,25 +69,39 @@ public class DatabaseUtil {
                     "status TEXT NOT NULL, " +
                     "reason TEXT, " +
                     "notes TEXT, " +
+                    "created_at TEXT, " +
+                    "confirmed_at TEXT, " +
                     "FOREIGN KEY (patient_id) REFERENCES patients(id), " +
                     "FOREIGN KEY (doctor_id) REFERENCES doctors(id))";
             
             // Create bills table
-            String createBillsTable = "CREATE TABLE IF NOT EXISTS bills (" +
-                    "id INTEGER PRIMARY KEY, " +
-                    "appointment_id INTEGER NOT NULL, " +
-                    "base_amount REAL NOT NULL, " +
-                    "tax_amount REAL NOT NULL, " +
-                    "total_amount REAL NOT NULL, " +
-                    "bill_date TEXT NOT NULL, " +
-                    "payment_status TEXT NOT NULL, " +
-                    "FOREIGN KEY (appointment_id) REFERENCES appointments(id))";
+            String createBillsTable = billsTableSql("bills");
             
             try (Statement stmt = conn.createStatement()) {
                 stmt.execute(createPatientsTable);
                 stmt.execute(createDoctorsTable);
                 stmt.execute(createAppointmentsTable);
                 stmt.execute(createBillsTable);
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_appointments_datetime " +
+                        "ON appointments(appointment_datetime)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_appointments_patient_datetime " +
+                        "ON appointments(patient_id, appointment_datetime, status)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_patients_date_of_birth " +
+                        "ON patients(date_of_birth)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_patients_email " +
+                        "ON patients(email COLLATE NOCASE)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_patients_phone_number " +
+                        "ON patients(phone_number)");
+                addPhoneticKeys(conn, stmt);
+                migrateBillsToCents(stmt);
+                addAppointmentTimestamps(stmt);
+                createDoctorStats(stmt);
+                createRevenueRollups(stmt);
+                stmt.execute("CREATE TABLE IF NOT EXISTS patient_sketches (" +
+                        "doctor_id INTEGER NOT NULL, " +
+                        "month TEXT NOT NULL, " +
+                        "sketch BLOB NOT NULL, " +
+                        "PRIMARY KEY (doctor_id, month)) WITHOUT ROWID");
                 conn.commit();
                 logger.info("Database schema initialized successfully");
             } catch (SQLException e) {
@@ -94,6 +111,382 @@ public class DatabaseUtil {
         }
     }
     
+    /**
+     * Add the patients.name_phonetic column to databases created before it existed,
+     * fill in missing keys and index the column
+     * @param conn Connection (inside the schema transaction)
+     * @param stmt Statement to execute with
+     * @throws SQLException if migration fails
+     */
+    private static void addPhoneticKeys(Connection conn, Statement stmt) throws SQLException {
+        boolean hasColumn = false;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(patients)")) {
+            while (rs.next()) {
+                hasColumn |= "name_phonetic".equals(rs.getString("name"));
+            }
+        }
+        if (!hasColumn) {
+            stmt.execute("ALTER TABLE patients ADD COLUMN name_phonetic TEXT");
+        }
+        
+        try (PreparedStatement update = conn.prepareStatement(
+                     "UPDATE patients SET name_phonetic = ? WHERE id = ?");
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM patients WHERE name_phonetic IS NULL")) {
+            int pending = 0;
+            while (rs.next()) {
+                update.setString(1, Soundex.encodeName(rs.getString("name")));
+                update.setInt(2, rs.getInt("id"));
+                update.addBatch();
+                pending++;
+            }
+            if (pending > 0) {
+                update.executeBatch();
+                logger.info("Computed phonetic keys for " + pending + " patients");
+            }
+        }
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_patients_name_phonetic ON patients(name_phonetic)");
+    }
+    
+    /**
+     * Create the doctor_stats table: appointment counts per doctor and status,
+     * kept in step with every write to appointments by triggers.
+     * Filled from the appointments table the first time the triggers are created.
+     * @param stmt Statement to execute with (inside the schema transaction)
+     * @throws SQLException if schema creation fails
+     */
+    private static void createDoctorStats(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS doctor_stats (" +
+                "doctor_id INTEGER NOT NULL, " +
+                "status TEXT NOT NULL, " +
+                "appointment_count INTEGER NOT NULL, " +
+                "PRIMARY KEY (doctor_id, status)) WITHOUT ROWID");
+        
+        boolean exists;
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'trigger' AND name = 'doctor_stats_ai'")) {
+            exists = rs.next();
+        }
+        if (exists) {
+            return;
+        }
+        
+        String increment = "INSERT OR IGNORE INTO doctor_stats (doctor_id, status, appointment_count) " +
+                "VALUES (new.doctor_id, new.status, 0); " +
+                "UPDATE doctor_stats SET appointment_count = appointment_count + 1 " +
+                "WHERE doctor_id = new.doctor_id AND status = new.status; ";
+        String decrement = "UPDATE doctor_stats SET appointment_count = appointment_count - 1 " +
+                "WHERE doctor_id = old.doctor_id AND status = old.status; ";
+        
+        stmt.execute("CREATE TRIGGER doctor_stats_ai AFTER INSERT ON appointments BEGIN " +
+                increment + "END");
+        stmt.execute("CREATE TRIGGER doctor_stats_ad AFTER DELETE ON appointments BEGIN " +
+                decrement + "END");
+        stmt.execute("CREATE TRIGGER doctor_stats_au AFTER UPDATE OF doctor_id, status ON appointments " +
+                "WHEN old.doctor_id <> new.doctor_id OR old.status <> new.status BEGIN " +
+                decrement + increment + "END");
+        
+        stmt.execute("DELETE FROM doctor_stats");
+        int rows = stmt.executeUpdate("INSERT INTO doctor_stats (doctor_id, status, appointment_count) " +
+                "SELECT doctor_id, status, COUNT(*) FROM appointments GROUP BY doctor_id, status");
+        logger.info("Doctor statistics built (" + rows + " rows)");
+    }
+    
+    /**
+     * Add the booking (created_at) and confirmation (confirmed_at) timestamps to
+     * an appointments table created before they existed. Older rows keep NULL,
+     * since their booking time is unknown.
+     * @param stmt Statement to execute with (inside the schema transaction)
+     * @throws SQLException if the migration fails
+     */
+    private static void addAppointmentTimestamps(Statement stmt) throws SQLException {
+        boolean hasCreatedAt = false;
+        boolean hasConfirmedAt = false;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(appointments)")) {
+            while (rs.next()) {
+                hasCreatedAt |= "created_at".equals(rs.getString("name"));
+                hasConfirmedAt |= "confirmed_at".equals(rs.getString("name"));
+            }
+        }
+        if (!hasCreatedAt) {
+            stmt.execute("ALTER TABLE appointments ADD COLUMN created_at TEXT");
+        }
+        if (!hasConfirmedAt) {
+            stmt.execute("ALTER TABLE appointments ADD COLUMN confirmed_at TEXT");
+        }
+    }
+    
+    /**
+     * Bills table definition; amounts are integer cents
+     * @param table Table name
+     * @return CREATE TABLE statement
+     */
+    private static String billsTableSql(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "id INTEGER PRIMARY KEY, " +
+                "appointment_id INTEGER NOT NULL, " +
+                "base_cents INTEGER NOT NULL, " +
+                "tax_cents INTEGER NOT NULL, " +
+                "total_cents INTEGER NOT NULL, " +
+                "bill_date TEXT NOT NULL, " +
+                "payment_status TEXT NOT NULL, " +
+                "FOREIGN KEY (appointment_id) REFERENCES appointments(id))";
+    }
+    
+    /**
+     * Convert a bills table with REAL amounts to integer cents. SQLite cannot
+     * drop the old NOT NULL columns, so the table is rebuilt; dropping it also
+     * drops the revenue triggers, which createRevenueRollups then recreates
+     * (and backfills) from the converted amounts. Tax is recomputed from the
+     * base with the same rounding as Bill, so base + tax = total holds exactly.
+     * @param stmt Statement to execute with (inside the schema transaction)
+     * @throws SQLException if the migration fails
+     */
+    private static void migrateBillsToCents(Statement stmt) throws SQLException {
+        boolean hasRealAmounts = false;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(bills)")) {
+            while (rs.next()) {
+                hasRealAmounts |= "total_amount".equals(rs.getString("name"));
+            }
+        }
+        if (!hasRealAmounts) {
+            return;
+        }
+        
+        // Same half-up rounding as Money.percentOf (amounts are non-negative)
+        String tax = "((base_cents * " + Constants.TAX_RATE_BASIS_POINTS + " + 5000) / 10000)";
+        stmt.execute("DROP TABLE IF EXISTS bills_cents");
+        stmt.execute(billsTableSql("bills_cents"));
+        int rows = stmt.executeUpdate("INSERT INTO bills_cents (id, appointment_id, base_cents, tax_cents, " +
+                "total_cents, bill_date, payment_status) " +
+                "SELECT id, appointment_id, base_cents, " + tax + ", base_cents + " + tax + ", " +
+                "bill_date, payment_status FROM (" +
+                "SELECT *, CAST(ROUND(base_amount * 100) AS INTEGER) AS base_cents FROM bills)");
+        stmt.execute("DROP TABLE bills");
+        stmt.execute("ALTER TABLE bills_cents RENAME TO bills");
+        logger.info("Converted " + rows + " bills to integer cents");
+    }
+    
+    /**
+     * Create the revenue rollup tables: paid bill totals (in cents) per day and
+     * per month, split by doctor. Triggers on bills apply every insert, update and
+     * delete of a paid bill, and triggers on appointments move a bill's cents to
+     * the new doctor when an appointment is reassigned (or to doctor 0 when it is
+     * deleted); the tables are backfilled when the triggers are created.
+     * @param stmt Statement to execute with (inside the schema transaction)
+     * @throws SQLException if schema creation fails
+     */
+    private static void createRevenueRollups(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS revenue_daily (" +
+                "day TEXT NOT NULL, " +
+                "doctor_id INTEGER NOT NULL, " +
+                "paid_cents INTEGER NOT NULL, " +
+                "PRIMARY KEY (day, doctor_id)) WITHOUT ROWID");
+        stmt.execute("CREATE TABLE IF NOT EXISTS revenue_monthly (" +
+                "month TEXT NOT NULL, " +
+                "doctor_id INTEGER NOT NULL, " +
+                "paid_cents INTEGER NOT NULL, " +
+                "PRIMARY KEY (month, doctor_id)) WITHOUT ROWID");
+        
+        boolean billTriggers = triggerExists(stmt, "revenue_rollup_ai");
+        boolean appointmentTriggers = triggerExists(stmt, "revenue_rollup_appointment_au");
+        if (billTriggers && appointmentTriggers) {
+            return;
+        }
+        
+        if (!billTriggers) {
+            String columns = "appointment_id, total_cents, bill_date, payment_status";
+            stmt.execute("CREATE TRIGGER revenue_rollup_ai AFTER INSERT ON bills " +
+                    "WHEN UPPER(new.payment_status) = 'PAID' BEGIN " + revenueDelta("new", "+") + "END");
+            stmt.execute("CREATE TRIGGER revenue_rollup_ad AFTER DELETE ON bills " +
+                    "WHEN UPPER(old.payment_status) = 'PAID' BEGIN " + revenueDelta("old", "-") + "END");
+            stmt.execute("CREATE TRIGGER revenue_rollup_au_old AFTER UPDATE OF " + columns + " ON bills " +
+                    "WHEN UPPER(old.payment_status) = 'PAID' BEGIN " + revenueDelta("old", "-") + "END");
+            stmt.execute("CREATE TRIGGER revenue_rollup_au_new AFTER UPDATE OF " + columns + " ON bills " +
+                    "WHEN UPPER(new.payment_status) = 'PAID' BEGIN " + revenueDelta("new", "+") + "END");
+        }
+        if (!appointmentTriggers) {
+            stmt.execute("CREATE TRIGGER revenue_rollup_appointment_au AFTER UPDATE OF doctor_id ON appointments " +
+                    "WHEN old.doctor_id IS NOT new.doctor_id BEGIN " +
+                    revenueMove("old.id", "old.doctor_id", "new.doctor_id") + "END");
+            stmt.execute("CREATE TRIGGER revenue_rollup_appointment_ad AFTER DELETE ON appointments BEGIN " +
+                    revenueMove("old.id", "old.doctor_id", "0") + "END");
+        }
+        
+        int rows = rebuildRevenueRollups(stmt);
+        logger.info("Revenue rollups built (" + rows + " daily buckets)");
+    }
+    
+    /**
+     * Trigger body that adds a bill row's total to its day and month buckets
+     * @param row "new" or "old"
+     * @param sign "+" to add, "-" to subtract
+     * @return SQL statements for the trigger body
+     */
+    private static String revenueDelta(String row, String sign) {
+        String doctor = "COALESCE((SELECT doctor_id FROM appointments WHERE id = " + row + ".appointment_id), 0)";
+        String cents = row + ".total_cents";
+        StringBuilder body = new StringBuilder();
+        String[][] buckets = {{"revenue_daily", "day", "10"}, {"revenue_monthly", "month", "7"}};
+        for (String[] bucket : buckets) {
+            String key = "substr(" + row + ".bill_date, 1, " + bucket[2] + ")";
+            body.append("INSERT OR IGNORE INTO ").append(bucket[0])
+                    .append(" (").append(bucket[1]).append(", doctor_id, paid_cents) VALUES (")
+                    .append(key).append(", ").append(doctor).append(", 0); ");
+            body.append("UPDATE ").append(bucket[0])
+                    .append(" SET paid_cents = paid_cents ").append(sign).append(" ").append(cents)
+                    .append(" WHERE ").append(bucket[1]).append(" = ").append(key)
+                    .append(" AND doctor_id = ").append(doctor).append("; ");
+        }
+        return body.toString();
+    }
+    
+    /**
+     * Trigger body that moves the paid bills of an appointment from one doctor's
+     * day and month buckets to another's
+     * @param appointmentId Expression for the appointment ID
+     * @param fromDoctor Expression for the doctor the cents are taken from
+     * @param toDoctor Expression for the doctor the cents are added to
+     * @return SQL statements for the trigger body
+     */
+    private static String revenueMove(String appointmentId, String fromDoctor, String toDoctor) {
+        String paidBills = "FROM bills WHERE appointment_id = " + appointmentId +
+                " AND UPPER(payment_status) = 'PAID'";
+        StringBuilder body = new StringBuilder();
+        String[][] buckets = {{"revenue_daily", "day", "10"}, {"revenue_monthly", "month", "7"}};
+        for (String[] bucket : buckets) {
+            String key = "substr(bill_date, 1, " + bucket[2] + ")";
+            String keys = bucket[1] + " IN (SELECT " + key + " " + paidBills + ")";
+            String cents = "(SELECT SUM(total_cents) " + paidBills + " AND " + key + " = " +
+                    bucket[0] + "." + bucket[1] + ")";
+            body.append("INSERT OR IGNORE INTO ").append(bucket[0])
+                    .append(" (").append(bucket[1]).append(", doctor_id, paid_cents) SELECT DISTINCT ")
+                    .append(key).append(", ").append(toDoctor).append(", 0 ").append(paidBills).append("; ");
+            body.append("UPDATE ").append(bucket[0])
+                    .append(" SET paid_cents = paid_cents - ").append(cents)
+                    .append(" WHERE doctor_id = ").append(fromDoctor).append(" AND ").append(keys).append("; ");
+            body.append("UPDATE ").append(bucket[0])
+                    .append(" SET paid_cents = paid_cents + ").append(cents)
+                    .append(" WHERE doctor_id = ").append(toDoctor).append(" AND ").append(keys).append("; ");
+        }
+        return body.toString();
+    }
+    
+    private static boolean triggerExists(Statement stmt, String name) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'trigger' AND name = '" + name + "'")) {
+            return rs.next();
+        }
+    }
+    
+    /**
+     * Recompute both revenue rollup tables from the bills table
+     * @param stmt Statement to execute with; the caller owns the transaction
+     * @return Number of daily buckets written
+     * @throws SQLException if the rebuild fails
+     */
+    public static int rebuildRevenueRollups(Statement stmt) throws SQLException {
+        stmt.executeUpdate("DELETE FROM revenue_daily");
+        stmt.executeUpdate("DELETE FROM revenue_monthly");
+        int rows = stmt.executeUpdate("INSERT INTO revenue_daily (day, doctor_id, paid_cents) " +
+                "SELECT substr(b.bill_date, 1, 10), COALESCE(a.doctor_id, 0), " +
+                "SUM(b.total_cents) " +
+                "FROM bills b LEFT JOIN appointments a ON a.id = b.appointment_id " +
+                "WHERE UPPER(b.payment_status) = 'PAID' GROUP BY 1, 2");
+        stmt.executeUpdate("INSERT INTO revenue_monthly (month, doctor_id, paid_cents) " +
+                "SELECT substr(day, 1, 7), doctor_id, SUM(paid_cents) FROM revenue_daily GROUP BY 1, 2");
+        return rows;
+    }
+    
+    /**
+     * Create the optional FTS5 mirror of the free-text columns, if not present yet.
+     * External-content tables index patients (name, medical_history, allergies) and
+     * appointments (reason, notes); triggers keep them in sync with every write.
+     * @throws SQLException if FTS5 is unavailable or schema creation fails
+     */
+    public static void ensureFullTextSearch() throws SQLException {
+        if (fullTextSearchReady) {
+            return;
+        }
+        synchronized (DatabaseUtil.class) {
+            if (fullTextSearchReady) {
+                return;
+            }
+            try (Connection conn = getConnection()) {
+                conn.setAutoCommit(false);
+                try (Statement stmt = conn.createStatement()) {
+                    createFullTextMirror(stmt, "patients", "name, medical_history, allergies");
+                    createFullTextMirror(stmt, "appointments", "reason, notes");
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+            fullTextSearchReady = true;
+            logger.info("Full-text search index ready");
+        }
+    }
+    
+    /**
+     * Check whether the FTS5 mirror exists, without creating anything
+     * @return true if both full-text tables are present
+     * @throws SQLException if database operation fails
+     */
+    public static boolean isFullTextSearchEnabled() throws SQLException {
+        if (fullTextSearchReady) {
+            return true;
+        }
+        String sql = "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' " +
+                     "AND name IN ('patients_fts', 'appointments_fts')";
+        
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            // Both mirrors are created in one transaction, so nothing else is missing
+            if (rs.next() && rs.getInt(1) == 2) {
+                fullTextSearchReady = true;
+            }
+        }
+        return fullTextSearchReady;
+    }
+    
+    /**
+     * Create FTS5 table plus sync triggers for a content table, and populate it once
+     * @param stmt Statement to execute with
+     * @param table Content table name
+     * @param columns Comma-separated list of indexed columns
+     * @throws SQLException if creation fails
+     */
+    private static void createFullTextMirror(Statement stmt, String table, String columns) throws SQLException {
+        String fts = table + "_fts";
+        boolean exists;
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + fts + "'")) {
+            exists = rs.next();
+        }
+        if (exists) {
+            return;
+        }
+        
+        String newValues = "new." + columns.replace(", ", ", new.");
+        String oldValues = "old." + columns.replace(", ", ", old.");
+        
+        stmt.execute("CREATE VIRTUAL TABLE " + fts + " USING fts5(" + columns + ", " +
+                "content='" + table + "', content_rowid='id', " +
+                "tokenize='unicode61 remove_diacritics 2')");
+        stmt.execute("CREATE TRIGGER " + fts + "_ai AFTER INSERT ON " + table + " BEGIN " +
+                "INSERT INTO " + fts + "(rowid, " + columns + ") VALUES (new.id, " + newValues + "); END");
+        stmt.execute("CREATE TRIGGER " + fts + "_ad AFTER DELETE ON " + table + " BEGIN " +
+                "INSERT INTO " + fts + "(" + fts + ", rowid, " + columns + ") " +
+                "VALUES ('delete', old.id, " + oldValues + "); END");
+        stmt.execute("CREATE TRIGGER " + fts + "_au AFTER UPDATE ON " + table + " BEGIN " +
+                "INSERT INTO " + fts + "(" + fts + ", rowid, " + columns + ") " +
+                "VALUES ('delete', old.id, " + oldValues + "); " +
+                "INSERT INTO " + fts + "(rowid, " + columns + ") VALUES (new.id, " + newValues + "); END");
+        stmt.execute("INSERT INTO " + fts + "(" + fts + ") VALUES ('rebuild')");
+    }
+    
     /**
      * Close connection safely
      * @param conn Connection to close
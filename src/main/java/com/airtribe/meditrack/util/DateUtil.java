@@ -3,6 +3,7 @@ package com.airtribe.meditrack.util;
 import com.airtribe.meditrack.constants.Constants;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
@@ -70,6 +71,61 @@ public class DateUtil {
         }
     }
     
+    /**
+     * Convert a date/time to minutes since 1970-01-01 00:00 (no time zone)
+     * @param dateTime DateTime to convert
+     * @return Epoch minute
+     */
+    public static int toEpochMinute(LocalDateTime dateTime) {
+        return (int) Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+    
+    /**
+     * Convert a stored date/time string to minutes since 1970-01-01 00:00.
+     * Reads the digits of yyyy-MM-dd HH:mm directly, so bulk loads do not create
+     * a LocalDateTime per row; other formats go through parseDateTime.
+     * @param dateTimeString DateTime string (format: yyyy-MM-dd HH:mm)
+     * @return Epoch minute
+     * @throws DateTimeParseException if parsing fails
+     */
+    public static int toEpochMinute(String dateTimeString) throws DateTimeParseException {
+        String s = dateTimeString;
+        if (s == null || s.length() != 16 || s.charAt(4) != '-' || s.charAt(7) != '-'
+                || s.charAt(13) != ':') {
+            return toEpochMinute(parseDateTime(s));
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 7);
+        int day = digits(s, 8, 10);
+        int hour = digits(s, 11, 13);
+        int minute = digits(s, 14, 16);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59) {
+            return toEpochMinute(parseDateTime(s));
+        }
+        
+        // Days since 1970-01-01 in the proleptic Gregorian calendar (March-based years)
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        int epochDay = era * 146097 + dayOfEra - 719468;
+        return epochDay * 1440 + hour * 60 + minute;
+    }
+    
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+    
     /**
      * Check if date is in the past
      * @param date Date to check
@@ -0,0 +1,228 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Specialization;
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+import com.airtribe.meditrack.repository.AppointmentRepository;
+import com.airtribe.meditrack.repository.DoctorRepository;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Daily appointment demand per doctor and per specialization, forecast with a
+ * weekly Holt-Winters model per series. The models are fitted from the
+ * history on the first forecast and then advanced by one update per completed
+ * day; bookings are tracked from appointment events once fitted. After that a
+ * forecast is a few dozen arithmetic operations on in-memory state, never a
+ * database query.
+ * Changes to days that are already fitted (back-dated bookings or cancellations
+ * of past appointments) are only picked up by rebuild().
+ */
+public class DemandForecaster {
+    
+    private static final Logger logger = Logger.getLogger(DemandForecaster.class.getName());
+    
+    private static final int SEASON_DAYS = 7;
+    private static final double ALPHA = 0.1;
+    private static final double BETA = 0.01;
+    private static final double GAMMA = 0.1;
+    private static final double PHI = 0.9;
+    
+    private static volatile DemandForecaster instance;
+    
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final Map<Integer, DailySeries> byDoctor = new HashMap<>();
+    private final Map<Specialization, DailySeries> bySpecialization = new EnumMap<>(Specialization.class);
+    private final Map<Integer, Specialization> specializationOfDoctor = new HashMap<>();
+    private boolean loaded;
+    
+    private DemandForecaster() {
+        this.appointmentRepository = new AppointmentRepository();
+        this.doctorRepository = new DoctorRepository();
+        EntityChangeNotifier.appointments().addListener(new EntityChangeListener<Appointment>() {
+            @Override
+            public void onCreated(Appointment entity) {
+                record(entity, 1);
+            }
+            
+            @Override
+            public void onUpdated(Appointment previous, Appointment current) {
+                record(previous, -1);
+                record(current, 1);
+            }
+            
+            @Override
+            public void onDeleted(Appointment entity) {
+                record(entity, -1);
+            }
+        });
+        EntityChangeNotifier.doctors().addListener(new EntityChangeListener<Doctor>() {
+            @Override
+            public void onCreated(Doctor entity) {
+                setSpecialization(entity);
+            }
+            
+            @Override
+            public void onUpdated(Doctor previous, Doctor current) {
+                setSpecialization(current);
+            }
+            
+            @Override
+            public void onDeleted(Doctor entity) {
+                removeDoctor(entity.getId());
+            }
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * @return DemandForecaster instance
+     */
+    public static DemandForecaster getInstance() {
+        if (instance == null) {
+            synchronized (DemandForecaster.class) {
+                if (instance == null) {
+                    instance = new DemandForecaster();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Refit all models from the appointment history
+     * @throws SQLException if database operation fails
+     */
+    public synchronized void rebuild() throws SQLException {
+        byDoctor.clear();
+        bySpecialization.clear();
+        specializationOfDoctor.clear();
+        doctorRepository.forEach(doctor -> specializationOfDoctor.put(doctor.getId(), doctor.getSpecialization()));
+        appointmentRepository.forEachDailyCountByDoctor((doctorId, day, count) ->
+                byDoctor.computeIfAbsent(doctorId, id -> new DailySeries()).add(day, count));
+        appointmentRepository.forEachDailyCountBySpecialization((specialization, day, count) ->
+                bySpecialization.computeIfAbsent(specialization, key -> new DailySeries()).add(day, count));
+        
+        LocalDate today = LocalDate.now();
+        byDoctor.values().forEach(series -> series.advanceTo(today));
+        bySpecialization.values().forEach(series -> series.advanceTo(today));
+        loaded = true;
+        logger.info("Demand models fitted (" + byDoctor.size() + " doctors, "
+                + bySpecialization.size() + " specializations)");
+    }
+    
+    /**
+     * Forecast a doctor's daily appointments, starting today
+     * @param doctorId Doctor ID
+     * @param days Number of days
+     * @return Map of day to expected appointments, in day order (zeros for doctors without history)
+     * @throws SQLException if the models have to be fitted and the database read fails
+     */
+    public synchronized Map<LocalDate, Double> forecastDoctor(int doctorId, int days) throws SQLException {
+        ensureLoaded();
+        DailySeries series = byDoctor.get(doctorId);
+        return (series == null ? new DailySeries() : series).forecast(LocalDate.now(), days);
+    }
+    
+    /**
+     * Forecast a specialization's daily appointments, starting today
+     * @param specialization Specialization
+     * @param days Number of days
+     * @return Map of day to expected appointments, in day order (zeros without history)
+     * @throws SQLException if the models have to be fitted and the database read fails
+     */
+    public synchronized Map<LocalDate, Double> forecastSpecialization(Specialization specialization, int days)
+            throws SQLException {
+        ensureLoaded();
+        DailySeries series = bySpecialization.get(specialization);
+        return (series == null ? new DailySeries() : series).forecast(LocalDate.now(), days);
+    }
+    
+    private void ensureLoaded() throws SQLException {
+        if (!loaded) {
+            rebuild();
+        }
+    }
+    
+    // Before the first fit the history read covers every change, so events are ignored
+    private synchronized void record(Appointment appointment, int delta) {
+        if (!loaded) {
+            return;
+        }
+        if (appointment.getStatus() == AppointmentStatus.CANCELLED || appointment.getAppointmentDateTime() == null) {
+            return;
+        }
+        LocalDate day = appointment.getAppointmentDateTime().toLocalDate();
+        byDoctor.computeIfAbsent(appointment.getDoctorId(), id -> new DailySeries()).add(day, delta);
+        Specialization specialization = specializationOfDoctor.get(appointment.getDoctorId());
+        if (specialization != null) {
+            bySpecialization.computeIfAbsent(specialization, key -> new DailySeries()).add(day, delta);
+        }
+    }
+    
+    private synchronized void setSpecialization(Doctor doctor) {
+        specializationOfDoctor.put(doctor.getId(), doctor.getSpecialization());
+    }
+    
+    private synchronized void removeDoctor(int doctorId) {
+        specializationOfDoctor.remove(doctorId);
+        byDoctor.remove(doctorId);
+    }
+    
+    /**
+     * Daily non-cancelled appointment counts of one doctor or specialization
+     */
+    private static final class DailySeries {
+        private final HoltWinters model = new HoltWinters(SEASON_DAYS, ALPHA, BETA, GAMMA, PHI);
+        // Counts of the days not fitted yet (today and later, or earlier days before the first catch-up)
+        private final TreeMap<LocalDate, Integer> booked = new TreeMap<>();
+        // First day not fed to the model; null until the series has a first day
+        private LocalDate nextDay;
+        
+        void add(LocalDate day, int delta) {
+            if (nextDay != null && day.isBefore(nextDay)) {
+                return;
+            }
+            booked.merge(day, delta, Integer::sum);
+            if (booked.get(day) <= 0) {
+                booked.remove(day);
+            }
+        }
+        
+        void advanceTo(LocalDate today) {
+            if (nextDay == null) {
+                if (booked.isEmpty() || !booked.firstKey().isBefore(today)) {
+                    return;
+                }
+                nextDay = booked.firstKey();
+            }
+            while (nextDay.isBefore(today)) {
+                Integer count = booked.remove(nextDay);
+                model.update(count == null ? 0 : count);
+                nextDay = nextDay.plusDays(1);
+            }
+        }
+        
+        Map<LocalDate, Double> forecast(LocalDate today, int days) {
+            advanceTo(today);
+            double[] expected = model.forecast(days);
+            Map<LocalDate, Double> forecast = new TreeMap<>();
+            for (int i = 0; i < days; i++) {
+                LocalDate day = today.plusDays(i);
+                // Appointments already booked are a floor for the day's demand
+                forecast.put(day, Math.max(expected[i], booked.getOrDefault(day, 0)));
+            }
+            return forecast;
+        }
+    }
+}
+
@@ -0,0 +1,118 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Constants;
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+import com.airtribe.meditrack.repository.AppointmentRepository;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Upcoming appointments per doctor, loaded with one grouped query and kept for
+ * LOAD_CACHE_SECONDS. Bookings and cancellations made in between adjust the
+ * cached counts, so a burst of recommendations within one cache period is
+ * still spread over the doctors.
+ */
+public class DoctorLoadCache {
+    
+    private static volatile DoctorLoadCache instance;
+    
+    private final AppointmentRepository appointmentRepository;
+    private Map<Integer, Integer> upcoming;
+    private long loadedAtNanos;
+    
+    private DoctorLoadCache() {
+        this.appointmentRepository = new AppointmentRepository();
+        EntityChangeNotifier.appointments().addListener(new EntityChangeListener<Appointment>() {
+            @Override
+            public void onCreated(Appointment entity) {
+                adjust(entity, 1);
+            }
+            
+            @Override
+            public void onUpdated(Appointment previous, Appointment current) {
+                adjust(previous, -1);
+                adjust(current, 1);
+            }
+            
+            @Override
+            public void onDeleted(Appointment entity) {
+                adjust(entity, -1);
+            }
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * @return DoctorLoadCache instance
+     */
+    public static DoctorLoadCache getInstance() {
+        if (instance == null) {
+            synchronized (DoctorLoadCache.class) {
+                if (instance == null) {
+                    instance = new DoctorLoadCache();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Get the number of upcoming non-cancelled appointments of a doctor,
+     * reloading all counts if the cache has expired
+     * @param doctorId Doctor ID
+     * @return Upcoming appointments
+     * @throws SQLException if database operation fails
+     */
+    public synchronized int upcomingCount(int doctorId) throws SQLException {
+        long maxAge = TimeUnit.SECONDS.toNanos(Constants.LOAD_CACHE_SECONDS);
+        if (upcoming == null || System.nanoTime() - loadedAtNanos > maxAge) {
+            upcoming = appointmentRepository.countUpcomingByDoctor(LocalDateTime.now());
+            loadedAtNanos = System.nanoTime();
+        }
+        return upcoming.getOrDefault(doctorId, 0);
+    }
+    
+    /**
+     * Pick the least busy candidate: the lowest (upcoming + 1) / (free slots + 1),
+     * so a doctor with few bookings but no near-term openings is not preferred
+     * over one with a few more bookings and a free week. Ties go to the earlier
+     * candidate.
+     * @param candidates Candidates
+     * @param upcoming Upcoming appointments of a candidate
+     * @param freeSlots Free near-term slots of a candidate
+     * @return Least busy candidate, or null if there are none
+     */
+    public static <T> T pickLeastBusy(List<T> candidates, ToIntFunction<T> upcoming, ToIntFunction<T> freeSlots) {
+        T best = null;
+        long bestLoad = 0;
+        long bestFree = 0;
+        for (T candidate : candidates) {
+            long load = upcoming.applyAsInt(candidate) + 1L;
+            long free = freeSlots.applyAsInt(candidate) + 1L;
+            // load / free < bestLoad / bestFree, without division
+            if (best == null || load * bestFree < bestLoad * free) {
+                best = candidate;
+                bestLoad = load;
+                bestFree = free;
+            }
+        }
+        return best;
+    }
+    
+    private synchronized void adjust(Appointment appointment, int delta) {
+        if (upcoming == null || appointment.getStatus() == AppointmentStatus.CANCELLED
+                || appointment.getAppointmentDateTime() == null
+                || appointment.getAppointmentDateTime().isBefore(LocalDateTime.now())) {
+            return;
+        }
+        upcoming.merge(appointment.getDoctorId(), delta, Integer::sum);
+    }
+}
+
@@ -0,0 +1,91 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.repository.DoctorStatsRepository;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Background job that periodically checks the trigger-maintained doctor_stats
+ * counts against the appointments table and repairs any drift.
+ */
+public class DoctorStatsReconciler {
+    
+    private static final Logger logger = Logger.getLogger(DoctorStatsReconciler.class.getName());
+    
+    private static volatile DoctorStatsReconciler instance;
+    
+    private final DoctorStatsRepository doctorStatsRepository;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> task;
+    
+    private DoctorStatsReconciler() {
+        this.doctorStatsRepository = new DoctorStatsRepository();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "doctor-stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * @return DoctorStatsReconciler instance
+     */
+    public static DoctorStatsReconciler getInstance() {
+        if (instance == null) {
+            synchronized (DoctorStatsReconciler.class) {
+                if (instance == null) {
+                    instance = new DoctorStatsReconciler();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Run the reconciliation now and then every interval; replaces an earlier schedule
+     * @param intervalMinutes Minutes between runs
+     */
+    public synchronized void start(long intervalMinutes) {
+        stop();
+        task = scheduler.scheduleWithFixedDelay(this::runQuietly, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Stop the periodic reconciliation
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+    
+    /**
+     * Reconcile once on the calling thread
+     * @return Number of (doctor, status) counts that were repaired
+     * @throws SQLException if database operation fails
+     */
+    public int reconcile() throws SQLException {
+        int repaired = doctorStatsRepository.reconcile();
+        if (repaired > 0) {
+            logger.warning("Doctor statistics drifted; repaired " + repaired + " counts");
+        }
+        return repaired;
+    }
+    
+    private void runQuietly() {
+        try {
+            reconcile();
+        } catch (SQLException e) {
+            // Keep the schedule alive; the next run tries again
+            logger.warning("Doctor statistics reconciliation failed: " + e.getMessage());
+        }
+    }
+}
+
@@ -0,0 +1,101 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Subject side of the entity change observers.
+ * Services fire events after a successful database write; in-memory
+ * indexes register as listeners to stay in sync with SQLite.
+ */
+public class EntityChangeNotifier<T> {
+    
+    private static final Logger logger = Logger.getLogger(EntityChangeNotifier.class.getName());
+    
+    private static final EntityChangeNotifier<Patient> PATIENTS = new EntityChangeNotifier<>();
+    private static final EntityChangeNotifier<Doctor> DOCTORS = new EntityChangeNotifier<>();
+    private static final EntityChangeNotifier<Appointment> APPOINTMENTS = new EntityChangeNotifier<>();
+    
+    private final List<EntityChangeListener<T>> listeners = new CopyOnWriteArrayList<>();
+    
+    private EntityChangeNotifier() {
+    }
+    
+    public static EntityChangeNotifier<Patient> patients() {
+        return PATIENTS;
+    }
+    
+    public static EntityChangeNotifier<Doctor> doctors() {
+        return DOCTORS;
+    }
+    
+    public static EntityChangeNotifier<Appointment> appointments() {
+        return APPOINTMENTS;
+    }
+    
+    /**
+     * Add listener
+     * @param listener Listener to add
+     */
+    public void addListener(EntityChangeListener<T> listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Remove listener
+     * @param listener Listener to remove
+     */
+    public void removeListener(EntityChangeListener<T> listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Notify listeners of a created entity
+     * @param entity Created entity
+     */
+    public void fireCreated(T entity) {
+        for (EntityChangeListener<T> listener : listeners) {
+            try {
+                listener.onCreated(entity);
+            } catch (RuntimeException e) {
+                logger.warning("Change listener failed: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Notify listeners of an updated entity
+     * @param previous Entity state before the update
+     * @param current Entity state after the update
+     */
+    public void fireUpdated(T previous, T current) {
+        for (EntityChangeListener<T> listener : listeners) {
+            try {
+                listener.onUpdated(previous, current);
+            } catch (RuntimeException e) {
+                logger.warning("Change listener failed: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Notify listeners of a deleted entity
+     * @param entity Deleted entity
+     */
+    public void fireDeleted(T entity) {
+        for (EntityChangeListener<T> listener : listeners) {
+            try {
+                listener.onDeleted(entity);
+            } catch (RuntimeException e) {
+                logger.warning("Change listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
+
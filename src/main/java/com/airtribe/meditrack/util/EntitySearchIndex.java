@@ -0,0 +1,231 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.entity.Person;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+import com.airtribe.meditrack.interfaces.Searchable;
+import com.airtribe.meditrack.repository.DoctorRepository;
+import com.airtribe.meditrack.repository.PatientRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-memory search indexes for one entity type.
+ * Built from the database on first use and kept in sync through
+ * entity change events, so searches never touch SQLite.
+ */
+public class EntitySearchIndex<T extends Person & Searchable> implements EntityChangeListener<T> {
+    
+    private static volatile EntitySearchIndex<Patient> patientIndex;
+    private static volatile EntitySearchIndex<Doctor> doctorIndex;
+    
+    private final Loader<T> loader;
+    private final Function<T, String[]> matchFields;
+    private final Function<T, int[]> matchKeys;
+    private final InvertedIndex textIndex = new InvertedIndex();
+    private final TrigramIndex nameIndex = new TrigramIndex();
+    private final NameTrie nameTrie = new NameTrie();
+    private final FuzzyNameIndex fuzzyIndex = new FuzzyNameIndex();
+    private volatile boolean built;
+    private volatile SearchSnapshot<T> snapshot;
+    private final AtomicInteger changeCount = new AtomicInteger();
+    
+    /**
+     * Source used to populate the index on first use
+     */
+    public interface Loader<T> {
+        void forEach(Consumer<T> action) throws SQLException;
+    }
+    
+    private EntitySearchIndex(Loader<T> loader, Function<T, String[]> matchFields, Function<T, int[]> matchKeys) {
+        this.loader = loader;
+        this.matchFields = matchFields;
+        this.matchKeys = matchKeys;
+    }
+    
+    /**
+     * Get patient index (thread-safe lazy initialization)
+     * @return Patient search index
+     */
+    public static EntitySearchIndex<Patient> patients() {
+        if (patientIndex == null) {
+            synchronized (EntitySearchIndex.class) {
+                if (patientIndex == null) {
+                    EntitySearchIndex<Patient> index = new EntitySearchIndex<>(new PatientRepository()::forEach,
+                            p -> new String[] {p.getName(), p.getEmail()},
+                            p -> new int[] {p.getId(), p.getAge()});
+                    EntityChangeNotifier.patients().addListener(index);
+                    patientIndex = index;
+                }
+            }
+        }
+        return patientIndex;
+    }
+    
+    /**
+     * Get doctor index (thread-safe lazy initialization)
+     * @return Doctor search index
+     */
+    public static EntitySearchIndex<Doctor> doctors() {
+        if (doctorIndex == null) {
+            synchronized (EntitySearchIndex.class) {
+                if (doctorIndex == null) {
+                    EntitySearchIndex<Doctor> index = new EntitySearchIndex<>(new DoctorRepository()::forEach,
+                            d -> new String[] {d.getName(), d.getSpecialization().toString(), d.getLicenseNumber()},
+                            d -> new int[] {d.getId()});
+                    EntityChangeNotifier.doctors().addListener(index);
+                    doctorIndex = index;
+                }
+            }
+        }
+        return doctorIndex;
+    }
+    
+    /**
+     * Full-text search over the entities' searchable text
+     * @param query Free-text query
+     * @param limit Maximum number of results
+     * @return Ranked hits
+     * @throws SQLException if the initial build fails
+     */
+    public List<InvertedIndex.Hit> search(String query, int limit) throws SQLException {
+        ensureBuilt();
+        return textIndex.search(query, limit);
+    }
+    
+    /**
+     * Case-insensitive substring search over entity names
+     * @param fragment Name fragment (e.g. "ohn do")
+     * @return Matching IDs in ascending order
+     * @throws SQLException if the initial build fails
+     */
+    public List<Integer> searchByName(String fragment) throws SQLException {
+        ensureBuilt();
+        return nameIndex.search(fragment);
+    }
+    
+    /**
+     * Prefix autocomplete over entity names (any word of the name)
+     * @param prefix Typed prefix
+     * @param limit Maximum number of completions
+     * @return Completions in alphabetical order
+     * @throws SQLException if the initial build fails
+     */
+    public List<NameTrie.Completion> autocomplete(String prefix, int limit) throws SQLException {
+        ensureBuilt();
+        return nameTrie.complete(prefix, limit);
+    }
+    
+    /**
+     * Typo-tolerant name search
+     * @param name Possibly misspelled name
+     * @param maxDistance Maximum edits per word
+     * @param limit Maximum number of results
+     * @return Matching IDs, fewest edits first
+     * @throws SQLException if the initial build fails
+     */
+    public List<Integer> fuzzySearchByName(String name, int maxDistance, int limit) throws SQLException {
+        ensureBuilt();
+        return fuzzyIndex.search(name, maxDistance, limit);
+    }
+    
+    /**
+     * Evaluate the entities' matches() rules in parallel over an immutable snapshot.
+     * The snapshot is taken on first use and dropped on any entity change.
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return Best matches first
+     * @throws SQLException if the snapshot cannot be loaded
+     */
+    public List<T> match(String query, int limit) throws SQLException {
+        return currentSnapshot().search(query, limit);
+    }
+    
+    /**
+     * Get the current snapshot, taking a new one if entities changed since the last
+     * @return Immutable snapshot
+     * @throws SQLException if loading fails
+     */
+    public SearchSnapshot<T> currentSnapshot() throws SQLException {
+        SearchSnapshot<T> current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    int changesBefore = changeCount.get();
+                    List<T> entities = new ArrayList<>();
+                    loader.forEach(entities::add);
+                    current = SearchSnapshot.of(entities, T::getId, matchFields, matchKeys);
+                    // Only keep it if no entity changed while loading
+                    if (changeCount.get() == changesBefore) {
+                        snapshot = current;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Drop the index contents; the next search rebuilds from the database
+     */
+    public synchronized void invalidate() {
+        built = false;
+        dropSnapshot();
+        textIndex.clear();
+        nameIndex.clear();
+        nameTrie.clear();
+        fuzzyIndex.clear();
+    }
+    
+    @Override
+    public void onCreated(T entity) {
+        dropSnapshot();
+        index(entity);
+    }
+    
+    @Override
+    public void onUpdated(T previous, T current) {
+        dropSnapshot();
+        index(current);
+    }
+    
+    @Override
+    public void onDeleted(T entity) {
+        dropSnapshot();
+        textIndex.remove(entity.getId());
+        nameIndex.remove(entity.getId());
+        nameTrie.remove(entity.getId());
+        fuzzyIndex.remove(entity.getId());
+    }
+    
+    private void dropSnapshot() {
+        changeCount.incrementAndGet();
+        snapshot = null;
+    }
+    
+    private void index(T entity) {
+        textIndex.put(entity.getId(), entity.getSearchableText());
+        nameIndex.put(entity.getId(), entity.getName());
+        nameTrie.put(entity.getId(), entity.getName());
+        fuzzyIndex.put(entity.getId(), entity.getName());
+    }
+    
+    private void ensureBuilt() throws SQLException {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    loader.forEach(this::index);
+                    built = true;
+                }
+            }
+        }
+    }
+}
+
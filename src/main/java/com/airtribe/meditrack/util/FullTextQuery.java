@@ -0,0 +1,54 @@
+package com.airtribe.meditrack.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FullTextQuery {
+    
+    /**
+     * Translate user input into a safe FTS5 MATCH expression.
+     * Supported syntax: plain words (all must match), "quoted phrases"
+     * and prefix terms ending in * (e.g. diab*). Every term is quoted, so
+     * FTS5 operators typed by the user are treated as plain text.
+     * @param input User query
+     * @return MATCH expression, or an empty string if nothing searchable remains
+     */
+    public static String toMatchExpression(String input) {
+        if (input == null) {
+            return "";
+        }
+        List<String> parts = new ArrayList<>();
+        int i = 0;
+        while (i < input.length()) {
+            char c = input.charAt(i);
+            if (c == '"') {
+                int end = input.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = input.length();
+                }
+                List<String> tokens = TextNormalizer.tokenize(input.substring(i + 1, end));
+                if (!tokens.isEmpty()) {
+                    parts.add("\"" + String.join(" ", tokens) + "\"");
+                }
+                i = end + 1;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int end = i;
+                while (end < input.length() && !Character.isWhitespace(input.charAt(end))
+                        && input.charAt(end) != '"') {
+                    end++;
+                }
+                String word = input.substring(i, end);
+                List<String> tokens = TextNormalizer.tokenize(word);
+                for (int t = 0; t < tokens.size(); t++) {
+                    boolean prefix = word.endsWith("*") && t == tokens.size() - 1;
+                    parts.add("\"" + tokens.get(t) + "\"" + (prefix ? "*" : ""));
+                }
+                i = end;
+            }
+        }
+        return String.join(" ", parts);
+    }
+}
+
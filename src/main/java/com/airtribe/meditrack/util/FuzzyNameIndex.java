@@ -0,0 +1,303 @@
+package com.airtribe.meditrack.util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant name lookup with bounded edit distance.
+ * Distinct name words are kept in a BK-tree, so finding every word within
+ * distance k of a query word only compares against a small part of the
+ * vocabulary. The rarest query word drives the candidate set and the other
+ * words are checked against each candidate's own name words.
+ */
+public class FuzzyNameIndex {
+    
+    private BkNode root;
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Integer, String[]> words = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private static final class BkNode {
+        private final String word;
+        private BkNode[] children = new BkNode[0];
+        
+        BkNode(String word) {
+            this.word = word;
+        }
+    }
+    
+    /**
+     * Add or replace a name
+     * @param id Entity ID
+     * @param name Name to index
+     */
+    public void put(int id, String name) {
+        String[] tokens = TextNormalizer.tokenize(name).toArray(new String[0]);
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            words.put(id, tokens);
+            for (String token : tokens) {
+                PostingList list = postings.get(token);
+                if (list == null) {
+                    list = new PostingList();
+                    postings.put(token, list);
+                    insertWord(token);
+                }
+                list.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove a name
+     * @param id Entity ID
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove all names
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            postings.clear();
+            words.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Find names where every query word is within the edit distance of some name word.
+     * Words of up to 2 characters must match exactly and words of up to 4 allow one edit.
+     * @param query Possibly misspelled name
+     * @param maxDistance Maximum edits per word
+     * @param limit Maximum number of results
+     * @return Matching IDs, fewest total edits first
+     */
+    public List<Integer> search(String query, int maxDistance, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            List<Map<String, Integer>> matched = new ArrayList<>(tokens.size());
+            int driver = 0;
+            long driverCost = Long.MAX_VALUE;
+            for (String token : tokens) {
+                Map<String, Integer> similar = findSimilar(token, allowedDistance(token, maxDistance));
+                if (similar.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                long cost = 0;
+                for (String word : similar.keySet()) {
+                    cost += postings.get(word).size();
+                }
+                if (cost < driverCost) {
+                    driverCost = cost;
+                    driver = matched.size();
+                }
+                matched.add(similar);
+            }
+            
+            // Candidates come from the rarest query word; the others are checked per candidate
+            Map<Integer, Integer> totals = new HashMap<>();
+            for (Map.Entry<String, Integer> entry : matched.get(driver).entrySet()) {
+                PostingList list = postings.get(entry.getKey());
+                int[] ids = list.ids();
+                for (int i = 0; i < list.size(); i++) {
+                    String[] nameWords = words.get(ids[i]);
+                    int total = entry.getValue();
+                    for (int t = 0; t < matched.size() && total >= 0; t++) {
+                        if (t != driver) {
+                            int best = closest(nameWords, matched.get(t));
+                            total = best < 0 ? -1 : total + best;
+                        }
+                    }
+                    if (total >= 0) {
+                        totals.merge(ids[i], total, Math::min);
+                    }
+                }
+            }
+            
+            List<int[]> results = new ArrayList<>(totals.size());
+            for (Map.Entry<Integer, Integer> entry : totals.entrySet()) {
+                results.add(new int[] {entry.getKey(), entry.getValue()});
+            }
+            results.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[0], b[0]));
+            List<Integer> ids = new ArrayList<>(Math.min(limit, results.size()));
+            for (int i = 0; i < results.size() && i < limit; i++) {
+                ids.add(results.get(i)[0]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Number of indexed names
+     * @return Size
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return words.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Levenshtein distance between two strings
+     * @param a First string
+     * @param b Second string
+     * @return Number of single-character insertions, deletions or substitutions
+     */
+    public static int distance(String a, String b) {
+        return distance(a, b, Integer.MAX_VALUE, new int[b.length() + 1], new int[b.length() + 1]);
+    }
+    
+    /**
+     * Levenshtein distance that gives up once it must exceed the cutoff
+     * @return Exact distance, or a value greater than cutoff
+     */
+    private static int distance(String a, String b, int cutoff, int[] previous, int[] current) {
+        if (Math.abs(a.length() - b.length()) > cutoff) {
+            return cutoff + 1;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > cutoff) {
+                return cutoff + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+    
+    private static int allowedDistance(String token, int maxDistance) {
+        if (token.length() <= 2) {
+            return 0;
+        }
+        return token.length() <= 4 ? Math.min(1, maxDistance) : maxDistance;
+    }
+    
+    private static int closest(String[] nameWords, Map<String, Integer> similar) {
+        int best = -1;
+        for (String word : nameWords) {
+            Integer d = similar.get(word);
+            if (d != null && (best < 0 || d < best)) {
+                best = d;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Walk the BK-tree; by the triangle inequality only children at distance
+     * d - k .. d + k from the current node can hold a match
+     */
+    private Map<String, Integer> findSimilar(String token, int k) {
+        Map<String, Integer> similar = new HashMap<>();
+        if (root == null) {
+            return similar;
+        }
+        int[] previous = new int[32];
+        int[] current = new int[32];
+        Deque<BkNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            BkNode node = stack.pop();
+            if (node.word.length() >= previous.length) {
+                previous = new int[node.word.length() + 1];
+                current = new int[node.word.length() + 1];
+            }
+            // Beyond the last child's distance + k nothing below can match, so stop computing there
+            int cutoff = Math.max(k, node.children.length - 1 + k);
+            int d = distance(token, node.word, cutoff, previous, current);
+            if (d <= k) {
+                PostingList list = postings.get(node.word);
+                if (list != null && list.size() > 0) {
+                    similar.put(node.word, d);
+                }
+            }
+            int to = Math.min(node.children.length - 1, d + k);
+            for (int i = Math.max(0, d - k); i <= to; i++) {
+                if (node.children[i] != null) {
+                    stack.push(node.children[i]);
+                }
+            }
+        }
+        return similar;
+    }
+    
+    private void insertWord(String word) {
+        if (root == null) {
+            root = new BkNode(word);
+            return;
+        }
+        BkNode node = root;
+        while (true) {
+            int d = distance(word, node.word);
+            if (d == 0) {
+                return;
+            }
+            if (d >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, d + 1);
+            }
+            if (node.children[d] == null) {
+                node.children[d] = new BkNode(word);
+                return;
+            }
+            node = node.children[d];
+        }
+    }
+    
+    /**
+     * Words stay in the BK-tree after their last name is removed; their
+     * posting list is dropped so searches skip them
+     */
+    private void removeUnlocked(int id) {
+        String[] previous = words.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String token : previous) {
+            PostingList list = postings.get(token);
+            if (list != null) {
+                list.remove(id);
+                if (list.size() == 0) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+}
+
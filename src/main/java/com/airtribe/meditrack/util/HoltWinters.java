@@ -0,0 +1,152 @@
+package com.airtribe.meditrack.util;
+
+/**
+ * Additive Holt-Winters (triple exponential smoothing) with a damped trend,
+ * fitted one observation at a time. State is a level, a trend and one
+ * seasonal offset per position in the season, so an update and a forecast
+ * cost O(1) and O(horizon) whatever the length of the history.
+ * The first two seasons are buffered to initialize the state; until then
+ * forecasts fall back to the same position last season, or the mean so far.
+ * Not thread-safe.
+ */
+public class HoltWinters {
+    
+    private final int seasonLength;
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final double phi;
+    
+    private final double[] warmup;
+    private final double[] seasonal;
+    private long observations;
+    private double level;
+    private double trend;
+    private int position;
+    
+    /**
+     * Create an unfitted model
+     * @param seasonLength Observations per season (e.g. 7 for daily data with a weekly cycle)
+     * @param alpha Level smoothing (0 to 1)
+     * @param beta Trend smoothing (0 to 1)
+     * @param gamma Seasonal smoothing (0 to 1)
+     * @param phi Trend damping (0 to 1; 1 keeps a linear trend)
+     */
+    public HoltWinters(int seasonLength, double alpha, double beta, double gamma, double phi) {
+        if (seasonLength < 2) {
+            throw new IllegalArgumentException("Season length must be at least 2: " + seasonLength);
+        }
+        if (!inUnitRange(alpha) || !inUnitRange(beta) || !inUnitRange(gamma) || !inUnitRange(phi)) {
+            throw new IllegalArgumentException("Smoothing parameters must be between 0 and 1");
+        }
+        this.seasonLength = seasonLength;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.phi = phi;
+        this.warmup = new double[2 * seasonLength];
+        this.seasonal = new double[seasonLength];
+    }
+    
+    /**
+     * Add the next observation of the series
+     * @param value Observed value
+     */
+    public void update(double value) {
+        if (observations < warmup.length) {
+            warmup[(int) observations++] = value;
+            if (observations == warmup.length) {
+                initialize();
+            }
+            return;
+        }
+        smooth(value);
+        observations++;
+    }
+    
+    /**
+     * Forecast the next observations (negative values are reported as 0)
+     * @param horizon Number of steps ahead
+     * @return Forecasts for steps 1 .. horizon
+     */
+    public double[] forecast(int horizon) {
+        double[] forecasts = new double[Math.max(0, horizon)];
+        if (observations < warmup.length) {
+            for (int h = 0; h < forecasts.length; h++) {
+                forecasts[h] = warmupForecast(h);
+            }
+            return forecasts;
+        }
+        double damping = 0;
+        double factor = 1;
+        for (int h = 0; h < forecasts.length; h++) {
+            factor *= phi;
+            damping += factor;
+            double value = level + damping * trend + seasonal[(position + h) % seasonLength];
+            forecasts[h] = Math.max(0, value);
+        }
+        return forecasts;
+    }
+    
+    /**
+     * Number of observations fitted so far
+     * @return Observation count
+     */
+    public long getObservationCount() {
+        return observations;
+    }
+    
+    private void initialize() {
+        double firstMean = mean(0);
+        double secondMean = mean(seasonLength);
+        level = firstMean;
+        trend = (secondMean - firstMean) / seasonLength;
+        for (int i = 0; i < seasonLength; i++) {
+            seasonal[i] = ((warmup[i] - firstMean) + (warmup[seasonLength + i] - secondMean)) / 2;
+        }
+        // The first season seeds the state; the second is smoothed as usual
+        position = 0;
+        for (int i = seasonLength; i < warmup.length; i++) {
+            smooth(warmup[i]);
+        }
+    }
+    
+    private void smooth(double value) {
+        double season = seasonal[position];
+        double previousLevel = level;
+        level = alpha * (value - season) + (1 - alpha) * (previousLevel + phi * trend);
+        trend = beta * (level - previousLevel) + (1 - beta) * phi * trend;
+        seasonal[position] = gamma * (value - level) + (1 - gamma) * season;
+        position = (position + 1) % seasonLength;
+    }
+    
+    private double warmupForecast(int step) {
+        int seen = (int) observations;
+        if (seen == 0) {
+            return 0;
+        }
+        if (seen >= seasonLength) {
+            // Same position in the last complete season
+            int back = seasonLength - step % seasonLength;
+            return warmup[seen - back];
+        }
+        double sum = 0;
+        for (int i = 0; i < seen; i++) {
+            sum += warmup[i];
+        }
+        return sum / seen;
+    }
+    
+    private double mean(int from) {
+        double sum = 0;
+        for (int i = from; i < from + seasonLength; i++) {
+            sum += warmup[i];
+        }
+        return sum / seasonLength;
+    }
+    
+    private static boolean inUnitRange(double value) {
+        return value >= 0 && value <= 1;
+    }
+}
+
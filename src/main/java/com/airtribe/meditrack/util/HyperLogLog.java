@@ -0,0 +1,225 @@
+package com.airtribe.meditrack.util;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct-count sketch over long keys.
+ * Keeps 2^precision one-byte registers; a key is hashed to 64 bits, the top
+ * precision bits pick a register and the register keeps the longest run of
+ * leading zeros (+1) seen in the remaining bits. The estimate has a relative
+ * standard error of about 1.04 / sqrt(2^precision): 1.6% at the default
+ * precision of 12, so roughly 95% of estimates are within 3.3% and nearly all
+ * within 5%; small counts (a few hundred) are close to exact.
+ * Sketches of the same precision merge by taking the register-wise maximum, and
+ * the merged sketch is exactly the sketch of the union, so any roll-up keeps the
+ * same error bound. Adding a key twice changes nothing. Not thread-safe.
+ */
+public class HyperLogLog {
+    
+    public static final int DEFAULT_PRECISION = 12;
+    
+    private static final byte DENSE = 1;
+    private static final byte SPARSE = 2;
+    
+    private final int precision;
+    private final byte[] registers;
+    
+    /**
+     * Create an empty sketch with the default precision
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+    
+    /**
+     * Create an empty sketch
+     * @param precision Number of index bits (4 to 16); memory is 2^precision bytes
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+    
+    /**
+     * Add a key
+     * @param key Key (e.g. a patient ID)
+     * @return true if the sketch changed
+     */
+    public boolean add(long key) {
+        long hash = mix(key);
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first 1-bit after the index bits; a sentinel bit caps it at 64 - precision + 1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Merge another sketch into this one (union)
+     * @param other Sketch with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+    
+    /**
+     * Estimate the number of distinct keys added
+     * Uses Ertl's improved estimator over the register histogram, which stays
+     * unbiased from small to large counts without the raw estimator's switch to
+     * linear counting (and the bias around that switch).
+     * @return Estimated distinct count
+     */
+    public long estimate() {
+        int q = 64 - precision;
+        int[] histogram = new int[q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        double m = registers.length;
+        if (histogram[0] == registers.length) {
+            return 0;
+        }
+        double z = m * tau(1 - histogram[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma(histogram[0] / m);
+        return Math.round(m * m / (2 * Math.log(2)) / z);
+    }
+    
+    /**
+     * Get the precision
+     * @return Number of index bits
+     */
+    public int getPrecision() {
+        return precision;
+    }
+    
+    /**
+     * Serialize the sketch; small sketches are stored sparsely
+     * (3 bytes per non-zero register) instead of one byte per register
+     * @return Serialized sketch
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * 3 >= registers.length) {
+            byte[] bytes = new byte[2 + registers.length];
+            bytes[0] = DENSE;
+            bytes[1] = (byte) precision;
+            System.arraycopy(registers, 0, bytes, 2, registers.length);
+            return bytes;
+        }
+        byte[] bytes = new byte[2 + nonZero * 3];
+        bytes[0] = SPARSE;
+        bytes[1] = (byte) precision;
+        int offset = 2;
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != 0) {
+                bytes[offset++] = (byte) (i >>> 8);
+                bytes[offset++] = (byte) i;
+                bytes[offset++] = registers[i];
+            }
+        }
+        return bytes;
+    }
+    
+    /**
+     * Deserialize a sketch written by toBytes()
+     * @param bytes Serialized sketch
+     * @return Sketch
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 2) {
+            throw new IllegalArgumentException("Not a HyperLogLog sketch");
+        }
+        HyperLogLog sketch = new HyperLogLog(bytes[1]);
+        if (bytes[0] == DENSE && bytes.length == 2 + sketch.registers.length) {
+            System.arraycopy(bytes, 2, sketch.registers, 0, sketch.registers.length);
+        } else if (bytes[0] == SPARSE && (bytes.length - 2) % 3 == 0) {
+            for (int offset = 2; offset < bytes.length; offset += 3) {
+                int index = ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+                sketch.registers[index] = bytes[offset + 2];
+            }
+        } else {
+            throw new IllegalArgumentException("Not a HyperLogLog sketch");
+        }
+        return sketch;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HyperLogLog)) return false;
+        HyperLogLog other = (HyperLogLog) o;
+        return precision == other.precision && Arrays.equals(registers, other.registers);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registers);
+    }
+    
+    private static double sigma(double x) {
+        if (x == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+    
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+    
+    /**
+     * 64-bit finalizer (MurmurHash3 fmix64) so sequential IDs spread over all bits
+     */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
+
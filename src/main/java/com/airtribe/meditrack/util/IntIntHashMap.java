@@ -0,0 +1,160 @@
+package com.airtribe.meditrack.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from int to int without boxing: keys and values live in two
+ * parallel arrays with open addressing and linear probing. Meant for bulk
+ * counting jobs over millions of rows, where HashMap&lt;Integer, Integer&gt;
+ * would allocate an entry and two boxes per key. No removal. Not thread-safe.
+ */
+public class IntIntHashMap {
+    
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+    
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+    // Key 0 marks free slots, so its value is kept on the side
+    private boolean hasZeroKey;
+    private int zeroValue;
+    
+    /**
+     * Create an empty map
+     */
+    public IntIntHashMap() {
+        this(16);
+    }
+    
+    /**
+     * Create an empty map
+     * @param expectedSize Number of keys to hold before the first resize
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) * 2 - 1);
+        allocate(capacity);
+    }
+    
+    /**
+     * Get the value of a key
+     * @param key Key
+     * @param defaultValue Value to return if the key is absent
+     * @return Value, or defaultValue
+     */
+    public int get(int key, int defaultValue) {
+        if (key == FREE) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+    
+    /**
+     * Check whether a key is present
+     * @param key Key
+     * @return true if present
+     */
+    public boolean containsKey(int key) {
+        return key == FREE ? hasZeroKey : keys[slotOf(key)] == key;
+    }
+    
+    /**
+     * Set the value of a key
+     * @param key Key
+     * @param value Value
+     */
+    public void put(int key, int value) {
+        if (key == FREE) {
+            size += hasZeroKey ? 0 : 1;
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            if (++size > resizeAt) {
+                values[slot] = value;
+                resize();
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+    
+    /**
+     * Add to the value of a key, starting from 0 if absent
+     * @param key Key
+     * @param delta Amount to add
+     * @return New value
+     */
+    public int addTo(int key, int delta) {
+        int value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+    
+    /**
+     * Number of keys
+     * @return Size
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Get all keys in ascending order
+     * @return Sorted keys
+     */
+    public int[] sortedKeys() {
+        int[] sorted = new int[size];
+        int n = 0;
+        if (hasZeroKey) {
+            sorted[n++] = FREE;
+        }
+        for (int key : keys) {
+            if (key != FREE) {
+                sorted[n++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+    
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+    
+    private static int mix(int key) {
+        // Spread sequential IDs and months across the table (murmur3 finalizer)
+        int h = key * 0x85ebca6b;
+        return h ^ (h >>> 16);
+    }
+}
+
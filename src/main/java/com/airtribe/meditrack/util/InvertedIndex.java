@@ -0,0 +1,226 @@
+package com.airtribe.meditrack.util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from normalized terms to sorted posting lists of ids.
+ * Documents can be added, replaced and removed incrementally. Queries are
+ * ranked by the summed IDF weight of the query terms each document contains.
+ */
+public class InvertedIndex {
+    
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Integer, String[]> documentTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * Search result with its relevance score
+     */
+    public static final class Hit {
+        private final int id;
+        private final double score;
+        
+        public Hit(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+        
+        public int getId() {
+            return id;
+        }
+        
+        public double getScore() {
+            return score;
+        }
+        
+        @Override
+        public String toString() {
+            return "Hit{id=" + id + ", score=" + String.format("%.3f", score) + '}';
+        }
+    }
+    
+    /**
+     * Add or replace a document
+     * @param id Document ID
+     * @param text Document text
+     */
+    public void put(int id, String text) {
+        String[] terms = new LinkedHashSet<>(TextNormalizer.tokenize(text)).toArray(new String[0]);
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new PostingList()).add(id);
+            }
+            documentTerms.put(id, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove a document
+     * @param id Document ID
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove all documents
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Get number of indexed documents
+     * @return Document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Search documents containing any of the query terms
+     * @param query Free-text query
+     * @param limit Maximum number of results
+     * @return Hits ordered by descending score, then ascending ID
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            int n = 0;
+            int[][] lists = new int[terms.size()][];
+            int[] sizes = new int[terms.size()];
+            double[] weights = new double[terms.size()];
+            double total = documentTerms.size();
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list != null) {
+                    lists[n] = list.ids();
+                    sizes[n] = list.size();
+                    weights[n] = Math.log(1 + total / list.size());
+                    n++;
+                }
+            }
+            return merge(lists, sizes, weights, n, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Multi-way merge over sorted posting lists with MaxScore pruning.
+     * Lists are ordered by weight; once the top-k heap is full, the lowest-weight
+     * lists whose combined weight cannot beat the current threshold are no longer
+     * iterated, only probed by binary search for candidates from the other lists.
+     */
+    private static List<Hit> merge(int[][] lists, int[] sizes, double[] weights, int n, int limit) {
+        Comparator<Hit> worstFirst = Comparator.comparingDouble(Hit::getScore)
+                .thenComparing(Comparator.comparingInt(Hit::getId).reversed());
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, worstFirst);
+        
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> weights[i]));
+        int[][] docs = new int[n][];
+        int[] len = new int[n];
+        double[] weight = new double[n];
+        double[] prefix = new double[n];
+        for (int i = 0; i < n; i++) {
+            docs[i] = lists[order[i]];
+            len[i] = sizes[order[i]];
+            weight[i] = weights[order[i]];
+            prefix[i] = weight[i] + (i > 0 ? prefix[i - 1] : 0);
+        }
+        
+        int[] pos = new int[n];
+        int essential = 0;
+        double threshold = Double.NEGATIVE_INFINITY;
+        
+        while (essential < n) {
+            int min = Integer.MAX_VALUE;
+            for (int i = essential; i < n; i++) {
+                if (pos[i] < len[i] && docs[i][pos[i]] < min) {
+                    min = docs[i][pos[i]];
+                }
+            }
+            if (min == Integer.MAX_VALUE) {
+                break;
+            }
+            double score = 0;
+            for (int i = essential; i < n; i++) {
+                if (pos[i] < len[i] && docs[i][pos[i]] == min) {
+                    score += weight[i];
+                    pos[i]++;
+                }
+            }
+            for (int j = essential - 1; j >= 0 && score + prefix[j] > threshold; j--) {
+                int idx = Arrays.binarySearch(docs[j], pos[j], len[j], min);
+                if (idx >= 0) {
+                    score += weight[j];
+                    pos[j] = idx + 1;
+                } else {
+                    pos[j] = -idx - 1;
+                }
+            }
+            
+            if (top.size() < limit) {
+                top.add(new Hit(min, score));
+            } else if (score > threshold) {
+                top.poll();
+                top.add(new Hit(min, score));
+            }
+            if (top.size() == limit) {
+                threshold = top.peek().getScore();
+                while (essential < n && prefix[essential] <= threshold) {
+                    essential++;
+                }
+            }
+        }
+        
+        List<Hit> result = new ArrayList<>(top);
+        result.sort(worstFirst.reversed());
+        return result;
+    }
+    
+    private void removeUnlocked(int id) {
+        String[] terms = documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list != null && list.remove(id) && list.size() == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+}
+
@@ -0,0 +1,155 @@
+package com.airtribe.meditrack.util;
+
+/**
+ * Log-linear (HDR-style) histogram of non-negative long values.
+ * Values below 2^precisionBits get a bucket each; above that, every power-of-two
+ * range is split into 2^precisionBits equal buckets, so a bucket is never wider
+ * than 1/2^precisionBits of its values (1.6% at 6 bits). Memory is fixed by the
+ * precision and the largest trackable value, whatever the number of recordings.
+ * Histograms with the same layout merge by adding counts. Not thread-safe.
+ */
+public class LogHistogram {
+    
+    private final int precisionBits;
+    private final long maxValue;
+    private final long[] counts;
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    
+    /**
+     * Create an empty histogram
+     * @param precisionBits Sub-bucket bits per power of two (1 to 16)
+     * @param maxValue Largest trackable value; larger values are recorded as this
+     */
+    public LogHistogram(int precisionBits, long maxValue) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("Precision must be between 1 and 16 bits: " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        this.maxValue = Math.max(1, maxValue);
+        this.counts = new long[indexOf(this.maxValue) + 1];
+    }
+    
+    /**
+     * Record a value
+     * @param value Value (negative values are recorded as 0)
+     */
+    public void record(long value) {
+        record(value, 1);
+    }
+    
+    /**
+     * Record a value several times
+     * @param value Value (negative values are recorded as 0)
+     * @param count Number of occurrences
+     */
+    public void record(long value, long count) {
+        long clamped = Math.min(Math.max(0, value), maxValue);
+        counts[indexOf(clamped)] += count;
+        totalCount += count;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+    
+    /**
+     * Add another histogram's counts to this one
+     * @param other Histogram with the same precision and maximum
+     */
+    public void merge(LogHistogram other) {
+        if (other.precisionBits != precisionBits || other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Cannot merge histograms with different layouts");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+    
+    /**
+     * Get the value at a percentile: the middle of the bucket holding it,
+     * kept within the recorded minimum and maximum
+     * @param percentile Percentile (0 to 100)
+     * @return Value, or 0 if nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double clamped = Math.min(100, Math.max(0, percentile));
+        long rank = Math.max(1, (long) Math.ceil(clamped / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long low = lowestValueAt(i);
+                long middle = low + (lowestValueAt(i + 1) - low - 1) / 2;
+                return Math.min(max, Math.max(min, middle));
+            }
+        }
+        return max;
+    }
+    
+    /**
+     * Get the number of recorded values
+     * @return Count
+     */
+    public long getCount() {
+        return totalCount;
+    }
+    
+    /**
+     * Get the smallest recorded value
+     * @return Minimum, or 0 if nothing was recorded
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+    
+    /**
+     * Get the largest recorded value
+     * @return Maximum, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max;
+    }
+    
+    /**
+     * Create an empty histogram with the same layout
+     * @return Empty histogram
+     */
+    public LogHistogram emptyCopy() {
+        return new LogHistogram(precisionBits, maxValue);
+    }
+    
+    /**
+     * Create a copy with the same counts
+     * @return Copy
+     */
+    public LogHistogram copy() {
+        LogHistogram copy = emptyCopy();
+        copy.merge(this);
+        return copy;
+    }
+    
+    private int indexOf(long value) {
+        int linear = 1 << precisionBits;
+        if (value < linear) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+        return ((shift + 1) << precisionBits) + (int) ((value >>> shift) - linear);
+    }
+    
+    private long lowestValueAt(int index) {
+        int linear = 1 << precisionBits;
+        if (index < linear) {
+            return index;
+        }
+        int shift = (index >>> precisionBits) - 1;
+        return (long) (linear + (index & (linear - 1))) << shift;
+    }
+}
+
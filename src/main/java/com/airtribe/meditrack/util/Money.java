@@ -0,0 +1,48 @@
+package com.airtribe.meditrack.util;
+
+/**
+ * Money in minor units (cents) held in a long.
+ * Bill amounts are stored, computed and summed as cents, so totals are exact;
+ * doubles only appear at the edges (doctor fees, user input) and are converted
+ * once with toCents().
+ */
+public final class Money {
+    
+    private static final long BASIS_POINTS_PER_UNIT = 10_000;
+    
+    private Money() {
+    }
+    
+    /**
+     * Convert an amount to cents, rounding half away from zero
+     * @param amount Amount in currency units (e.g. 12.345)
+     * @return Amount in cents (e.g. 1235)
+     */
+    public static long toCents(double amount) {
+        return Math.round(Math.abs(amount) * 100) * (amount < 0 ? -1 : 1);
+    }
+    
+    /**
+     * Compute a percentage of an amount, rounding half away from zero
+     * @param cents Amount in cents
+     * @param basisPoints Rate in basis points (1000 = 10%)
+     * @return Share of the amount in cents
+     */
+    public static long percentOf(long cents, long basisPoints) {
+        long product = Math.multiplyExact(Math.abs(cents), Math.abs(basisPoints));
+        long share = (product + BASIS_POINTS_PER_UNIT / 2) / BASIS_POINTS_PER_UNIT;
+        return (cents < 0) != (basisPoints < 0) ? -share : share;
+    }
+    
+    /**
+     * Format an amount with two decimals, without going through double
+     * @param cents Amount in cents
+     * @return Formatted amount (e.g. "-12.05")
+     */
+    public static String format(long cents) {
+        long units = Math.abs(cents / 100);
+        long fraction = Math.abs(cents % 100);
+        return (cents < 0 ? "-" : "") + units + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
+
@@ -0,0 +1,295 @@
+package com.airtribe.meditrack.util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed (radix) trie of normalized names for prefix autocomplete.
+ * Every word start of a name is inserted as a key, so "doe" completes
+ * "John Doe" as well as "jo" does. Completions are returned in alphabetical
+ * key order and the walk stops as soon as enough distinct ids are found,
+ * so a lookup costs O(prefix length + results) regardless of the number of names.
+ */
+public class NameTrie {
+    
+    private final Node root = new Node("");
+    private final Map<Integer, String> names = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * Autocomplete suggestion
+     */
+    public static final class Completion {
+        private final int id;
+        private final String name;
+        
+        public Completion(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+        
+        public int getId() {
+            return id;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        @Override
+        public String toString() {
+            return name + " (#" + id + ")";
+        }
+    }
+    
+    private static final class Node {
+        private String label;
+        private Node[] children = new Node[0];
+        private int[] ids = new int[0];
+        
+        Node(String label) {
+            this.label = label;
+        }
+        
+        int childIndex(char c) {
+            int lo = 0;
+            int hi = children.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char mc = children[mid].label.charAt(0);
+                if (mc < c) {
+                    lo = mid + 1;
+                } else if (mc > c) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(lo + 1);
+        }
+        
+        void addChild(Node child) {
+            int idx = -childIndex(child.label.charAt(0)) - 1;
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, idx);
+            grown[idx] = child;
+            System.arraycopy(children, idx, grown, idx + 1, children.length - idx);
+            children = grown;
+        }
+        
+        void removeChild(int idx) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, idx);
+            System.arraycopy(children, idx + 1, shrunk, idx, children.length - idx - 1);
+            children = shrunk;
+        }
+    }
+    
+    /**
+     * Add or replace the name of an id
+     * @param id Entity ID
+     * @param name Display name
+     */
+    public void put(int id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            if (name == null) {
+                return;
+            }
+            names.put(id, name);
+            for (String key : keys(name)) {
+                insert(root, key, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove an id
+     * @param id Entity ID
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove all names
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children = new Node[0];
+            root.ids = new int[0];
+            names.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the first completions for a prefix
+     * @param prefix Typed prefix (case and accent insensitive)
+     * @param limit Maximum number of completions
+     * @return Completions in alphabetical order
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String key = TextNormalizer.normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < key.length()) {
+                int idx = node.childIndex(key.charAt(matched));
+                if (idx < 0) {
+                    return Collections.emptyList();
+                }
+                Node child = node.children[idx];
+                int common = commonPrefix(child.label, key, matched);
+                if (matched + common == key.length()) {
+                    node = child;
+                    break;
+                }
+                if (common < child.label.length()) {
+                    return Collections.emptyList();
+                }
+                matched += common;
+                node = child;
+            }
+            
+            Set<Integer> found = new LinkedHashSet<>();
+            collect(node, found, limit);
+            List<Completion> result = new ArrayList<>(found.size());
+            for (int id : found) {
+                result.add(new Completion(id, names.get(id)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static boolean collect(Node node, Set<Integer> found, int limit) {
+        for (int id : node.ids) {
+            found.add(id);
+            if (found.size() >= limit) {
+                return true;
+            }
+        }
+        for (Node child : node.children) {
+            if (collect(child, found, limit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static void insert(Node node, String key, int id) {
+        int pos = 0;
+        while (pos < key.length()) {
+            int idx = node.childIndex(key.charAt(pos));
+            if (idx < 0) {
+                Node leaf = new Node(key.substring(pos));
+                leaf.ids = new int[] {id};
+                node.addChild(leaf);
+                return;
+            }
+            Node child = node.children[idx];
+            int common = commonPrefix(child.label, key, pos);
+            if (common < child.label.length()) {
+                // Split the edge at the divergence point
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children = new Node[] {child};
+                node.children[idx] = split;
+                child = split;
+            }
+            pos += common;
+            node = child;
+        }
+        if (Arrays.binarySearch(node.ids, id) < 0) {
+            int[] grown = Arrays.copyOf(node.ids, node.ids.length + 1);
+            grown[grown.length - 1] = id;
+            Arrays.sort(grown);
+            node.ids = grown;
+        }
+    }
+    
+    /**
+     * Remove id from key; prunes empty leaves and re-merges single-child nodes
+     * @return true if the node became empty and should be removed by the parent
+     */
+    private static boolean delete(Node node, String key, int pos, int id) {
+        if (pos == key.length()) {
+            int idx = Arrays.binarySearch(node.ids, id);
+            if (idx >= 0) {
+                int[] shrunk = new int[node.ids.length - 1];
+                System.arraycopy(node.ids, 0, shrunk, 0, idx);
+                System.arraycopy(node.ids, idx + 1, shrunk, idx, node.ids.length - idx - 1);
+                node.ids = shrunk;
+            }
+        } else {
+            int idx = node.childIndex(key.charAt(pos));
+            if (idx < 0) {
+                return false;
+            }
+            Node child = node.children[idx];
+            if (!key.startsWith(child.label, pos)) {
+                return false;
+            }
+            if (delete(child, key, pos + child.label.length(), id)) {
+                node.removeChild(idx);
+            } else if (child.ids.length == 0 && child.children.length == 1) {
+                Node only = child.children[0];
+                only.label = child.label + only.label;
+                node.children[idx] = only;
+            }
+        }
+        return node.ids.length == 0 && node.children.length == 0;
+    }
+    
+    private void removeUnlocked(int id) {
+        String previous = names.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String key : keys(previous)) {
+            delete(root, key, 0, id);
+        }
+    }
+    
+    /**
+     * Keys for a name: the normalized name starting at each word
+     */
+    private static Set<String> keys(String name) {
+        String normalized = TextNormalizer.normalize(name);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                keys.add(normalized.substring(i));
+            }
+        }
+        return keys;
+    }
+    
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
+
@@ -0,0 +1,69 @@
+package com.airtribe.meditrack.util;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, growable int array of document ids used by the in-memory indexes
+ */
+class PostingList {
+    
+    private int[] ids = new int[4];
+    private int size;
+    
+    /**
+     * Add id, keeping the list sorted (appending is the common case)
+     * @param id Document ID
+     */
+    void add(int id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int idx = Arrays.binarySearch(ids, 0, size, id);
+            if (idx >= 0) {
+                return;
+            }
+            insertAt(-idx - 1, id);
+            return;
+        }
+        insertAt(size, id);
+    }
+    
+    /**
+     * Remove id
+     * @param id Document ID
+     * @return true if the id was present
+     */
+    boolean remove(int id) {
+        int idx = Arrays.binarySearch(ids, 0, size, id);
+        if (idx < 0) {
+            return false;
+        }
+        System.arraycopy(ids, idx + 1, ids, idx, size - idx - 1);
+        size--;
+        return true;
+    }
+    
+    boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+    
+    /**
+     * Backing array; only the first size() entries are valid
+     * @return Sorted id array
+     */
+    int[] ids() {
+        return ids;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private void insertAt(int idx, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, idx, ids, idx + 1, size - idx);
+        ids[idx] = id;
+        size++;
+    }
+}
+
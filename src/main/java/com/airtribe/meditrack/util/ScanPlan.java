@@ -0,0 +1,132 @@
+package com.airtribe.meditrack.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Shared-scan execution for reports.
+ * Metrics register accumulators on the tables (sources) they need; execute()
+ * then reads every source exactly once, feeding each row to all accumulators of
+ * that source, and reads different sources concurrently. Accumulators of one
+ * source run on one thread, so they need no synchronization; their results may
+ * be read once execute() has returned.
+ */
+public class ScanPlan {
+    
+    private static final ExecutorService SCAN_EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), runnable -> {
+                Thread thread = new Thread(runnable, "report-scan");
+                thread.setDaemon(true);
+                return thread;
+            });
+    
+    private final List<Source<?>> sources = new ArrayList<>();
+    
+    /**
+     * Reads all rows of a table (or query) and hands each one to a sink
+     */
+    @FunctionalInterface
+    public interface Scanner<T> {
+        void scan(Consumer<T> sink) throws SQLException;
+    }
+    
+    /**
+     * Register a source
+     * @param name Source name (for error messages)
+     * @param scanner Reads the rows
+     * @return Source to register accumulators on
+     */
+    public <T> Source<T> source(String name, Scanner<T> scanner) {
+        Source<T> source = new Source<>(name, scanner);
+        sources.add(source);
+        return source;
+    }
+    
+    /**
+     * Run one scan per source that has accumulators, concurrently
+     * @throws SQLException if a scan fails
+     */
+    public void execute() throws SQLException {
+        List<Source<?>> needed = new ArrayList<>();
+        for (Source<?> source : sources) {
+            if (!source.accumulators.isEmpty()) {
+                needed.add(source);
+            }
+        }
+        if (needed.size() == 1) {
+            needed.get(0).run();
+            return;
+        }
+        
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Source<?> source : needed) {
+            futures.add(SCAN_EXECUTOR.submit(() -> {
+                source.run();
+                return null;
+            }));
+        }
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new SQLException("Scan of " + needed.get(i).name + " failed", cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Report scan interrupted", e);
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    /**
+     * A table read once per execute(), with the accumulators fed from it
+     */
+    public static final class Source<T> {
+        private final String name;
+        private final Scanner<T> scanner;
+        private final List<Consumer<? super T>> accumulators = new ArrayList<>();
+        
+        private Source(String name, Scanner<T> scanner) {
+            this.name = name;
+            this.scanner = scanner;
+        }
+        
+        /**
+         * Register an accumulator
+         * @param accumulator Called once per row
+         * @return This source
+         */
+        public Source<T> accumulate(Consumer<? super T> accumulator) {
+            accumulators.add(accumulator);
+            return this;
+        }
+        
+        private void run() throws SQLException {
+            if (accumulators.size() == 1) {
+                scanner.scan(accumulators.get(0)::accept);
+                return;
+            }
+            scanner.scan(row -> {
+                for (Consumer<? super T> accumulator : accumulators) {
+                    accumulator.accept(row);
+                }
+            });
+        }
+    }
+}
+
@@ -0,0 +1,240 @@
+package com.airtribe.meditrack.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Immutable, pre-lowercased copy of a set of entities for predicate search.
+ * Evaluates the same rules as Patient.matches / Doctor.matches (substring on
+ * text fields, exact match on numeric keys) but lowercases each field once per
+ * snapshot instead of on every call, and splits the scan into fork/join tasks
+ * whose bounded top-k results are merged.
+ */
+public final class SearchSnapshot<T> {
+    
+    private static final int MIN_TASK_SIZE = 4096;
+    private static final char FIELD_SEPARATOR = '\u0000';
+    
+    // Scores, best first: exact key, name prefix, name word prefix, any substring
+    private static final int SCORE_KEY = 4;
+    private static final int SCORE_NAME_PREFIX = 3;
+    private static final int SCORE_WORD_PREFIX = 2;
+    private static final int SCORE_SUBSTRING = 1;
+    
+    private final Object[] items;
+    private final int[] ids;
+    private final String[] text;
+    private final int[] nameLengths;
+    private final int[][] keys;
+    // Hits are score << 32 | position; higher score first, then lower ID
+    private final Comparator<Long> hitOrder;
+    
+    private SearchSnapshot(Object[] items, int[] ids, String[] text, int[] nameLengths, int[][] keys) {
+        this.items = items;
+        this.ids = ids;
+        this.text = text;
+        this.nameLengths = nameLengths;
+        this.keys = keys;
+        this.hitOrder = (a, b) -> {
+            int byScore = Integer.compare((int) (a >>> 32), (int) (b >>> 32));
+            return byScore != 0 ? byScore : Integer.compare(ids[position(b)], ids[position(a)]);
+        };
+    }
+    
+    /**
+     * Build a snapshot
+     * @param entities Entities to copy
+     * @param idOf Entity ID, used as tie-breaker
+     * @param fieldsOf Text fields matched by substring; the first one is the name
+     * @param keysOf Numeric keys matched exactly (e.g. ID, age)
+     * @return Immutable snapshot
+     */
+    public static <T> SearchSnapshot<T> of(List<T> entities, Function<T, Integer> idOf,
+                                           Function<T, String[]> fieldsOf, Function<T, int[]> keysOf) {
+        int n = entities.size();
+        Object[] items = new Object[n];
+        int[] ids = new int[n];
+        String[] text = new String[n];
+        int[] nameLengths = new int[n];
+        int[][] keys = new int[n][];
+        
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            T entity = entities.get(i);
+            items[i] = entity;
+            ids[i] = idOf.apply(entity);
+            keys[i] = keysOf.apply(entity);
+            
+            joined.setLength(0);
+            String[] fields = fieldsOf.apply(entity);
+            for (int f = 0; f < fields.length; f++) {
+                if (f > 0) {
+                    joined.append(FIELD_SEPARATOR);
+                }
+                if (fields[f] != null) {
+                    joined.append(fields[f].toLowerCase());
+                }
+                if (f == 0) {
+                    nameLengths[i] = joined.length();
+                }
+            }
+            text[i] = joined.toString();
+        }
+        return new SearchSnapshot<>(items, ids, text, nameLengths, keys);
+    }
+    
+    /**
+     * Number of entities in the snapshot
+     * @return Size
+     */
+    public int size() {
+        return items.length;
+    }
+    
+    /**
+     * Search in parallel on the common fork/join pool
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return Best matches first (exact key, then name prefix, then other matches; ties by ID)
+     */
+    public List<T> search(String query, int limit) {
+        Query q = Query.parse(query);
+        if (q == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        TopK<Long> top = ForkJoinPool.commonPool().invoke(new SearchTask(q, 0, items.length, limit, taskSize()));
+        return toList(top);
+    }
+    
+    /**
+     * Search on the calling thread (same results as search)
+     * @param query Search query
+     * @param limit Maximum number of results
+     * @return Best matches first
+     */
+    public List<T> searchSequential(String query, int limit) {
+        Query q = Query.parse(query);
+        if (q == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return toList(scan(q, 0, items.length, limit));
+    }
+    
+    private int taskSize() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(MIN_TASK_SIZE, items.length / (parallelism * 4));
+    }
+    
+    private TopK<Long> scan(Query q, int from, int to, int limit) {
+        TopK<Long> top = new TopK<>(limit, hitOrder);
+        for (int i = from; i < to; i++) {
+            int score = score(q, i);
+            if (score > 0) {
+                top.offer((long) score << 32 | i);
+            }
+        }
+        return top;
+    }
+    
+    private int score(Query q, int i) {
+        if (q.key >= 0) {
+            for (int key : keys[i]) {
+                if (key == q.key) {
+                    return SCORE_KEY;
+                }
+            }
+        }
+        String value = text[i];
+        int at = value.indexOf(q.text);
+        if (at < 0) {
+            return 0;
+        }
+        if (at == 0) {
+            return SCORE_NAME_PREFIX;
+        }
+        if (at < nameLengths[i] && value.charAt(at - 1) == ' ') {
+            return SCORE_WORD_PREFIX;
+        }
+        return SCORE_SUBSTRING;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<T> toList(TopK<Long> top) {
+        List<T> result = new ArrayList<>(top.size());
+        for (long hit : top.toList()) {
+            result.add((T) items[position(hit)]);
+        }
+        return result;
+    }
+    
+    private static int position(long hit) {
+        return (int) hit;
+    }
+    
+    /**
+     * Lowercased query text plus its value as a numeric key, if it is one
+     */
+    private static final class Query {
+        private final String text;
+        private final int key;
+        
+        private Query(String text, int key) {
+            this.text = text;
+            this.key = key;
+        }
+        
+        static Query parse(String query) {
+            if (query == null || query.isEmpty() || query.indexOf(FIELD_SEPARATOR) >= 0) {
+                return null;
+            }
+            int key = -1;
+            try {
+                int parsed = Integer.parseInt(query);
+                // Same as String.valueOf(id).equals(query): "007" is not 7
+                if (parsed >= 0 && String.valueOf(parsed).equals(query)) {
+                    key = parsed;
+                }
+            } catch (NumberFormatException e) {
+                // not a numeric key
+            }
+            return new Query(query.toLowerCase(), key);
+        }
+    }
+    
+    private final class SearchTask extends RecursiveTask<TopK<Long>> {
+        private static final long serialVersionUID = 1L;
+        
+        private final Query q;
+        private final int from;
+        private final int to;
+        private final int limit;
+        private final int taskSize;
+        
+        SearchTask(Query q, int from, int to, int limit, int taskSize) {
+            this.q = q;
+            this.from = from;
+            this.to = to;
+            this.limit = limit;
+            this.taskSize = taskSize;
+        }
+        
+        @Override
+        protected TopK<Long> compute() {
+            if (to - from <= taskSize) {
+                return scan(q, from, to, limit);
+            }
+            int mid = (from + to) >>> 1;
+            SearchTask left = new SearchTask(q, from, mid, limit, taskSize);
+            left.fork();
+            TopK<Long> right = new SearchTask(q, mid, to, limit, taskSize).compute();
+            TopK<Long> merged = left.join();
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
+
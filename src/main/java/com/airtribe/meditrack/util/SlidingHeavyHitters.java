@@ -0,0 +1,139 @@
+package com.airtribe.meditrack.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Approximate most-frequent keys over a sliding time window, in fixed memory.
+ * The window is a ring of time slots; each slot has a Count-Min Sketch (counts)
+ * and a Space-Saving summary (candidate keys). A query estimates every candidate
+ * across the live slots and keeps the best with a bounded heap. Old slots are
+ * reset as the clock moves past them, so the window covers between
+ * (slots - 1) and slots slot lengths of history.
+ */
+public class SlidingHeavyHitters {
+    
+    private static final int SKETCH_WIDTH = 512;
+    private static final int SKETCH_DEPTH = 4;
+    
+    private final long slotMillis;
+    private final CountMinSketch[] sketches;
+    private final SpaceSaving[] candidates;
+    private final long[] slotEpochs;
+    
+    /**
+     * Create a tracker
+     * @param windowMillis Window length in milliseconds
+     * @param slots Number of slots the window is divided into
+     * @param candidatesPerSlot Keys tracked per slot by Space-Saving
+     */
+    public SlidingHeavyHitters(long windowMillis, int slots, int candidatesPerSlot) {
+        int slotCount = Math.max(1, slots);
+        this.slotMillis = Math.max(1, windowMillis / slotCount);
+        this.sketches = new CountMinSketch[slotCount];
+        this.candidates = new SpaceSaving[slotCount];
+        this.slotEpochs = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            sketches[i] = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+            candidates[i] = new SpaceSaving(candidatesPerSlot);
+            slotEpochs[i] = -1;
+        }
+    }
+    
+    /**
+     * Record one occurrence of a key now
+     * @param key Key
+     */
+    public void record(int key) {
+        record(key, System.currentTimeMillis());
+    }
+    
+    /**
+     * Record one occurrence of a key at a point in time
+     * @param key Key
+     * @param timeMillis Event time in milliseconds
+     */
+    public synchronized void record(int key, long timeMillis) {
+        long epoch = timeMillis / slotMillis;
+        int slot = (int) (epoch % sketches.length);
+        if (slotEpochs[slot] != epoch) {
+            if (slotEpochs[slot] > epoch) {
+                return; // older than the window
+            }
+            sketches[slot].clear();
+            candidates[slot].clear();
+            slotEpochs[slot] = epoch;
+        }
+        sketches[slot].add(key, 1);
+        candidates[slot].offer(key, 1);
+    }
+    
+    /**
+     * Get the most frequent keys in the window ending now
+     * @param k Number of keys to return
+     * @return Keys with estimated counts, most frequent first
+     */
+    public List<Entry> top(int k) {
+        return top(k, System.currentTimeMillis());
+    }
+    
+    /**
+     * Get the most frequent keys in the window ending at a point in time
+     * @param k Number of keys to return
+     * @param nowMillis End of the window in milliseconds
+     * @return Keys with estimated counts, most frequent first
+     */
+    public synchronized List<Entry> top(int k, long nowMillis) {
+        long current = nowMillis / slotMillis;
+        List<Integer> live = new ArrayList<>();
+        Set<Integer> keys = new HashSet<>();
+        for (int slot = 0; slot < sketches.length; slot++) {
+            long epoch = slotEpochs[slot];
+            if (epoch >= 0 && epoch <= current && current - epoch < sketches.length) {
+                live.add(slot);
+                keys.addAll(candidates[slot].keys());
+            }
+        }
+        
+        TopK<Entry> best = new TopK<>(k, Comparator.comparingLong(Entry::getCount)
+                .thenComparing(Comparator.comparingInt(Entry::getKey).reversed()));
+        for (int key : keys) {
+            long count = 0;
+            for (int slot : live) {
+                count += sketches[slot].estimate(key);
+            }
+            best.offer(new Entry(key, count));
+        }
+        return best.toList();
+    }
+    
+    /**
+     * A key with its estimated count in the window
+     */
+    public static final class Entry {
+        private final int key;
+        private final long count;
+        
+        Entry(int key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+        
+        public int getKey() {
+            return key;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        @Override
+        public String toString() {
+            return key + "=" + count;
+        }
+    }
+}
+
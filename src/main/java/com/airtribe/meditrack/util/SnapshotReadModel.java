@@ -0,0 +1,567 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.AppointmentStatus;
+import com.airtribe.meditrack.constants.Specialization;
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+import com.airtribe.meditrack.repository.AppointmentRepository;
+import com.airtribe.meditrack.repository.DoctorRepository;
+import com.airtribe.meditrack.repository.PatientRepository;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Read model backed by a memory-mapped snapshot file.
+ *
+ * The snapshot is written at shutdown and mapped on the next start. It is only
+ * used when the database file has not changed since the snapshot was taken.
+ * Per-section id indexes are built lazily on first access; records are decoded
+ * from the mapped buffer on every read, so callers always get a fresh copy.
+ * SQLite remains the source of truth - writes go to the database first and are
+ * then applied to the in-memory overlay.
+ */
+public class SnapshotReadModel {
+    
+    private static final Logger logger = Logger.getLogger(SnapshotReadModel.class.getName());
+    
+    private static final int MAGIC = 0x4D545253; // "MTRS"
+    private static final int VERSION = 2;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    
+    private static volatile SnapshotReadModel instance;
+    
+    private volatile boolean active;
+    private Section<Patient> patients;
+    private Section<Doctor> doctors;
+    private Section<Appointment> appointments;
+    
+    private SnapshotReadModel() {
+        EntityChangeNotifier.patients().addListener(new EntityChangeListener<Patient>() {
+            @Override
+            public void onCreated(Patient entity) {
+                putPatient(entity);
+            }
+            
+            @Override
+            public void onUpdated(Patient previous, Patient current) {
+                putPatient(current);
+            }
+            
+            @Override
+            public void onDeleted(Patient entity) {
+                removePatient(entity.getId());
+            }
+        });
+        EntityChangeNotifier.doctors().addListener(new EntityChangeListener<Doctor>() {
+            @Override
+            public void onCreated(Doctor entity) {
+                putDoctor(entity);
+            }
+            
+            @Override
+            public void onUpdated(Doctor previous, Doctor current) {
+                putDoctor(current);
+            }
+            
+            @Override
+            public void onDeleted(Doctor entity) {
+                removeDoctor(entity.getId());
+            }
+        });
+        EntityChangeNotifier.appointments().addListener(new EntityChangeListener<Appointment>() {
+            @Override
+            public void onCreated(Appointment entity) {
+                putAppointment(entity);
+            }
+            
+            @Override
+            public void onUpdated(Appointment previous, Appointment current) {
+                putAppointment(current);
+            }
+            
+            @Override
+            public void onDeleted(Appointment entity) {
+                removeAppointment(entity.getId());
+            }
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * @return SnapshotReadModel instance
+     */
+    public static SnapshotReadModel getInstance() {
+        if (instance == null) {
+            synchronized (SnapshotReadModel.class) {
+                if (instance == null) {
+                    instance = new SnapshotReadModel();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Check whether reads can be served from the snapshot
+     * @return true if a valid snapshot is loaded
+     */
+    public boolean isActive() {
+        return active;
+    }
+    
+    /**
+     * Map the snapshot file and activate the read model if it is still valid
+     * @param snapshotFile Snapshot file path
+     * @param databaseFile SQLite database file path
+     * @return true if the snapshot was loaded, false if missing or stale
+     */
+    public synchronized boolean load(Path snapshotFile, Path databaseFile) {
+        active = false;
+        if (!Files.exists(snapshotFile) || !Files.exists(databaseFile)) {
+            return false;
+        }
+        
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.info("Ignoring snapshot with unknown format: " + snapshotFile);
+                return false;
+            }
+            long changeToken = buffer.getLong();
+            if (changeToken != readChangeToken(databaseFile)) {
+                logger.info("Snapshot is stale, falling back to database reads");
+                return false;
+            }
+            LocalDateTime takenAt = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+            
+            patients = readSection(buffer, SnapshotReadModel::decodePatient, SnapshotReadModel::encodePatient);
+            doctors = readSection(buffer, SnapshotReadModel::decodeDoctor, SnapshotReadModel::encodeDoctor);
+            appointments = readSection(buffer, SnapshotReadModel::decodeAppointment,
+                    SnapshotReadModel::encodeAppointment);
+            
+            active = true;
+            logger.info("Snapshot loaded (taken at " + takenAt + ")");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not load snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Write a snapshot of the current database contents
+     * Patients and doctors are written in full; appointments only from now on.
+     * @param snapshotFile Snapshot file path
+     * @param databaseFile SQLite database file path
+     * @throws IOException if the file cannot be written
+     * @throws SQLException if database operation fails
+     */
+    public static void write(Path snapshotFile, Path databaseFile) throws IOException, SQLException {
+        Path parent = snapshotFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        LocalDateTime now = LocalDateTime.now();
+        
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(readChangeToken(databaseFile));
+            out.writeLong(now.toEpochSecond(ZoneOffset.UTC));
+            
+            List<byte[]> records = new ArrayList<>();
+            new PatientRepository().forEach(p -> records.add(encodePatient(p)));
+            writeSection(out, records);
+            
+            records.clear();
+            new DoctorRepository().forEach(d -> records.add(encodeDoctor(d)));
+            writeSection(out, records);
+            
+            records.clear();
+            for (Appointment apt : new AppointmentRepository().findUpcoming(now)) {
+                records.add(encodeAppointment(apt));
+            }
+            writeSection(out, records);
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Deactivate the read model and drop all loaded state
+     */
+    public synchronized void clear() {
+        active = false;
+        patients = null;
+        doctors = null;
+        appointments = null;
+    }
+    
+    // Reads
+    
+    public Patient findPatient(int id) {
+        return patients.get(id);
+    }
+    
+    public List<Patient> findAllPatients() {
+        return patients.getAll();
+    }
+    
+    public Doctor findDoctor(int id) {
+        return doctors.get(id);
+    }
+    
+    public List<Doctor> findAllDoctors() {
+        return doctors.getAll();
+    }
+    
+    public List<Doctor> findDoctorsBySpecialization(Specialization specialization) {
+        List<Doctor> result = new ArrayList<>();
+        for (Doctor doctor : doctors.getAll()) {
+            if (doctor.getSpecialization() == specialization) {
+                result.add(doctor);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Find an upcoming appointment by ID
+     * @param id Appointment ID
+     * @return Appointment, or null if it is not an upcoming appointment
+     */
+    public Appointment findUpcomingAppointment(int id) {
+        return appointments.get(id);
+    }
+    
+    /**
+     * Get upcoming (not cancelled) appointments of a doctor
+     * @param doctorId Doctor ID
+     * @return List of appointments
+     */
+    public List<Appointment> findUpcomingAppointmentsByDoctor(int doctorId) {
+        List<Appointment> result = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Appointment apt : appointments.getAll()) {
+            if (apt.getDoctorId() == doctorId && !apt.getAppointmentDateTime().isBefore(now)) {
+                result.add(apt);
+            }
+        }
+        return result;
+    }
+    
+    // Write-through updates from change events (no-ops while inactive)
+    
+    private void putPatient(Patient patient) {
+        if (active) {
+            patients.put(patient.getId(), patient);
+        }
+    }
+    
+    private void removePatient(int id) {
+        if (active) {
+            patients.remove(id);
+        }
+    }
+    
+    private void putDoctor(Doctor doctor) {
+        if (active) {
+            doctors.put(doctor.getId(), doctor);
+        }
+    }
+    
+    private void removeDoctor(int id) {
+        if (active) {
+            doctors.remove(id);
+        }
+    }
+    
+    private void putAppointment(Appointment appointment) {
+        if (!active) {
+            return;
+        }
+        if (appointment.getStatus() == AppointmentStatus.CANCELLED ||
+            appointment.getAppointmentDateTime().isBefore(LocalDateTime.now())) {
+            appointments.remove(appointment.getId());
+        } else {
+            appointments.put(appointment.getId(), appointment);
+        }
+    }
+    
+    private void removeAppointment(int id) {
+        if (active) {
+            appointments.remove(id);
+        }
+    }
+    
+    /**
+     * Build a token that changes whenever the database file is written.
+     * Combines the SQLite header file change counter (offset 24) with the
+     * file size and modification time, so validation needs no query.
+     */
+    private static long readChangeToken(Path databaseFile) throws IOException {
+        long changeCounter = 0;
+        try (FileChannel channel = FileChannel.open(databaseFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(28);
+            if (channel.read(header, 0) == 28) {
+                changeCounter = header.getInt(24) & 0xFFFFFFFFL;
+            }
+        }
+        long size = Files.size(databaseFile);
+        long modified = Files.getLastModifiedTime(databaseFile).toMillis();
+        return (changeCounter * 31 + size) * 31 + modified;
+    }
+    
+    private static void writeSection(DataOutputStream out, List<byte[]> records) throws IOException {
+        long length = 0;
+        for (byte[] record : records) {
+            length += record.length;
+        }
+        out.writeInt(records.size());
+        out.writeLong(length);
+        for (byte[] record : records) {
+            out.write(record);
+        }
+    }
+    
+    private static <T> Section<T> readSection(ByteBuffer buffer, Function<ByteBuffer, T> decoder,
+                                              Function<T, byte[]> encoder) {
+        int count = buffer.getInt();
+        long length = buffer.getLong();
+        int start = buffer.position();
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(start + (int) length);
+        buffer.position(start + (int) length);
+        return new Section<>(slice.slice(), count, decoder, encoder);
+    }
+    
+    /**
+     * One entity section of the snapshot plus its overlay of later writes.
+     * Each record is laid out as [id][payload length][payload].
+     */
+    private static final class Section<T> {
+        private final ByteBuffer data;
+        private final int count;
+        private final Function<ByteBuffer, T> decoder;
+        private final Function<T, byte[]> encoder;
+        private Map<Integer, Integer> offsets;
+        private final Map<Integer, byte[]> overlay = new HashMap<>();
+        private final Set<Integer> deleted = new HashSet<>();
+        
+        Section(ByteBuffer data, int count, Function<ByteBuffer, T> decoder, Function<T, byte[]> encoder) {
+            this.data = data;
+            this.count = count;
+            this.decoder = decoder;
+            this.encoder = encoder;
+        }
+        
+        private Map<Integer, Integer> offsets() {
+            if (offsets == null) {
+                Map<Integer, Integer> index = new LinkedHashMap<>(count * 2);
+                int pos = 0;
+                for (int i = 0; i < count; i++) {
+                    index.put(data.getInt(pos), pos);
+                    pos += 8 + data.getInt(pos + 4);
+                }
+                offsets = index;
+            }
+            return offsets;
+        }
+        
+        private T decodeAt(int pos) {
+            ByteBuffer record = data.duplicate();
+            record.position(pos);
+            return decoder.apply(record);
+        }
+        
+        synchronized T get(int id) {
+            byte[] bytes = overlay.get(id);
+            if (bytes != null) {
+                return decoder.apply(ByteBuffer.wrap(bytes));
+            }
+            if (deleted.contains(id)) {
+                return null;
+            }
+            Integer pos = offsets().get(id);
+            return pos == null ? null : decodeAt(pos);
+        }
+        
+        synchronized List<T> getAll() {
+            List<T> result = new ArrayList<>(offsets().size() + overlay.size());
+            for (Map.Entry<Integer, Integer> entry : offsets().entrySet()) {
+                if (!deleted.contains(entry.getKey()) && !overlay.containsKey(entry.getKey())) {
+                    result.add(decodeAt(entry.getValue()));
+                }
+            }
+            for (byte[] bytes : overlay.values()) {
+                result.add(decoder.apply(ByteBuffer.wrap(bytes)));
+            }
+            return result;
+        }
+        
+        synchronized void put(int id, T entity) {
+            overlay.put(id, encoder.apply(entity));
+        }
+        
+        synchronized void remove(int id) {
+            overlay.remove(id);
+            deleted.add(id);
+        }
+    }
+    
+    // Record encoding
+    
+    private static byte[] encodePatient(Patient p) {
+        return encode(p.getId(), out -> {
+            writeString(out, p.getName());
+            out.writeLong(p.getDateOfBirth() != null ? p.getDateOfBirth().toEpochDay() : NO_DATE);
+            writeString(out, p.getEmail());
+            writeString(out, p.getPhoneNumber());
+            writeString(out, p.getMedicalHistory());
+            writeString(out, p.getAllergies());
+            writeString(out, p.getInsuranceProvider());
+            writeString(out, p.getInsurancePolicyNumber());
+        });
+    }
+    
+    private static Patient decodePatient(ByteBuffer in) {
+        Patient p = new Patient();
+        p.setId(in.getInt());
+        in.getInt();
+        p.setName(readString(in));
+        p.setDateOfBirth(readDate(in));
+        p.setEmail(readString(in));
+        p.setPhoneNumber(readString(in));
+        p.setMedicalHistory(readString(in));
+        p.setAllergies(readString(in));
+        p.setInsuranceProvider(readString(in));
+        p.setInsurancePolicyNumber(readString(in));
+        return p;
+    }
+    
+    private static byte[] encodeDoctor(Doctor d) {
+        return encode(d.getId(), out -> {
+            writeString(out, d.getName());
+            out.writeLong(d.getDateOfBirth() != null ? d.getDateOfBirth().toEpochDay() : NO_DATE);
+            writeString(out, d.getEmail());
+            writeString(out, d.getPhoneNumber());
+            out.writeByte(d.getSpecialization() != null ? d.getSpecialization().ordinal() : -1);
+            out.writeDouble(d.getConsultationFee());
+            out.writeInt(d.getExperienceYears());
+            writeString(out, d.getLicenseNumber());
+        });
+    }
+    
+    private static Doctor decodeDoctor(ByteBuffer in) {
+        Doctor d = new Doctor();
+        d.setId(in.getInt());
+        in.getInt();
+        d.setName(readString(in));
+        d.setDateOfBirth(readDate(in));
+        d.setEmail(readString(in));
+        d.setPhoneNumber(readString(in));
+        byte spec = in.get();
+        d.setSpecialization(spec >= 0 ? Specialization.values()[spec] : null);
+        d.setConsultationFee(in.getDouble());
+        d.setExperienceYears(in.getInt());
+        d.setLicenseNumber(readString(in));
+        return d;
+    }
+    
+    private static byte[] encodeAppointment(Appointment a) {
+        return encode(a.getId(), out -> {
+            out.writeInt(a.getPatientId());
+            out.writeInt(a.getDoctorId());
+            out.writeLong(a.getAppointmentDateTime().toEpochSecond(ZoneOffset.UTC));
+            out.writeByte(a.getStatus().ordinal());
+            writeString(out, a.getReason());
+            writeString(out, a.getNotes());
+            out.writeLong(toEpochSecond(a.getCreatedAt()));
+            out.writeLong(toEpochSecond(a.getConfirmedAt()));
+        });
+    }
+    
+    private static Appointment decodeAppointment(ByteBuffer in) {
+        Appointment a = new Appointment();
+        a.setId(in.getInt());
+        in.getInt();
+        a.setPatientId(in.getInt());
+        a.setDoctorId(in.getInt());
+        a.setAppointmentDateTime(LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC));
+        a.setStatus(AppointmentStatus.values()[in.get()]);
+        a.setReason(readString(in));
+        a.setNotes(readString(in));
+        a.setCreatedAt(fromEpochSecond(in.getLong()));
+        a.setConfirmedAt(fromEpochSecond(in.getLong()));
+        return a;
+    }
+    
+    private static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp == null ? Long.MIN_VALUE : timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    private static LocalDateTime fromEpochSecond(long seconds) {
+        return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+    
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+    
+    private static byte[] encode(int id, RecordWriter writer) {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+            writer.write(new DataOutputStream(payload));
+            ByteArrayOutputStream record = new ByteArrayOutputStream(payload.size() + 8);
+            DataOutputStream out = new DataOutputStream(record);
+            out.writeInt(id);
+            out.writeInt(payload.size());
+            payload.writeTo(out);
+            return record.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static LocalDate readDate(ByteBuffer in) {
+        long epochDay = in.getLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
+
@@ -0,0 +1,67 @@
+package com.airtribe.meditrack.util;
+
+/**
+ * American Soundex phonetic codes.
+ * Names that sound alike ("Jon Smyth", "John Smith") get the same key,
+ * which is stored with each patient and matched with an indexed equality lookup.
+ */
+public class Soundex {
+    
+    // Codes for 'a'..'z'; '0' marks vowels (and y), '-' marks h/w which do not separate codes
+    private static final String CODES = "01230120022455012623010202";
+    
+    private Soundex() {
+    }
+    
+    /**
+     * Encode a single word
+     * @param word Word to encode
+     * @return Four-character code (e.g. "R163"), or empty string if the word has no letters
+     */
+    public static String encode(String word) {
+        String normalized = TextNormalizer.normalize(word);
+        char[] code = {'0', '0', '0', '0'};
+        int length = 0;
+        char last = 0;
+        
+        for (int i = 0; i < normalized.length() && length < 4; i++) {
+            char c = normalized.charAt(i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char digit = c == 'h' || c == 'w' ? '-' : CODES.charAt(c - 'a');
+            if (length == 0) {
+                code[length++] = Character.toUpperCase(c);
+                last = digit;
+            } else if (digit == '-') {
+                // h and w are ignored and keep the previous code
+            } else {
+                if (digit != '0' && digit != last) {
+                    code[length++] = digit;
+                }
+                last = digit;
+            }
+        }
+        return length == 0 ? "" : new String(code);
+    }
+    
+    /**
+     * Encode every word of a name
+     * @param name Full name
+     * @return Space-separated word codes (e.g. "J500 S530")
+     */
+    public static String encodeName(String name) {
+        StringBuilder key = new StringBuilder();
+        for (String word : TextNormalizer.tokenize(name)) {
+            String code = encode(word);
+            if (!code.isEmpty()) {
+                if (key.length() > 0) {
+                    key.append(' ');
+                }
+                key.append(code);
+            }
+        }
+        return key.toString();
+    }
+}
+
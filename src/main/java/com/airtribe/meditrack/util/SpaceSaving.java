@@ -0,0 +1,80 @@
+package com.airtribe.meditrack.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Space-Saving heavy-hitter summary over int keys.
+ * Tracks at most capacity keys; a new key arriving when full replaces the key
+ * with the smallest count and inherits that count. Every key whose true count
+ * exceeds total/capacity is guaranteed to be tracked. Not thread-safe.
+ */
+public class SpaceSaving {
+    
+    private final int capacity;
+    private final Map<Integer, long[]> counts;
+    
+    /**
+     * Create a summary
+     * @param capacity Maximum number of tracked keys
+     */
+    public SpaceSaving(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.counts = new HashMap<>(this.capacity * 2);
+    }
+    
+    /**
+     * Count an occurrence of a key
+     * @param key Key
+     * @param count Amount to add (positive)
+     */
+    public void offer(int key, long count) {
+        long[] counter = counts.get(key);
+        if (counter != null) {
+            counter[0] += count;
+            return;
+        }
+        if (counts.size() < capacity) {
+            counts.put(key, new long[] {count});
+            return;
+        }
+        // Evict the minimum; capacity is small, so a linear scan is cheaper than a heap
+        Integer victim = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<Integer, long[]> entry : counts.entrySet()) {
+            if (entry.getValue()[0] < min) {
+                min = entry.getValue()[0];
+                victim = entry.getKey();
+            }
+        }
+        counts.remove(victim);
+        counts.put(key, new long[] {min + count});
+    }
+    
+    /**
+     * Get the tracked keys
+     * @return Candidate heavy hitters
+     */
+    public Set<Integer> keys() {
+        return counts.keySet();
+    }
+    
+    /**
+     * Get a tracked key's count (an upper bound on its true count)
+     * @param key Key
+     * @return Count, or 0 if the key is not tracked
+     */
+    public long count(int key) {
+        long[] counter = counts.get(key);
+        return counter == null ? 0 : counter[0];
+    }
+    
+    /**
+     * Forget all keys
+     */
+    public void clear() {
+        counts.clear();
+    }
+}
+
@@ -0,0 +1,229 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.constants.Constants;
+import com.airtribe.meditrack.constants.Specialization;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Maps a free-text symptom description to a specialization. All keywords are
+ * compiled into one Aho-Corasick automaton, so a description is scanned once
+ * whatever the size of the dictionary. Keywords match at the start of a word
+ * ("fracture" matches "fractured" but "heart" does not match "sweetheart"), and
+ * each hit adds the keyword's weight to its specialization; the highest score
+ * wins, ties going to the specialization mentioned first.
+ * Besides the built-in keywords, rows of Constants.SYMPTOM_DICTIONARY
+ * ("keyword,SPECIALIZATION[,weight]", # for comments) are loaded if the file
+ * exists. A file row for a built-in keyword overrides it; weight 0 disables it.
+ */
+public class SymptomMatcher {
+    
+    private static final Logger logger = Logger.getLogger(SymptomMatcher.class.getName());
+    
+    private static final String[][] DEFAULT_KEYWORDS = {
+        {"chest pain", "CARDIOLOGY"},
+        {"heart", "CARDIOLOGY"},
+        {"cardiac", "CARDIOLOGY"},
+        {"rash", "DERMATOLOGY"},
+        {"skin", "DERMATOLOGY"},
+        {"acne", "DERMATOLOGY"},
+        {"child", "PEDIATRICS"},
+        {"pediatric", "PEDIATRICS"},
+        {"baby", "PEDIATRICS"},
+        {"fracture", "ORTHOPEDICS"},
+        {"bone", "ORTHOPEDICS"},
+        {"joint", "ORTHOPEDICS"},
+        {"headache", "NEUROLOGY"},
+        {"neurological", "NEUROLOGY"},
+        {"seizure", "NEUROLOGY"},
+        {"mental", "PSYCHIATRY"},
+        {"depression", "PSYCHIATRY"},
+        {"anxiety", "PSYCHIATRY"},
+        {"cancer", "ONCOLOGY"},
+        {"tumor", "ONCOLOGY"},
+        {"women", "GYNECOLOGY"},
+        {"gynecological", "GYNECOLOGY"},
+        {"urinary", "UROLOGY"},
+        {"kidney", "UROLOGY"}
+    };
+    
+    private static volatile SymptomMatcher instance;
+    
+    private volatile Dictionary dictionary;
+    
+    private SymptomMatcher() {
+        try {
+            this.dictionary = Dictionary.compile(readRows(Constants.SYMPTOM_DICTIONARY));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warning("Could not load symptom dictionary, using built-in keywords: " + e.getMessage());
+            this.dictionary = Dictionary.compile(Arrays.asList(DEFAULT_KEYWORDS));
+        }
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * @return SymptomMatcher instance
+     */
+    public static SymptomMatcher getInstance() {
+        if (instance == null) {
+            synchronized (SymptomMatcher.class) {
+                if (instance == null) {
+                    instance = new SymptomMatcher();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Replace the dictionary with the built-in keywords plus the rows of a file
+     * @param filePath Dictionary file (ignored if it does not exist)
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a row is malformed (the current dictionary is kept)
+     */
+    public void load(String filePath) throws IOException {
+        dictionary = Dictionary.compile(readRows(filePath));
+    }
+    
+    /**
+     * Find the best-matching specialization
+     * @param symptoms Symptom description
+     * @return Specialization with the highest score, or null if no keyword matches
+     */
+    public Specialization match(String symptoms) {
+        Dictionary current = dictionary;
+        String text = TextNormalizer.normalize(symptoms);
+        int[] scores = new int[current.specializations.length];
+        int[] firstHit = new int[current.specializations.length];
+        Arrays.fill(firstHit, Integer.MAX_VALUE);
+        current.scan(text, scores, firstHit);
+        
+        Specialization best = null;
+        int bestScore = 0;
+        int bestHit = Integer.MAX_VALUE;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > bestScore || (scores[i] == bestScore && scores[i] > 0 && firstHit[i] < bestHit)) {
+                best = current.specializations[i];
+                bestScore = scores[i];
+                bestHit = firstHit[i];
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Score every specialization with at least one keyword hit
+     * @param symptoms Symptom description
+     * @return Map of specialization to summed keyword weights
+     */
+    public Map<Specialization, Integer> score(String symptoms) {
+        Dictionary current = dictionary;
+        int[] scores = new int[current.specializations.length];
+        int[] firstHit = new int[current.specializations.length];
+        Arrays.fill(firstHit, Integer.MAX_VALUE);
+        current.scan(TextNormalizer.normalize(symptoms), scores, firstHit);
+        
+        Map<Specialization, Integer> result = new EnumMap<>(Specialization.class);
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0) {
+                result.put(current.specializations[i], scores[i]);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Number of keywords in the dictionary
+     * @return Keyword count
+     */
+    public int getKeywordCount() {
+        return dictionary.automaton.getPatternCount();
+    }
+    
+    private static List<String[]> readRows(String filePath) throws IOException {
+        List<String[]> rows = new ArrayList<>(Arrays.asList(DEFAULT_KEYWORDS));
+        for (String[] row : CSVUtil.readCSV(filePath)) {
+            if (!row[0].startsWith("#")) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Compiled keywords: automaton pattern IDs index the weight and
+     * specialization arrays
+     */
+    private static final class Dictionary {
+        private final Specialization[] specializations = Specialization.values();
+        private final AhoCorasick automaton;
+        private final int[] weights;
+        private final int[] specializationOf;
+        
+        private Dictionary(AhoCorasick automaton, int[] weights, int[] specializationOf) {
+            this.automaton = automaton;
+            this.weights = weights;
+            this.specializationOf = specializationOf;
+        }
+        
+        static Dictionary compile(List<String[]> rows) {
+            Map<String, Integer> ids = new HashMap<>();
+            List<Integer> weights = new ArrayList<>();
+            List<Integer> specializationOf = new ArrayList<>();
+            AhoCorasick.Builder builder = new AhoCorasick.Builder();
+            for (String[] row : rows) {
+                String keyword = TextNormalizer.normalize(row[0]);
+                if (keyword.isEmpty() || row.length < 2 || row.length > 3) {
+                    throw new IllegalArgumentException("Invalid symptom keyword row: " + String.join(",", row));
+                }
+                Specialization specialization;
+                try {
+                    specialization = Specialization.valueOf(row[1].toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown specialization for symptom keyword " + keyword
+                            + ": " + row[1]);
+                }
+                // Multi-word phrases are more specific than single words
+                int weight = row.length == 3 ? Integer.parseInt(row[2]) : keyword.split(" ").length;
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Negative weight for symptom keyword: " + keyword);
+                }
+                
+                Integer id = ids.get(keyword);
+                if (id == null) {
+                    id = weights.size();
+                    ids.put(keyword, id);
+                    weights.add(weight);
+                    specializationOf.add(specialization.ordinal());
+                    builder.add(keyword, id);
+                } else {
+                    weights.set(id, weight);
+                    specializationOf.set(id, specialization.ordinal());
+                }
+            }
+            return new Dictionary(builder.build(), weights.stream().mapToInt(Integer::intValue).toArray(),
+                    specializationOf.stream().mapToInt(Integer::intValue).toArray());
+        }
+        
+        void scan(String text, int[] scores, int[] firstHit) {
+            automaton.search(text, (id, start, end) -> {
+                if (start > 0 && text.charAt(start - 1) != ' ') {
+                    return;
+                }
+                int specialization = specializationOf[id];
+                scores[specialization] += weights[id];
+                if (weights[id] > 0 && firstHit[specialization] > start) {
+                    firstHit[specialization] = start;
+                }
+            });
+        }
+    }
+}
+
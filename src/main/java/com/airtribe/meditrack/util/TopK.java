@@ -0,0 +1,98 @@
+package com.airtribe.meditrack.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Exact top-k selection with a bounded min-heap: O(n log k) time and O(k) memory
+ * instead of sorting all n items. The heap root is the weakest item kept so far,
+ * so each new item costs one comparison unless it beats the root.
+ */
+public class TopK<T> {
+    
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+    
+    /**
+     * Create a selector
+     * @param k Number of items to keep
+     * @param order Ordering where greater means better
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        this.k = Math.max(0, k);
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, this.k), order);
+    }
+    
+    /**
+     * Offer an item
+     * @param item Item to consider
+     * @return true if the item is currently among the best k
+     */
+    public boolean offer(T item) {
+        if (heap.size() < k) {
+            heap.add(item);
+            return true;
+        }
+        if (k > 0 && order.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Offer every item kept by another selector (e.g. to merge partial results)
+     * @param other Selector to merge in
+     */
+    public void addAll(TopK<? extends T> other) {
+        for (T item : other.heap) {
+            offer(item);
+        }
+    }
+    
+    /**
+     * Get the number of items kept
+     * @return Size (at most k)
+     */
+    public int size() {
+        return heap.size();
+    }
+    
+    /**
+     * Get the kept items
+     * @return Best item first
+     */
+    public List<T> toList() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(Collections.reverseOrder(order));
+        return result;
+    }
+    
+    /**
+     * Select the k map entries with the largest values; ties go to the smaller key
+     * @param counts Map of key to count
+     * @param k Number of entries to return
+     * @return Keys of the best entries, best first
+     */
+    public static <K extends Comparable<K>> List<K> largestKeys(Map<K, Long> counts, int k) {
+        Comparator<Map.Entry<K, Long>> byCount = Map.Entry.comparingByValue();
+        TopK<Map.Entry<K, Long>> top = new TopK<>(k, byCount.thenComparing(
+                Map.Entry.<K, Long>comparingByKey().reversed()));
+        for (Map.Entry<K, Long> entry : counts.entrySet()) {
+            top.offer(entry);
+        }
+        List<K> keys = new ArrayList<>(top.size());
+        for (Map.Entry<K, Long> entry : top.toList()) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+}
+
@@ -0,0 +1,180 @@
+package com.airtribe.meditrack.util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index for case-insensitive substring search.
+ * Candidates are narrowed by intersecting the posting lists of the query's
+ * trigrams (rarest first) and then verified against the normalized value,
+ * so only a handful of strings are compared instead of the whole table.
+ */
+public class TrigramIndex {
+    
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Integer, String> values = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * Add or replace a value
+     * @param id Document ID
+     * @param text Value to index (e.g. a name)
+     */
+    public void put(int id, String text) {
+        String normalized = TextNormalizer.normalize(text);
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            values.put(id, normalized);
+            for (long trigram : trigrams(normalized)) {
+                postings.computeIfAbsent(trigram, t -> new PostingList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove a value
+     * @param id Document ID
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove all values
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            values.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Find all ids whose value contains the query as a substring
+     * @param query Substring to look for (case and accent insensitive)
+     * @return Matching ids in ascending order
+     */
+    public List<Integer> search(String query) {
+        String needle = TextNormalizer.normalize(query);
+        if (needle.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            if (needle.length() < 3) {
+                return scan(needle);
+            }
+            
+            Set<Long> grams = trigrams(needle);
+            List<PostingList> lists = new ArrayList<>(grams.size());
+            for (long gram : grams) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            
+            PostingList smallest = lists.get(0);
+            int[] candidates = Arrays.copyOf(smallest.ids(), smallest.size());
+            int count = candidates.length;
+            for (int i = 1; i < lists.size() && count > 0; i++) {
+                count = retain(candidates, count, lists.get(i));
+            }
+            
+            List<Integer> result = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String value = values.get(candidates[i]);
+                if (value != null && value.contains(needle)) {
+                    result.add(candidates[i]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Get number of indexed values
+     * @return Value count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return values.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Keep only candidates contained in the posting list (both sorted)
+     */
+    private static int retain(int[] candidates, int count, PostingList list) {
+        int[] ids = list.ids();
+        int size = list.size();
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < size; i++) {
+            int idx = Arrays.binarySearch(ids, from, size, candidates[i]);
+            if (idx >= 0) {
+                candidates[kept++] = candidates[i];
+                from = idx + 1;
+            } else {
+                from = -idx - 1;
+            }
+        }
+        return kept;
+    }
+    
+    /**
+     * Queries shorter than a trigram cannot use the index; scan the values instead
+     */
+    private List<Integer> scan(String needle) {
+        List<Integer> result = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : values.entrySet()) {
+            if (entry.getValue().contains(needle)) {
+                result.add(entry.getKey());
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+    
+    private void removeUnlocked(int id) {
+        String previous = values.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (long trigram : trigrams(previous)) {
+            PostingList list = postings.get(trigram);
+            if (list != null && list.remove(id) && list.size() == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+    
+    private static Set<Long> trigrams(String s) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            grams.add(((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2));
+        }
+        return grams;
+    }
+}
+
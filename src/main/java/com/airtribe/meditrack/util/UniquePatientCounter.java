@@ -0,0 +1,93 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Appointment;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+import com.airtribe.meditrack.repository.PatientSketchRepository;
+
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the per-(doctor, month) patient sketches in step with appointments.
+ * Every created or updated appointment adds its patient to the sketch of its
+ * doctor and month; adding a patient twice is a no-op. Sketches cannot forget,
+ * so deleted or moved appointments are only dropped by rebuild().
+ */
+public class UniquePatientCounter {
+    
+    private static final Logger logger = Logger.getLogger(UniquePatientCounter.class.getName());
+    
+    private static volatile UniquePatientCounter instance;
+    
+    private final PatientSketchRepository patientSketchRepository;
+    
+    private UniquePatientCounter() {
+        this.patientSketchRepository = new PatientSketchRepository();
+        EntityChangeNotifier.appointments().addListener(new EntityChangeListener<Appointment>() {
+            @Override
+            public void onCreated(Appointment entity) {
+                record(entity);
+            }
+            
+            @Override
+            public void onUpdated(Appointment previous, Appointment current) {
+                record(current);
+            }
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * Appointments are counted from the first call on.
+     * @return UniquePatientCounter instance
+     */
+    public static UniquePatientCounter getInstance() {
+        if (instance == null) {
+            synchronized (UniquePatientCounter.class) {
+                if (instance == null) {
+                    instance = new UniquePatientCounter();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Build the sketches from the appointments table if none are stored yet
+     * @throws SQLException if database operation fails
+     */
+    public synchronized void initialize() throws SQLException {
+        if (patientSketchRepository.count() == 0) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * Rebuild all sketches from the appointments table
+     * @throws SQLException if database operation fails
+     */
+    public synchronized void rebuild() throws SQLException {
+        int sketches = patientSketchRepository.rebuild();
+        logger.info("Patient sketches built (" + sketches + " doctor-months)");
+    }
+    
+    /**
+     * Add an appointment's patient to its doctor's sketch for the month.
+     * Serialized so concurrent bookings do not overwrite each other's sketch update.
+     * @param appointment Appointment
+     */
+    public synchronized void record(Appointment appointment) {
+        if (appointment.getAppointmentDateTime() == null) {
+            return;
+        }
+        try {
+            patientSketchRepository.add(appointment.getDoctorId(),
+                    YearMonth.from(appointment.getAppointmentDateTime()), appointment.getPatientId());
+        } catch (SQLException e) {
+            logger.warning("Could not update patient sketch for appointment " + appointment.getId()
+                    + ": " + e.getMessage());
+        }
+    }
+}
+
@@ -0,0 +1,205 @@
+package com.airtribe.meditrack.util;
+
+import com.airtribe.meditrack.entity.Doctor;
+import com.airtribe.meditrack.entity.Patient;
+import com.airtribe.meditrack.interfaces.EntityChangeListener;
+import com.airtribe.meditrack.repository.DoctorRepository;
+import com.airtribe.meditrack.repository.PatientRepository;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Uniqueness checks for patient email, patient phone number and doctor license number.
+ * A Bloom filter per field answers "definitely new" without touching the database;
+ * only a possible hit falls back to an indexed lookup. Filters are built from the
+ * database on the first check and updated on every create and update, and
+ * rebuilt once more values have been added than they were sized for.
+ */
+public class UniquenessChecker {
+    
+    private static final Logger logger = Logger.getLogger(UniquenessChecker.class.getName());
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 10_000;
+    
+    private static volatile UniquenessChecker instance;
+    
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private volatile BloomFilter patientEmails;
+    private volatile BloomFilter patientPhones;
+    private volatile BloomFilter licenseNumbers;
+    // Sizes of the current filters, and values added to them (updates count again)
+    private long patientCapacity;
+    private long doctorCapacity;
+    private long patientInsertions;
+    private long doctorInsertions;
+    
+    private UniquenessChecker() {
+        this.patientRepository = new PatientRepository();
+        this.doctorRepository = new DoctorRepository();
+        EntityChangeNotifier.patients().addListener(new EntityChangeListener<Patient>() {
+            @Override
+            public void onCreated(Patient entity) {
+                addPatient(entity);
+            }
+            
+            @Override
+            public void onUpdated(Patient previous, Patient current) {
+                addPatient(current);
+            }
+        });
+        EntityChangeNotifier.doctors().addListener(new EntityChangeListener<Doctor>() {
+            @Override
+            public void onCreated(Doctor entity) {
+                addDoctor(entity);
+            }
+            
+            @Override
+            public void onUpdated(Doctor previous, Doctor current) {
+                addDoctor(current);
+            }
+        });
+    }
+    
+    /**
+     * Get singleton instance (thread-safe lazy initialization)
+     * @return UniquenessChecker instance
+     */
+    public static UniquenessChecker getInstance() {
+        if (instance == null) {
+            synchronized (UniquenessChecker.class) {
+                if (instance == null) {
+                    instance = new UniquenessChecker();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Rebuild all filters from the database, sized for twice the current row count.
+     * Also drops values of deleted or changed records.
+     * @throws SQLException if database operation fails
+     */
+    public synchronized void rebuild() throws SQLException {
+        int patients = patientRepository.count();
+        long patientSize = Math.max(MIN_CAPACITY, 2L * patients);
+        BloomFilter emails = new BloomFilter(patientSize, FALSE_POSITIVE_RATE);
+        BloomFilter phones = new BloomFilter(patientSize, FALSE_POSITIVE_RATE);
+        patientRepository.forEachContact((email, phone) -> {
+            putIfPresent(emails, emailKey(email));
+            putIfPresent(phones, phone);
+        });
+        
+        int doctors = doctorRepository.count();
+        long doctorSize = Math.max(MIN_CAPACITY, 2L * doctors);
+        BloomFilter licenses = new BloomFilter(doctorSize, FALSE_POSITIVE_RATE);
+        doctorRepository.forEachLicenseNumber(license -> putIfPresent(licenses, license));
+        
+        patientEmails = emails;
+        patientPhones = phones;
+        licenseNumbers = licenses;
+        patientCapacity = patientSize;
+        doctorCapacity = doctorSize;
+        patientInsertions = patients;
+        doctorInsertions = doctors;
+        logger.info("Uniqueness filters built for " + patients + " patients and " + doctors + " doctors");
+    }
+    
+    /**
+     * Check whether another patient already uses an email address (case-insensitive)
+     * @param email Email address
+     * @param excludeId ID of the patient being updated, or 0 when creating
+     * @return true if taken
+     * @throws SQLException if database operation fails
+     */
+    public boolean isPatientEmailTaken(String email, int excludeId) throws SQLException {
+        ensureBuilt();
+        if (email == null || !patientEmails.mightContain(emailKey(email))) {
+            return false;
+        }
+        return patientRepository.existsByEmail(email, excludeId);
+    }
+    
+    /**
+     * Check whether another patient already uses a phone number
+     * @param phoneNumber Phone number as entered
+     * @param excludeId ID of the patient being updated, or 0 when creating
+     * @return true if taken
+     * @throws SQLException if database operation fails
+     */
+    public boolean isPatientPhoneTaken(String phoneNumber, int excludeId) throws SQLException {
+        ensureBuilt();
+        if (phoneNumber == null || !patientPhones.mightContain(phoneNumber)) {
+            return false;
+        }
+        return patientRepository.existsByPhoneNumber(phoneNumber, excludeId);
+    }
+    
+    /**
+     * Check whether another doctor already holds a license number
+     * @param licenseNumber License number
+     * @param excludeId ID of the doctor being updated, or 0 when creating
+     * @return true if taken
+     * @throws SQLException if database operation fails
+     */
+    public boolean isLicenseNumberTaken(String licenseNumber, int excludeId) throws SQLException {
+        ensureBuilt();
+        if (licenseNumber == null || !licenseNumbers.mightContain(licenseNumber)) {
+            return false;
+        }
+        return doctorRepository.existsByLicenseNumber(licenseNumber, excludeId);
+    }
+    
+    private void ensureBuilt() throws SQLException {
+        if (licenseNumbers == null) {
+            synchronized (this) {
+                if (licenseNumbers == null) {
+                    rebuild();
+                }
+            }
+        }
+    }
+    
+    // Writers wait for a running rebuild, so their values land in the new filters
+    private synchronized void addPatient(Patient patient) {
+        if (patientEmails != null) {
+            putIfPresent(patientEmails, emailKey(patient.getEmail()));
+            putIfPresent(patientPhones, patient.getPhoneNumber());
+            if (++patientInsertions > patientCapacity) {
+                rebuildQuietly();
+            }
+        }
+    }
+    
+    private synchronized void addDoctor(Doctor doctor) {
+        if (licenseNumbers != null) {
+            putIfPresent(licenseNumbers, doctor.getLicenseNumber());
+            if (++doctorInsertions > doctorCapacity) {
+                rebuildQuietly();
+            }
+        }
+    }
+    
+    // Full filters only raise the false positive rate, so keep them if the rebuild fails
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (SQLException e) {
+            logger.warning("Uniqueness filter rebuild failed: " + e.getMessage());
+        }
+    }
+    
+    private static void putIfPresent(BloomFilter filter, String value) {
+        if (value != null) {
+            filter.put(value);
+        }
+    }
+    
+    private static String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+}
+
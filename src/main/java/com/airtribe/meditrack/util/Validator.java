@@ -111,6 +111,28 @@ public class Validator {
         }
     }
     
+    /**
+     * Validate search query (must contain at least one letter or digit)
+     * @param query Query to validate
+     * @throws InvalidDataException if invalid
+     */
+    public static void validateSearchQuery(String query) throws InvalidDataException {
+        if (TextNormalizer.normalize(query).isEmpty()) {
+            throw new InvalidDataException("Search query cannot be empty");
+        }
+    }
+    
+    /**
+     * Validate result limit (positive number)
+     * @param limit Limit to validate
+     * @throws InvalidDataException if invalid
+     */
+    public static void validateLimit(int limit) throws InvalidDataException {
+        if (limit <= 0) {
+            throw new InvalidDataException("Limit must be a positive number");
+        }
+    }
+    
     /**
      * Validate not null
      * @param obj Object to validate